@@ -0,0 +1,417 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.util.Collections.unmodifiableSet;
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+import static org.nnsoft.trudeau.utils.Objects.eq;
+import static org.nnsoft.trudeau.utils.Objects.hash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.MutableGraph;
+import org.nnsoft.trudeau.api.VertexPair;
+
+/**
+ * Basic abstract in-memory based of a mutable {@link org.nnsoft.trudeau.api.Graph} implementation which admits
+ * concurrent writers: vertices and edges are indexed in concurrent maps and mutations lock the stripes the involved
+ * vertices hash to, so that mutations touching disjoint stripes proceed in parallel.
+ *
+ * Edge mutations take both endpoints stripes, in ascending stripe order so that writers never deadlock; vertex
+ * removals take all the stripes. Readers never lock and iterations are weakly consistent.
+ *
+ * This class is thread safe.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public abstract class BaseConcurrentMutableGraph<V, E>
+    implements MutableGraph<V, E>
+{
+
+    private static final long serialVersionUID = -2178834512906519745L;
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+    private final ConcurrentMap<V, ConcurrentMap<V, E>> adjacency = new ConcurrentHashMap<V, ConcurrentMap<V, E>>();
+
+    private final ConcurrentMap<E, VertexPair<V>> edges = new ConcurrentHashMap<E, VertexPair<V>>();
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a new empty graph, sized for the default number of concurrent writers.
+     */
+    protected BaseConcurrentMutableGraph()
+    {
+        this( DEFAULT_CONCURRENCY_LEVEL );
+    }
+
+    /**
+     * Creates a new empty graph.
+     *
+     * @param concurrencyLevel the expected number of concurrent writers, the number of lock stripes is the smallest
+     *        power of two not less than it
+     */
+    protected BaseConcurrentMutableGraph( int concurrencyLevel )
+    {
+        checkArgument( concurrencyLevel > 0, "Concurrency level must be positive, %s is not valid", concurrencyLevel );
+        stripes = new ReentrantLock[Integer.highestOneBit( ( concurrencyLevel << 1 ) - 1 )];
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getVertices()
+    {
+        return unmodifiableSet( adjacency.keySet() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOrder()
+    {
+        return adjacency.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<E> getEdges()
+    {
+        return unmodifiableSet( edges.keySet() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getSize()
+    {
+        return edges.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getConnectedVertices( V v )
+    {
+        return unmodifiableSet( getAdjacency( v ).keySet() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final E getEdge( V source, V target )
+    {
+        checkGraphCondition( containsVertex( target ), "Vertex %s does not exist in the Graph", target );
+        return getAdjacency( source ).get( target );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final VertexPair<V> getVertices( E e )
+    {
+        return e == null ? null : edges.get( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsVertex( V v )
+    {
+        return v != null && adjacency.containsKey( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsEdge( E e )
+    {
+        return e != null && edges.containsKey( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void addVertex( V v )
+    {
+        checkGraphCondition( v != null, "Impossible to add a null Vertex to the Graph" );
+
+        final ReentrantLock stripe = stripeOf( v );
+        stripe.lock();
+        try
+        {
+            checkGraphCondition( !containsVertex( v ), "Vertex '%s' already present in the Graph", v );
+            // decorations are in place before the vertex is published
+            decorateAddVertex( v );
+            adjacency.put( v, BaseConcurrentMutableGraph.<V, E>newAdjacency() );
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Executes additional actions to vertex that will be added, while holding the vertex stripe.
+     *
+     * @param v the vertex
+     */
+    protected abstract void decorateAddVertex( V v );
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void removeVertex( V v )
+    {
+        checkGraphCondition( v != null, "Impossible to remove a null Vertex from the Graph" );
+
+        for ( ReentrantLock stripe : stripes )
+        {
+            stripe.lock();
+        }
+        try
+        {
+            checkGraphCondition( containsVertex( v ), "Vertex '%s' not present in the Graph", v );
+            for ( E e : new ArrayList<E>( adjacency.get( v ).values() ) )
+            {
+                internalRemoveEdge( e );
+            }
+            decorateRemoveVertex( v );
+            adjacency.remove( v );
+        }
+        finally
+        {
+            for ( int i = stripes.length - 1; i >= 0; i-- )
+            {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Executes additional actions to vertex that will be removed, while holding all the stripes; edges connecting
+     * the vertex not yet removed have to be removed via {@link #internalRemoveEdge(Object)}.
+     *
+     * @param v the vertex
+     */
+    protected abstract void decorateRemoveVertex( V v );
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void addEdge( V head, E e, V tail )
+    {
+        checkGraphCondition( head != null, "Null head Vertex not admitted" );
+        checkGraphCondition( e != null, "Impossible to add a null Edge in the Graph" );
+        checkGraphCondition( tail != null, "Null tail Vertex not admitted" );
+
+        final ReentrantLock first = firstStripeOf( head, tail );
+        final ReentrantLock second = secondStripeOf( head, tail );
+        first.lock();
+        second.lock();
+        try
+        {
+            checkGraphCondition( containsVertex( head ), "Head Vertex '%s' not present in the Graph", head );
+            checkGraphCondition( containsVertex( tail ), "Tail Vertex '%s' not present in the Graph", tail );
+            checkGraphCondition( getEdge( head, tail ) == null, "Edge %s is already present in the Graph", e );
+            checkGraphCondition( edges.putIfAbsent( e, new VertexPair<V>( head, tail ) ) == null,
+                                 "Edge %s is already present in the Graph", e );
+
+            adjacency.get( head ).put( tail, e );
+            decorateAddEdge( head, e, tail );
+        }
+        finally
+        {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    /**
+     * Executes additional actions to edge that will be added, while holding both the endpoints stripes.
+     *
+     * @param head the head vertex
+     * @param e the edge
+     * @param tail the tail vertex
+     */
+    protected abstract void decorateAddEdge( V head, E e, V tail );
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void removeEdge( E e )
+    {
+        checkGraphCondition( e != null, "Impossible to remove a null Edge from the Graph" );
+        VertexPair<V> vertices = edges.get( e );
+        while ( vertices != null )
+        {
+            final ReentrantLock first = firstStripeOf( vertices.getHead(), vertices.getTail() );
+            final ReentrantLock second = secondStripeOf( vertices.getHead(), vertices.getTail() );
+            first.lock();
+            second.lock();
+            try
+            {
+                // the edge may have been removed, and added again between other vertices, while waiting for the
+                // stripes: it is removed as long as its current endpoints map to the held stripes, retried otherwise
+                vertices = edges.get( e );
+                if ( vertices != null && first == firstStripeOf( vertices.getHead(), vertices.getTail() )
+                    && second == secondStripeOf( vertices.getHead(), vertices.getTail() ) )
+                {
+                    internalRemoveEdge( e );
+                    return;
+                }
+            }
+            finally
+            {
+                second.unlock();
+                first.unlock();
+            }
+        }
+        throw new GraphException( "Edge '%s' not present in the Graph", e );
+    }
+
+    /**
+     * Removes the input edge, the caller has to hold both the endpoints stripes.
+     *
+     * @param e the edge to remove
+     */
+    protected final void internalRemoveEdge( E e )
+    {
+        final VertexPair<V> vertices = edges.remove( e );
+        adjacency.get( vertices.getHead() ).remove( vertices.getTail() );
+        decorateRemoveEdge( vertices.getHead(), e, vertices.getTail() );
+    }
+
+    /**
+     * Executes additional actions to edge that has been removed, while holding both the endpoints stripes.
+     *
+     * @param head the head vertex
+     * @param e the edge
+     * @param tail the tail vertex
+     */
+    protected abstract void decorateRemoveEdge( V head, E e, V tail );
+
+    /**
+     * Returns the adjacency of the input vertex, mapping each connected vertex to the connecting edge.
+     *
+     * @param v the vertex
+     * @return the adjacency of the input vertex
+     */
+    protected final ConcurrentMap<V, E> getAdjacency( V v )
+    {
+        final ConcurrentMap<V, E> connected = v == null ? null : adjacency.get( v );
+        checkGraphCondition( connected != null, "Vertex %s does not exist in the Graph", v );
+        return connected;
+    }
+
+    /**
+     * Creates a new empty per-vertex map, meant to be updated by a single writer at a time.
+     *
+     * @return a new empty per-vertex map
+     */
+    protected static <K, T> ConcurrentMap<K, T> newAdjacency()
+    {
+        return new ConcurrentHashMap<K, T>( 4, 0.75f, 1 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        return hash( 1, prime, getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        BaseConcurrentMutableGraph<Object, Object> other = (BaseConcurrentMutableGraph<Object, Object>) obj;
+        return eq( getAdjacencyView(), other.getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return String.valueOf( getAdjacencyView() );
+    }
+
+    private Map<V, Set<V>> getAdjacencyView()
+    {
+        final Map<V, Set<V>> view = new HashMap<V, Set<V>>();
+        for ( Map.Entry<V, ConcurrentMap<V, E>> entry : adjacency.entrySet() )
+        {
+            view.put( entry.getKey(), new HashSet<V>( entry.getValue().keySet() ) );
+        }
+        return view;
+    }
+
+    private ReentrantLock stripeOf( V v )
+    {
+        return stripes[stripeIndex( v )];
+    }
+
+    private ReentrantLock firstStripeOf( V head, V tail )
+    {
+        return stripes[Math.min( stripeIndex( head ), stripeIndex( tail ) )];
+    }
+
+    private ReentrantLock secondStripeOf( V head, V tail )
+    {
+        return stripes[Math.max( stripeIndex( head ), stripeIndex( tail ) )];
+    }
+
+    private int stripeIndex( V v )
+    {
+        return IdDictionary.spread( v.hashCode() ) & ( stripes.length - 1 );
+    }
+
+}
@@ -0,0 +1,494 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkElementId;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.nnsoft.trudeau.api.Graph;
+import org.nnsoft.trudeau.api.VertexPair;
+
+/**
+ * Basic abstract immutable {@link Graph} implementation, backed by compressed-sparse-row {@code int} arrays: vertices
+ * and edges are assigned dense identifiers and the adjacency of each vertex is a sorted slice of a single targets
+ * array, delimited by the offsets array.
+ *
+ * Instances are obtained via {@link BaseMutableGraph#freeze()} and are safe to be shared across threads.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public abstract class BaseFrozenGraph<V, E>
+    implements Graph<V, E>
+{
+
+    private static final long serialVersionUID = -3360413768785950385L;
+
+    private final IdDictionary<V> vertices;
+
+    private final IdDictionary<E> edges;
+
+    private final int[] heads;
+
+    private final int[] tails;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final int[] arcEdges;
+
+    /**
+     * Creates a new immutable snapshot of the input graph.
+     *
+     * @param graph the graph to be frozen
+     */
+    protected BaseFrozenGraph( Graph<V, E> graph )
+    {
+        vertices = new IdDictionary<V>( graph.getOrder() );
+        for ( V vertex : graph.getVertices() )
+        {
+            vertices.add( vertex );
+        }
+
+        edges = new IdDictionary<E>( graph.getSize() );
+        int[] edgeHeads = new int[graph.getSize()];
+        int[] edgeTails = new int[graph.getSize()];
+        for ( E edge : graph.getEdges() )
+        {
+            VertexPair<V> endpoints = graph.getVertices( edge );
+            int head = vertices.idOf( endpoints.getHead() );
+            int tail = vertices.idOf( endpoints.getTail() );
+            if ( head >= 0 && tail >= 0 )
+            {
+                int id = edges.add( edge );
+                edgeHeads[id] = head;
+                edgeTails[id] = tail;
+            }
+        }
+        heads = Arrays.copyOf( edgeHeads, edges.size() );
+        tails = Arrays.copyOf( edgeTails, edges.size() );
+
+        offsets = new int[vertices.size() + 1];
+        int[] arcTargets = new int[edges.size() << 1];
+        int[] arcEdgeIds = new int[arcTargets.length];
+        int arcs = 0;
+        for ( int id = 0; id < vertices.size(); id++ )
+        {
+            V head = vertices.get( id );
+            for ( V tail : graph.getConnectedVertices( head ) )
+            {
+                int target = vertices.idOf( tail );
+                int edge = edges.idOf( graph.getEdge( head, tail ) );
+                if ( target >= 0 && edge >= 0 )
+                {
+                    if ( arcs == arcTargets.length )
+                    {
+                        arcTargets = Arrays.copyOf( arcTargets, arcs << 1 );
+                        arcEdgeIds = Arrays.copyOf( arcEdgeIds, arcs << 1 );
+                    }
+                    arcTargets[arcs] = target;
+                    arcEdgeIds[arcs] = edge;
+                    arcs++;
+                }
+            }
+            offsets[id + 1] = arcs;
+        }
+        targets = Arrays.copyOf( arcTargets, arcs );
+        arcEdges = Arrays.copyOf( arcEdgeIds, arcs );
+        sortRows( offsets, targets, arcEdges );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getVertices()
+    {
+        return vertices.elements();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOrder()
+    {
+        return vertices.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<E> getEdges()
+    {
+        return edges.elements();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getSize()
+    {
+        return edges.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getConnectedVertices( V v )
+    {
+        final int id = checkedVertexId( v );
+        return new ElementsIterable<V>( vertices, targets, offsets[id], offsets[id + 1] );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final E getEdge( V source, V target )
+    {
+        final int arc = search( offsets, targets, checkedVertexId( source ), checkedVertexId( target ) );
+        return arc < 0 ? null : edges.get( arcEdges[arc] );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final VertexPair<V> getVertices( E e )
+    {
+        final int id = edges.idOf( e );
+        if ( id < 0 )
+        {
+            return null;
+        }
+        return new VertexPair<V>( vertices.get( heads[id] ), vertices.get( tails[id] ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsVertex( V v )
+    {
+        return vertices.idOf( v ) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsEdge( E e )
+    {
+        return edges.idOf( e ) >= 0;
+    }
+
+    /**
+     * Returns the vertices dictionary.
+     *
+     * @return the vertices dictionary
+     */
+    final IdDictionary<V> getVertexDictionary()
+    {
+        return vertices;
+    }
+
+    /**
+     * Returns the edges dictionary.
+     *
+     * @return the edges dictionary
+     */
+    final IdDictionary<E> getEdgeDictionary()
+    {
+        return edges;
+    }
+
+    /**
+     * Returns the head vertex identifier of each edge, indexed by edge identifier.
+     *
+     * @return the head vertex identifier of each edge
+     */
+    final int[] getHeads()
+    {
+        return heads;
+    }
+
+    /**
+     * Returns the tail vertex identifier of each edge, indexed by edge identifier.
+     *
+     * @return the tail vertex identifier of each edge
+     */
+    final int[] getTails()
+    {
+        return tails;
+    }
+
+    /**
+     * Returns the number of vertices adjacent to the vertex identified by the input identifier.
+     *
+     * @param id the vertex identifier
+     * @return the number of vertices adjacent to the input vertex
+     */
+    final int adjacencySize( int id )
+    {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns the offsets of the compressed-sparse-row adjacency.
+     *
+     * @return the offsets of the compressed-sparse-row adjacency
+     */
+    final int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * Returns the targets of the compressed-sparse-row adjacency.
+     *
+     * @return the targets of the compressed-sparse-row adjacency
+     */
+    final int[] getTargets()
+    {
+        return targets;
+    }
+
+    /**
+     * Returns the edge identifiers of the compressed-sparse-row adjacency, parallel to the targets array.
+     *
+     * @return the edge identifiers of the compressed-sparse-row adjacency
+     */
+    final int[] getArcEdges()
+    {
+        return arcEdges;
+    }
+
+    /**
+     * Returns the identifier of the input vertex, failing if it is not part of this graph.
+     *
+     * @param v the vertex to look up
+     * @return the identifier of the input vertex
+     */
+    final int checkedVertexId( V v )
+    {
+        return checkElementId( vertices.idOf( v ), "Vertex %s does not exist in the Graph", v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = 1;
+        for ( int id = 0; id < vertices.size(); id++ )
+        {
+            int row = vertices.get( id ).hashCode();
+            for ( int arc = offsets[id]; arc < offsets[id + 1]; arc++ )
+            {
+                row += 31 * vertices.get( targets[arc] ).hashCode();
+            }
+            result += row;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        BaseFrozenGraph<Object, Object> other = (BaseFrozenGraph<Object, Object>) obj;
+        if ( vertices.size() != other.vertices.size() || targets.length != other.targets.length )
+        {
+            return false;
+        }
+
+        for ( int id = 0; id < vertices.size(); id++ )
+        {
+            int otherId = other.vertices.idOf( vertices.get( id ) );
+            if ( otherId < 0 || adjacencySize( id ) != other.adjacencySize( otherId ) )
+            {
+                return false;
+            }
+
+            for ( int arc = offsets[id]; arc < offsets[id + 1]; arc++ )
+            {
+                int otherTarget = other.vertices.idOf( vertices.get( targets[arc] ) );
+                if ( otherTarget < 0 || search( other.offsets, other.targets, otherId, otherTarget ) < 0 )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( "{" );
+        for ( int id = 0; id < vertices.size(); id++ )
+        {
+            if ( id > 0 )
+            {
+                builder.append( ", " );
+            }
+            builder.append( vertices.get( id ) ).append( "=[" );
+            for ( int arc = offsets[id]; arc < offsets[id + 1]; arc++ )
+            {
+                if ( arc > offsets[id] )
+                {
+                    builder.append( ", " );
+                }
+                builder.append( vertices.get( targets[arc] ) );
+            }
+            builder.append( ']' );
+        }
+        return builder.append( '}' ).toString();
+    }
+
+    /**
+     * Binary searches the {@code target} identifier in the sorted row of the {@code source} identifier.
+     *
+     * @return the arc index, a negative number if not found
+     */
+    static int search( int[] offsets, int[] targets, int source, int target )
+    {
+        int low = offsets[source];
+        int high = offsets[source + 1] - 1;
+        while ( low <= high )
+        {
+            int middle = ( low + high ) >>> 1;
+            int value = targets[middle];
+            if ( value < target )
+            {
+                low = middle + 1;
+            }
+            else if ( value > target )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sorts each row of the compressed-sparse-row adjacency by target identifier, moving the companion values along.
+     */
+    static void sortRows( int[] offsets, int[] targets, int[] values )
+    {
+        long[] row = new long[0];
+        for ( int id = 0; id + 1 < offsets.length; id++ )
+        {
+            int from = offsets[id];
+            int length = offsets[id + 1] - from;
+            if ( length < 2 )
+            {
+                continue;
+            }
+
+            if ( row.length < length )
+            {
+                row = new long[length];
+            }
+            for ( int i = 0; i < length; i++ )
+            {
+                row[i] = ( (long) targets[from + i] << 32 ) | ( values[from + i] & 0xFFFFFFFFL );
+            }
+            Arrays.sort( row, 0, length );
+            for ( int i = 0; i < length; i++ )
+            {
+                targets[from + i] = (int) ( row[i] >>> 32 );
+                values[from + i] = (int) row[i];
+            }
+        }
+    }
+
+    /**
+     * Read-only view over the dictionary elements identified by a range of an identifiers array.
+     */
+    static final class ElementsIterable<T>
+        implements Iterable<T>
+    {
+
+        private final IdDictionary<T> dictionary;
+
+        private final int[] ids;
+
+        private final int from;
+
+        private final int to;
+
+        ElementsIterable( IdDictionary<T> dictionary, int[] ids, int from, int to )
+        {
+            this.dictionary = dictionary;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Iterator<T> iterator()
+        {
+            return new Iterator<T>()
+            {
+
+                private int index = from;
+
+                public boolean hasNext()
+                {
+                    return index < to;
+                }
+
+                public T next()
+                {
+                    if ( index >= to )
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return dictionary.get( ids[index++] );
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException( "Frozen graphs cannot be modified" );
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -17,23 +17,30 @@ package org.nnsoft.trudeau.inmemory;
  */
 
 import static java.lang.String.format;
-import static java.util.Collections.unmodifiableCollection;
-import static java.util.Collections.unmodifiableSet;
-import static org.nnsoft.trudeau.utils.Objects.eq;
-import static org.nnsoft.trudeau.utils.Objects.hash;
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.nnsoft.trudeau.api.Graph;
 import org.nnsoft.trudeau.api.GraphException;
 import org.nnsoft.trudeau.api.VertexPair;
 
 /**
- * Basic abstract in-memory based of a simple read-only {@link Graph} implementation. Subclasses may load adjacency
- * list/edges set in the constructor, or expose {@link org.apache.commons.graph.MutableGraph} APIs.
+ * Basic abstract in-memory based of a simple read-only {@link Graph} implementation. Subclasses may load vertices
+ * and edges in the constructor, or expose {@link org.apache.commons.graph.MutableGraph} APIs.
+ *
+ * Vertices and edges are assigned dense {@code int} identifiers when added: each edge is stored once, as a record of
+ * its head and tail identifiers, and each vertex keeps the identifiers of its incident edges, so that edges, edge
+ * endpoints and connected vertices are all views derived from the same storage.
  *
  * This class is NOT thread safe!
  *
@@ -44,22 +51,39 @@ public abstract class BaseGraph<V, E>
     implements Graph<V, E>
 {
 
-    private static final long serialVersionUID = -8066786787634472712L;
+    private static final long serialVersionUID = 4611720745214838934L;
 
-    private final Map<V, Set<V>> adjacencyList = new HashMap<V, Set<V>>();
+    /**
+     * Parallel visits split the graph in more ranges than workers, so that workers done early pick up the remaining.
+     */
+    private static final int RANGES_PER_PROCESSOR = 4;
 
-    private final Set<E> allEdges = new HashSet<E>();
+    private transient DenseGraphStore<V, E> store;
 
-    private final Map<VertexPair<V>, E> indexedEdges = new HashMap<VertexPair<V>, E>();
+    /**
+     * Creates a new empty graph.
+     */
+    protected BaseGraph()
+    {
+        this( new DenseGraphStore<V, E>( false ) );
+    }
 
-    private final Map<E, VertexPair<V>> indexedVertices = new HashMap<E, VertexPair<V>>();
+    /**
+     * Creates a new empty graph.
+     *
+     * @param store the dense identifiers based storage
+     */
+    BaseGraph( DenseGraphStore<V, E> store )
+    {
+        this.store = store;
+    }
 
     /**
      * {@inheritDoc}
      */
     public final Iterable<V> getVertices()
     {
-        return unmodifiableSet( adjacencyList.keySet() );
+        return store.vertices();
     }
 
     /**
@@ -67,7 +91,7 @@ public abstract class BaseGraph<V, E>
      */
     public final int getOrder()
     {
-        return adjacencyList.size();
+        return store.order();
     }
 
     /**
@@ -75,7 +99,20 @@ public abstract class BaseGraph<V, E>
      */
     public final Iterable<E> getEdges()
     {
-        return unmodifiableCollection( allEdges );
+        return store.edges();
+    }
+
+    /**
+     * Visits each edge of this graph together with its endpoints, in the same order of {@link #getEdges()}, reading
+     * the endpoints from the edges table rather than looking them up edge by edge.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param visitor the visitor notified with each edge
+     */
+    public final void forEachEdge( EdgeVisitor<? super V, ? super E> visitor )
+    {
+        store.visitEdges( visitor );
     }
 
     /**
@@ -83,7 +120,7 @@ public abstract class BaseGraph<V, E>
      */
     public int getSize()
     {
-        return allEdges.size();
+        return store.size();
     }
 
     /**
@@ -91,9 +128,36 @@ public abstract class BaseGraph<V, E>
      */
     public final Iterable<V> getConnectedVertices( V v )
     {
-        checkGraphCondition( containsVertex( v ), "Vertex %s does not exist in the Graph", v );
-        final Set<V> adj = adjacencyList.get( v );
-        return unmodifiableSet( adj );
+        return store.outboundVertices( vertexId( v ) );
+    }
+
+    /**
+     * Visits the vertices connected to the input vertex, in the same order of {@link #getConnectedVertices(Object)},
+     * reading the adjacency storage directly rather than allocating a view and its iterator.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each connected vertex
+     */
+    public final void forEachNeighbor( V v, VertexVisitor<? super V> visitor )
+    {
+        store.visitOutboundVertices( vertexId( v ), visitor );
+    }
+
+    /**
+     * Visits the vertices connected to the input vertex, in the same order of {@link #getConnectedVertices(Object)},
+     * until one of them satisfies the input predicate.
+     *
+     * The predicate must not modify this graph.
+     *
+     * @param v the vertex
+     * @param predicate the condition tested against each connected vertex
+     * @return true, if a connected vertex satisfies the predicate
+     */
+    public final boolean anyNeighbor( V v, VertexPredicate<? super V> predicate )
+    {
+        return store.anyOutboundVertex( vertexId( v ), predicate );
     }
 
     /**
@@ -101,10 +165,8 @@ public abstract class BaseGraph<V, E>
      */
     public final E getEdge( V source, V target )
     {
-        checkGraphCondition( containsVertex( source ), "Vertex %s does not exist in the Graph", source );
-        checkGraphCondition( containsVertex( target ), "Vertex %s does not exist in the Graph", target );
-
-        return indexedEdges.get( new VertexPair<V>( source, target ) );
+        final int edge = store.findEdge( vertexId( source ), vertexId( target ) );
+        return edge < 0 ? null : store.edge( edge );
     }
 
     /**
@@ -112,7 +174,12 @@ public abstract class BaseGraph<V, E>
      */
     public final VertexPair<V> getVertices( E e )
     {
-        return indexedVertices.get( e );
+        final int edge = store.edgeId( e );
+        if ( edge < 0 )
+        {
+            return null;
+        }
+        return new VertexPair<V>( store.vertex( store.head( edge ) ), store.vertex( store.tail( edge ) ) );
     }
 
     /**
@@ -120,7 +187,7 @@ public abstract class BaseGraph<V, E>
      */
     public boolean containsVertex( V v )
     {
-        return adjacencyList.containsKey( v );
+        return store.vertexId( v ) >= 0;
     }
 
     /**
@@ -128,17 +195,253 @@ public abstract class BaseGraph<V, E>
      */
     public boolean containsEdge( E e )
     {
-        return indexedVertices.containsKey( e );
+        return store.edgeId( e ) >= 0;
+    }
+
+    /**
+     * Returns the dense identifier assigned to the input vertex when added to this graph.
+     *
+     * Identifiers are in the {@code [0, n)} range, where {@code n} is bounded by the number of vertices ever held at
+     * the same time in the graph, and the identifier of a removed vertex may be assigned to a vertex added later.
+     *
+     * @param v the vertex
+     * @return the dense identifier assigned to the input vertex
+     * @throws GraphException if the vertex does not exist in the Graph
+     */
+    public final int vertexId( V v )
+    {
+        return checkElementId( store.vertexId( v ), "Vertex %s does not exist in the Graph", v );
     }
 
     /**
-     * Returns the adjacency list where stored vertex/edges.
+     * Returns the vertex identified by the input dense identifier.
      *
-     * @return the adjacency list where stored vertex/edges.
+     * @param id the vertex dense identifier
+     * @return the vertex identified by the input dense identifier, null if no vertex is currently identified by it
      */
-    protected final Map<V, Set<V>> getAdjacencyList()
+    public final V vertex( int id )
     {
-        return adjacencyList;
+        return store.vertex( id );
+    }
+
+    /**
+     * Returns the dense identifier assigned to the input edge when added to this graph.
+     *
+     * @param e the edge
+     * @return the dense identifier assigned to the input edge
+     * @throws GraphException if the edge does not exist in the Graph
+     */
+    public final int edgeId( E e )
+    {
+        return checkElementId( store.edgeId( e ), "Edge %s does not exist in the Graph", e );
+    }
+
+    /**
+     * Returns the edge identified by the input dense identifier.
+     *
+     * @param id the edge dense identifier
+     * @return the edge identified by the input dense identifier, null if no edge is currently identified by it
+     */
+    public final E edge( int id )
+    {
+        return store.edge( id );
+    }
+
+    /**
+     * Returns the dense identifiers of the vertices connected to the vertex identified by the input dense identifier,
+     * in the same order of {@link #getConnectedVertices(Object)}.
+     *
+     * @param id the vertex dense identifier
+     * @return a copy of the dense identifiers of the connected vertices
+     */
+    public final int[] neighborsOf( int id )
+    {
+        return store.neighbors( id );
+    }
+
+    /**
+     * Splits the vertices of this graph in {@code parts} disjoint views, each one holding about the same number of
+     * vertices, which may be iterated by different threads as long as this graph is not modified.
+     *
+     * Views are backed by contiguous ranges of dense identifiers: vertices are not copied, concatenating the views
+     * iterates the vertices in the same order of {@link #getVertices()}. Removed vertices leave holes in the ranges,
+     * so the number of vertices of a view is not known up front, only by iterating it.
+     *
+     * @param parts the number of views
+     * @return the views over the vertices of this graph
+     */
+    public final List<Iterable<V>> partitionVertices( int parts )
+    {
+        checkArgument( parts > 0, "Number of partitions must be positive, %s is not valid", parts );
+        return vertexViews( store.vertexPartitions( parts, false ) );
+    }
+
+    /**
+     * Splits the vertices of this graph in {@code parts} disjoint views, balanced by the number of vertices plus the
+     * number of their arcs rather than by the number of vertices only, so that the work spent visiting adjacencies
+     * is evenly spread over graphs with skewed degrees.
+     *
+     * @param parts the number of views
+     * @return the views over the vertices of this graph
+     * @see #partitionVertices(int)
+     */
+    public final List<Iterable<V>> partitionVerticesByDegree( int parts )
+    {
+        checkArgument( parts > 0, "Number of partitions must be positive, %s is not valid", parts );
+        return vertexViews( store.vertexPartitions( parts, true ) );
+    }
+
+    /**
+     * Splits the edges of this graph in {@code parts} disjoint views, each one holding about the same number of
+     * edges, which may be iterated by different threads as long as this graph is not modified.
+     *
+     * @param parts the number of views
+     * @return the views over the edges of this graph
+     * @see #partitionVertices(int)
+     */
+    public final List<Iterable<E>> partitionEdges( int parts )
+    {
+        checkArgument( parts > 0, "Number of partitions must be positive, %s is not valid", parts );
+        final int[] boundaries = store.edgePartitions( parts );
+        final List<Iterable<E>> views = new ArrayList<Iterable<E>>( parts );
+        for ( int i = 0; i < parts; i++ )
+        {
+            views.add( store.edges( boundaries[i], boundaries[i + 1] ) );
+        }
+        return views;
+    }
+
+    /**
+     * Visits the vertices of this graph in parallel, splitting them by degree among tasks submitted to the input
+     * executor, and waits until all of them have been visited.
+     *
+     * The visitor is invoked concurrently, it has to be thread safe and must not modify this graph.
+     *
+     * @param visitor the visitor notified with each vertex
+     * @param executor the executor running the visiting tasks
+     */
+    public final void forEachVertex( final VertexVisitor<? super V> visitor, ExecutorService executor )
+    {
+        checkNotNull( visitor, "Impossible to visit the vertices with a null visitor" );
+        final int[] boundaries = store.vertexPartitions( parallelRanges(), true );
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>( boundaries.length - 1 );
+        for ( int i = 0; i + 1 < boundaries.length; i++ )
+        {
+            final int from = boundaries[i];
+            final int to = boundaries[i + 1];
+            tasks.add( new Callable<Void>()
+            {
+
+                public Void call()
+                {
+                    store.visitVertices( from, to, visitor );
+                    return null;
+                }
+
+            } );
+        }
+        invokeAll( executor, tasks );
+    }
+
+    /**
+     * Visits the edges of this graph, together with their endpoints, in parallel, splitting them among tasks
+     * submitted to the input executor, and waits until all of them have been visited.
+     *
+     * The visitor is invoked concurrently, it has to be thread safe and must not modify this graph.
+     *
+     * @param visitor the visitor notified with each edge
+     * @param executor the executor running the visiting tasks
+     */
+    public final void forEachEdge( final EdgeVisitor<? super V, ? super E> visitor, ExecutorService executor )
+    {
+        checkNotNull( visitor, "Impossible to visit the edges with a null visitor" );
+        final int[] boundaries = store.edgePartitions( parallelRanges() );
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>( boundaries.length - 1 );
+        for ( int i = 0; i + 1 < boundaries.length; i++ )
+        {
+            final int from = boundaries[i];
+            final int to = boundaries[i + 1];
+            tasks.add( new Callable<Void>()
+            {
+
+                public Void call()
+                {
+                    store.visitEdges( from, to, visitor );
+                    return null;
+                }
+
+            } );
+        }
+        invokeAll( executor, tasks );
+    }
+
+    private List<Iterable<V>> vertexViews( int[] boundaries )
+    {
+        final List<Iterable<V>> views = new ArrayList<Iterable<V>>( boundaries.length - 1 );
+        for ( int i = 0; i + 1 < boundaries.length; i++ )
+        {
+            views.add( store.vertices( boundaries[i], boundaries[i + 1] ) );
+        }
+        return views;
+    }
+
+    private static int parallelRanges()
+    {
+        return Runtime.getRuntime().availableProcessors() * RANGES_PER_PROCESSOR;
+    }
+
+    /**
+     * Runs the input tasks and waits for all of them, rethrowing the first failure once all have completed.
+     */
+    private static void invokeAll( ExecutorService executor, List<Callable<Void>> tasks )
+    {
+        checkNotNull( executor, "Impossible to visit the graph with a null executor" );
+        final List<Future<Void>> futures;
+        try
+        {
+            futures = executor.invokeAll( tasks );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new GraphException( "Graph visit interrupted" );
+        }
+
+        for ( Future<Void> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( InterruptedException e )
+            {
+                // not expected, invokeAll returns completed futures only
+                Thread.currentThread().interrupt();
+                throw new GraphException( "Graph visit interrupted" );
+            }
+            catch ( ExecutionException e )
+            {
+                if ( e.getCause() instanceof RuntimeException )
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                if ( e.getCause() instanceof Error )
+                {
+                    throw (Error) e.getCause();
+                }
+                throw new GraphException( "Graph visit failed", e.getCause() );
+            }
+        }
+    }
+
+    /**
+     * Returns the dense identifiers based storage.
+     *
+     * @return the dense identifiers based storage
+     */
+    final DenseGraphStore<V, E> getStore()
+    {
+        return store;
     }
 
     /**
@@ -147,8 +450,23 @@ public abstract class BaseGraph<V, E>
     @Override
     public int hashCode()
     {
-        final int prime = 31;
-        return hash( 1, prime, adjacencyList, allEdges, indexedEdges, indexedVertices );
+        // same value of hash( 1, 31, adjacency ), where adjacency maps each vertex to the set of its connected ones,
+        // computed straight from the storage
+        int adjacencyHash = 0;
+        for ( int id = 0; id < store.vertexBound(); id++ )
+        {
+            final V v = store.vertex( id );
+            if ( v != null )
+            {
+                int connectedHash = 0;
+                for ( int i = 0; i < store.outDegree( id ); i++ )
+                {
+                    connectedHash += store.vertex( store.neighbor( id, i ) ).hashCode();
+                }
+                adjacencyHash += v.hashCode() ^ connectedHash;
+            }
+        }
+        return 31 + adjacencyHash;
     }
 
     /**
@@ -170,7 +488,36 @@ public abstract class BaseGraph<V, E>
         @SuppressWarnings( "unchecked" )
         // test against any Graph typed instance
         BaseGraph<Object, Object> other = (BaseGraph<Object, Object>) obj;
-        return eq( adjacencyList, other.getAdjacencyList() );
+        final DenseGraphStore<Object, Object> otherStore = other.store;
+        if ( store.order() != otherStore.order() )
+        {
+            return false;
+        }
+
+        // same vertices, each connected to the same ones; arcs are never duplicated, so degrees and lookups suffice
+        for ( int id = 0; id < store.vertexBound(); id++ )
+        {
+            final V v = store.vertex( id );
+            if ( v == null )
+            {
+                continue;
+            }
+
+            final int otherId = otherStore.vertexId( v );
+            if ( otherId < 0 || store.outDegree( id ) != otherStore.outDegree( otherId ) )
+            {
+                return false;
+            }
+            for ( int i = 0; i < store.outDegree( id ); i++ )
+            {
+                final int otherConnected = otherStore.vertexId( store.vertex( store.neighbor( id, i ) ) );
+                if ( otherConnected < 0 || otherStore.findEdge( otherId, otherConnected ) < 0 )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -179,36 +526,107 @@ public abstract class BaseGraph<V, E>
     @Override
     public String toString()
     {
-        return String.valueOf( adjacencyList );
-    }
+        // the adjacency, formatted as a map of each vertex to the list of its connected ones
+        final StringBuilder builder = new StringBuilder( "{" );
+        for ( int id = 0; id < store.vertexBound(); id++ )
+        {
+            final V v = store.vertex( id );
+            if ( v == null )
+            {
+                continue;
+            }
 
-    /**
-     * Return the edge {@link Set}
-     * @return the edge {@link Set}
-     */
-    protected Set<E> getAllEdges()
-    {
-        return allEdges;
+            if ( builder.length() > 1 )
+            {
+                builder.append( ", " );
+            }
+            builder.append( v ).append( "=[" );
+            for ( int i = 0; i < store.outDegree( id ); i++ )
+            {
+                if ( i > 0 )
+                {
+                    builder.append( ", " );
+                }
+                builder.append( store.vertex( store.neighbor( id, i ) ) );
+            }
+            builder.append( ']' );
+        }
+        return builder.append( '}' ).toString();
     }
 
     /**
-     * Returns the {@code Map} of indexed edges.
-     * 
-     * @return the {@link Map} of indexed edges
+     * Writes vertices once and edges once, as {@code (head index, edge, tail index)} triples, rather than each of the
+     * indexes where they are stored.
+     *
+     * @serialData the off-heap flag, the order followed by each vertex, the size followed by each edge triple
      */
-    protected Map<VertexPair<V>, E> getIndexedEdges()
+    private void writeObject( ObjectOutputStream out )
+        throws IOException
     {
-        return indexedEdges;
+        out.defaultWriteObject();
+        out.writeBoolean( store.isOffHeap() );
+
+        // removed vertices leave holes in the identifiers space, indexes are compact
+        final int[] indexes = new int[store.vertexBound()];
+        int index = 0;
+        out.writeInt( store.order() );
+        for ( int id = 0; id < indexes.length; id++ )
+        {
+            final V v = store.vertex( id );
+            if ( v != null )
+            {
+                indexes[id] = index++;
+                out.writeObject( v );
+            }
+        }
+
+        out.writeInt( store.size() );
+        for ( int id = 0; id < store.edgeBound(); id++ )
+        {
+            final E e = store.edge( id );
+            if ( e != null )
+            {
+                out.writeInt( indexes[store.head( id )] );
+                out.writeObject( e );
+                out.writeInt( indexes[store.tail( id )] );
+            }
+        }
     }
 
     /**
-     * Returns the {@code Map} of indexed vertices.
-     * 
-     * @return the indexed vertices {@link Map}
+     * Restores vertices and edges in a presized storage, where their identifiers are compacted to the
+     * {@code [0, n)} range; subclasses rebuild their own derived state from it.
      */
-    protected Map<E, VertexPair<V>> getIndexedVertices()
+    @SuppressWarnings( "unchecked" ) // only V and E instances are written
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
     {
-        return indexedVertices;
+        in.defaultReadObject();
+        final boolean offHeap = in.readBoolean();
+
+        final int order = in.readInt();
+        final Object[] vertices = new Object[order];
+        for ( int index = 0; index < order; index++ )
+        {
+            vertices[index] = in.readObject();
+        }
+
+        final int size = in.readInt();
+        store = new DenseGraphStore<V, E>( offHeap, order, size );
+        for ( Object v : vertices )
+        {
+            store.addVertex( (V) v );
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            final int head = in.readInt();
+            final E e = (E) in.readObject();
+            final int tail = in.readInt();
+
+            // vertices identifiers in a new storage match their indexes
+            store.addArc( head, store.addEdge( head, e, tail ), tail );
+        }
     }
 
     /**
@@ -234,4 +652,26 @@ public abstract class BaseGraph<V, E>
             throw new GraphException( format( errorMessageTemplate, errorMessageArgs ) );
         }
     }
+
+    /**
+     * Ensures the input identifier, looked up for the input element, is valid.
+     *
+     * Lookups are not delegated to {@link #checkGraphCondition(boolean, String, Object...)}, which would allocate the
+     * arguments array on each call, failed or not.
+     *
+     * @param id the identifier looked up for the element, negative if the element does not exist in the Graph
+     * @param errorMessageTemplate a template for the exception message should the check fail, whose only {@code %s}
+     *     placeholder is replaced with the element
+     * @param element the looked up element
+     * @return the input identifier
+     * @throws GraphException if {@code id} is negative
+     */
+    static int checkElementId( int id, String errorMessageTemplate, Object element )
+    {
+        if ( id < 0 )
+        {
+            throw new GraphException( format( errorMessageTemplate, element ) );
+        }
+        return id;
+    }
 }
@@ -0,0 +1,627 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+import static org.nnsoft.trudeau.utils.Objects.eq;
+import static org.nnsoft.trudeau.utils.Objects.hash;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.nnsoft.trudeau.api.MutableGraph;
+import org.nnsoft.trudeau.api.VertexPair;
+
+/**
+ * Basic abstract in-memory based mutable Graph implementation, specialized for vertices that are primitive
+ * {@code long} identifiers: vertices are mapped to slots through an open-addressing {@code long} map and the
+ * adjacency of each slot is a growable {@code long} array of adjacent vertices, with the companion edge identifiers.
+ * Arcs leaving high degree vertices are indexed by their endpoints slots, so that edge lookups do not scan their
+ * adjacency.
+ *
+ * The generic {@link MutableGraph} methods box/unbox vertices and adapt to the primitive ones.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <E> the Graph edges type
+ */
+public abstract class BaseLongMutableGraph<E>
+    implements MutableGraph<Long, E>
+{
+
+    private static final long serialVersionUID = 6329180862542563421L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Outbound lists with more arcs than this are indexed in the hub arcs map, shorter ones are scanned.
+     */
+    private static final int HUB_DEGREE = 64;
+
+    private final boolean directed;
+
+    private final LongIntMap slots = new LongIntMap( INITIAL_CAPACITY );
+
+    private final IntList recycledSlots = new IntList();
+
+    private long[] vertices = new long[INITIAL_CAPACITY];
+
+    private int slotsBound;
+
+    private LongList[] outbound = new LongList[INITIAL_CAPACITY];
+
+    private IntList[] outboundEdges = new IntList[INITIAL_CAPACITY];
+
+    private LongList[] inbound;
+
+    private IntList[] inboundEdges;
+
+    private final IdDictionary<E> edges = new IdDictionary<E>( INITIAL_CAPACITY );
+
+    private long[] heads = new long[INITIAL_CAPACITY];
+
+    private long[] tails = new long[INITIAL_CAPACITY];
+
+    private final LongIntMap hubArcs = new LongIntMap( INITIAL_CAPACITY );
+
+    /**
+     * Creates a new empty graph.
+     *
+     * @param directed true if edges connect the head to the tail only, false if they connect both ways
+     */
+    protected BaseLongMutableGraph( boolean directed )
+    {
+        this.directed = directed;
+        if ( directed )
+        {
+            inbound = new LongList[INITIAL_CAPACITY];
+            inboundEdges = new IntList[INITIAL_CAPACITY];
+        }
+    }
+
+    // primitive APIs
+
+    /**
+     * Adds the input vertex to the graph.
+     *
+     * @param v the vertex to add
+     */
+    public final void addVertex( long v )
+    {
+        checkGraphCondition( slots.get( v ) < 0, "Vertex '%s' already present in the Graph", v );
+
+        final int slot;
+        if ( recycledSlots.isEmpty() )
+        {
+            slot = slotsBound++;
+            if ( slot == vertices.length )
+            {
+                int capacity = slot << 1;
+                vertices = Arrays.copyOf( vertices, capacity );
+                outbound = Arrays.copyOf( outbound, capacity );
+                outboundEdges = Arrays.copyOf( outboundEdges, capacity );
+                if ( directed )
+                {
+                    inbound = Arrays.copyOf( inbound, capacity );
+                    inboundEdges = Arrays.copyOf( inboundEdges, capacity );
+                }
+            }
+        }
+        else
+        {
+            slot = recycledSlots.removeLast();
+        }
+
+        slots.put( v, slot );
+        vertices[slot] = v;
+        outbound[slot] = new LongList();
+        outboundEdges[slot] = new IntList();
+        if ( directed )
+        {
+            inbound[slot] = new LongList();
+            inboundEdges[slot] = new IntList();
+        }
+    }
+
+    /**
+     * Removes the input vertex from the graph, together with the edges touching it.
+     *
+     * @param v the vertex to remove
+     */
+    public final void removeVertex( long v )
+    {
+        final int slot = checkedSlot( v );
+
+        while ( outboundEdges[slot].size() > 0 )
+        {
+            removeEdge( edges.get( outboundEdges[slot].get( 0 ) ) );
+        }
+        if ( directed )
+        {
+            while ( inboundEdges[slot].size() > 0 )
+            {
+                removeEdge( edges.get( inboundEdges[slot].get( 0 ) ) );
+            }
+            inbound[slot] = null;
+            inboundEdges[slot] = null;
+        }
+
+        slots.remove( v );
+        outbound[slot] = null;
+        outboundEdges[slot] = null;
+        recycledSlots.add( slot );
+    }
+
+    /**
+     * Checks the input vertex is part of the graph.
+     *
+     * @param v the vertex to look up
+     * @return true, if the input vertex is part of the graph, false otherwise
+     */
+    public final boolean containsVertex( long v )
+    {
+        return slots.get( v ) >= 0;
+    }
+
+    /**
+     * Adds the input edge, connecting {@code head} to {@code tail}.
+     *
+     * @param head the head vertex
+     * @param e the edge
+     * @param tail the tail vertex
+     */
+    public final void addEdge( long head, E e, long tail )
+    {
+        checkGraphCondition( e != null, "Impossible to add a null Edge in the Graph" );
+        final int headSlot = slots.get( head );
+        final int tailSlot = slots.get( tail );
+        checkGraphCondition( headSlot >= 0, "Head Vertex '%s' not present in the Graph", head );
+        checkGraphCondition( tailSlot >= 0, "Tail Vertex '%s' not present in the Graph", tail );
+        checkGraphCondition( findEdge( headSlot, tail, tailSlot ) < 0, "Edge %s is already present in the Graph", e );
+        checkGraphCondition( edges.idOf( e ) < 0, "Edge %s is already present in the Graph", e );
+
+        final int edge = edges.add( e );
+        if ( edge >= heads.length )
+        {
+            heads = Arrays.copyOf( heads, Math.max( edge + 1, heads.length << 1 ) );
+            tails = Arrays.copyOf( tails, heads.length );
+        }
+        heads[edge] = head;
+        tails[edge] = tail;
+
+        addArc( headSlot, tail, tailSlot, edge );
+        if ( directed )
+        {
+            inbound[tailSlot].add( head );
+            inboundEdges[tailSlot].add( edge );
+        }
+        else if ( headSlot != tailSlot )
+        {
+            addArc( tailSlot, head, headSlot, edge );
+        }
+    }
+
+    /**
+     * Returns the edge connecting {@code source} to {@code target}.
+     *
+     * @param source the source vertex
+     * @param target the target vertex
+     * @return the edge connecting {@code source} to {@code target}, null if not found
+     */
+    public final E getEdge( long source, long target )
+    {
+        final int edge = findEdge( checkedSlot( source ), target, checkedSlot( target ) );
+        return edge < 0 ? null : edges.get( edge );
+    }
+
+    /**
+     * Visits the vertices connected to the input vertex, without boxing them.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each connected vertex
+     */
+    public final void forEachOutbound( long v, LongVisitor visitor )
+    {
+        final LongList adjacency = outbound[checkedSlot( v )];
+        for ( int i = 0; i < adjacency.size(); i++ )
+        {
+            visitor.visit( adjacency.get( i ) );
+        }
+    }
+
+    // Graph adapters
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void addVertex( Long v )
+    {
+        checkGraphCondition( v != null, "Impossible to add a null Vertex to the Graph" );
+        addVertex( v.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void removeVertex( Long v )
+    {
+        checkGraphCondition( v != null, "Impossible to remove a null Vertex from the Graph" );
+        removeVertex( v.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void addEdge( Long head, E e, Long tail )
+    {
+        checkGraphCondition( head != null, "Null head Vertex not admitted" );
+        checkGraphCondition( tail != null, "Null tail Vertex not admitted" );
+        addEdge( head.longValue(), e, tail.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final void removeEdge( E e )
+    {
+        checkGraphCondition( e != null, "Impossible to remove a null Edge from the Graph" );
+        final int edge = edges.idOf( e );
+        checkGraphCondition( edge >= 0, "Edge '%s' not present in the Graph", e );
+
+        final int headSlot = slots.get( heads[edge] );
+        final int tailSlot = slots.get( tails[edge] );
+        removeOutboundArc( headSlot, tailSlot, edge );
+        if ( directed )
+        {
+            removeArc( inbound[tailSlot], inboundEdges[tailSlot], edge );
+        }
+        else if ( headSlot != tailSlot )
+        {
+            removeOutboundArc( tailSlot, headSlot, edge );
+        }
+        edges.remove( edge );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<Long> getVertices()
+    {
+        return new Iterable<Long>()
+        {
+
+            public Iterator<Long> iterator()
+            {
+                return new Iterator<Long>()
+                {
+
+                    private int next = advance( 0 );
+
+                    public boolean hasNext()
+                    {
+                        return next < slotsBound;
+                    }
+
+                    public Long next()
+                    {
+                        if ( next >= slotsBound )
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        Long vertex = vertices[next];
+                        next = advance( next + 1 );
+                        return vertex;
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    private int advance( int from )
+                    {
+                        int slot = from;
+                        while ( slot < slotsBound && outbound[slot] == null )
+                        {
+                            slot++;
+                        }
+                        return slot;
+                    }
+
+                };
+            }
+
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOrder()
+    {
+        return slots.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<E> getEdges()
+    {
+        return edges.elements();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getSize()
+    {
+        return edges.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<Long> getConnectedVertices( Long v )
+    {
+        checkGraphCondition( v != null, "Vertex %s does not exist in the Graph", v );
+        return new LongsIterable( outbound[checkedSlot( v.longValue() )] );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final E getEdge( Long source, Long target )
+    {
+        checkGraphCondition( source != null, "Vertex %s does not exist in the Graph", source );
+        checkGraphCondition( target != null, "Vertex %s does not exist in the Graph", target );
+        return getEdge( source.longValue(), target.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final VertexPair<Long> getVertices( E e )
+    {
+        final int edge = edges.idOf( e );
+        if ( edge < 0 )
+        {
+            return null;
+        }
+        return new VertexPair<Long>( heads[edge], tails[edge] );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsVertex( Long v )
+    {
+        return v != null && containsVertex( v.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsEdge( E e )
+    {
+        return edges.idOf( e ) >= 0;
+    }
+
+    // support methods for subclasses
+
+    /**
+     * Returns the slot of the input vertex, failing if it is not part of this graph.
+     *
+     * @param v the vertex to look up
+     * @return the slot of the input vertex
+     */
+    final int checkedSlot( long v )
+    {
+        final int slot = slots.get( v );
+        checkGraphCondition( slot >= 0, "Vertex %s does not exist in the Graph", v );
+        return slot;
+    }
+
+    /**
+     * Returns the inbound adjacency of the input slot, null for undirected graphs.
+     *
+     * @param slot the vertex slot
+     * @return the inbound adjacency of the input slot
+     */
+    final LongList getInbound( int slot )
+    {
+        return directed ? inbound[slot] : null;
+    }
+
+    /**
+     * Returns the outbound adjacency of the input slot.
+     *
+     * @param slot the vertex slot
+     * @return the outbound adjacency of the input slot
+     */
+    final LongList getOutbound( int slot )
+    {
+        return outbound[slot];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        return hash( 1, prime, getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        BaseLongMutableGraph<Object> other = (BaseLongMutableGraph<Object>) obj;
+        return eq( getAdjacencyView(), other.getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return String.valueOf( getAdjacencyView() );
+    }
+
+    private Map<Long, Set<Long>> getAdjacencyView()
+    {
+        final Map<Long, Set<Long>> adjacency = new LinkedHashMap<Long, Set<Long>>();
+        for ( Long v : getVertices() )
+        {
+            Set<Long> connected = new LinkedHashSet<Long>();
+            for ( Long tail : getConnectedVertices( v ) )
+            {
+                connected.add( tail );
+            }
+            adjacency.put( v, connected );
+        }
+        return adjacency;
+    }
+
+    private void addArc( int fromSlot, long to, int toSlot, int edge )
+    {
+        outbound[fromSlot].add( to );
+        outboundEdges[fromSlot].add( edge );
+
+        final int degree = outboundEdges[fromSlot].size();
+        if ( degree == HUB_DEGREE + 1 )
+        {
+            // the vertex just became a hub, all of its arcs are indexed
+            for ( int i = 0; i < degree; i++ )
+            {
+                hubArcs.put( arcKey( fromSlot, slots.get( outbound[fromSlot].get( i ) ) ),
+                             outboundEdges[fromSlot].get( i ) );
+            }
+        }
+        else if ( degree > HUB_DEGREE )
+        {
+            hubArcs.put( arcKey( fromSlot, toSlot ), edge );
+        }
+    }
+
+    /**
+     * Returns the identifier of the edge connecting {@code fromSlot} to {@code to}, {@code -1} if not found.
+     */
+    private int findEdge( int fromSlot, long to, int toSlot )
+    {
+        if ( outboundEdges[fromSlot].size() > HUB_DEGREE )
+        {
+            return hubArcs.get( arcKey( fromSlot, toSlot ) );
+        }
+
+        final int index = outbound[fromSlot].indexOf( to );
+        return index < 0 ? -1 : outboundEdges[fromSlot].get( index );
+    }
+
+    private void removeOutboundArc( int fromSlot, int toSlot, int edge )
+    {
+        removeArc( outbound[fromSlot], outboundEdges[fromSlot], edge );
+        if ( hubArcs.size() > 0 )
+        {
+            hubArcs.remove( arcKey( fromSlot, toSlot ) );
+        }
+    }
+
+    private static long arcKey( int fromSlot, int toSlot )
+    {
+        return ( (long) fromSlot << 32 ) | ( toSlot & 0xFFFFFFFFL );
+    }
+
+    private static void removeArc( LongList vertices, IntList edges, int edge )
+    {
+        for ( int i = 0; i < edges.size(); i++ )
+        {
+            if ( edges.get( i ) == edge )
+            {
+                vertices.remove( i );
+                edges.remove( i, 1 );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read-only view over a {@code long} adjacency, boxing the vertices on demand.
+     */
+    static final class LongsIterable
+        implements Iterable<Long>
+    {
+
+        private final LongList values;
+
+        LongsIterable( LongList values )
+        {
+            this.values = values;
+        }
+
+        public Iterator<Long> iterator()
+        {
+            return new Iterator<Long>()
+            {
+
+                private int index;
+
+                public boolean hasNext()
+                {
+                    return index < values.size();
+                }
+
+                public Long next()
+                {
+                    if ( index >= values.size() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return values.get( index++ );
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+            };
+        }
+
+    }
+
+}
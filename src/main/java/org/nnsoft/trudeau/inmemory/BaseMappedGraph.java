@@ -0,0 +1,879 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkElementId;
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.nnsoft.trudeau.api.Graph;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.VertexPair;
+
+/**
+ * Basic abstract read-only {@link Graph} implementation, which memory-maps a file written by
+ * {@link MappedGraphWriter} and serves queries directly from the mapped pages: opening a graph only maps the file
+ * sections, vertices and edges are deserialized on demand and looked up through the hash indexes stored in the file.
+ *
+ * Sections are mapped in as many buffers as needed, each spanning at most 1GB, so graph files are not bound by the 2GB
+ * limit of a single mapping. Each element is deserialized the first time it is read, or compared by a lookup whose
+ * stored hash code matches, and then kept in a cache of softly referenced pages, which the garbage collector clears
+ * when memory runs low; see {@link MappedGraphWriter} for the per-element deserialization costs.
+ *
+ * Instances are safe to be shared across threads, until they are closed.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public abstract class BaseMappedGraph<V, E>
+    implements Graph<V, E>, Closeable
+{
+
+    private static final long serialVersionUID = 2236907371571405736L;
+
+    /**
+     * The file format magic number, {@code TRDG} in ASCII.
+     */
+    static final int MAGIC = 0x54524447;
+
+    /**
+     * The current file format version.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The header flag set when the file contains a directed graph.
+     */
+    static final int DIRECTED = 1;
+
+    static final int HEADER_LENGTH = 64;
+
+    static final int FREE = -1;
+
+    /**
+     * The maximum length of the serialized form of an element, so that elements fit in one mapped buffer.
+     */
+    static final int MAX_ELEMENT_BYTES = ( 1 << 30 ) - 1;
+
+    /**
+     * The base 2 logarithm of the maximum length of a mapped buffer.
+     */
+    private static final int MAPPING_SHIFT = 30;
+
+    private final File file;
+
+    private final boolean directed;
+
+    private final int mappingShift;
+
+    private transient MappedDictionary<V> vertices;
+
+    private transient MappedDictionary<E> edges;
+
+    private transient MappedInts heads;
+
+    private transient MappedInts tails;
+
+    private transient MappedInts offsets;
+
+    private transient MappedInts targets;
+
+    private transient MappedInts arcEdges;
+
+    private transient MappedInts inOffsets;
+
+    private transient MappedInts sources;
+
+    /**
+     * Memory-maps the input graph file.
+     *
+     * @param file the file written by {@link MappedGraphWriter}
+     * @param directed true if the file is expected to contain a directed graph
+     * @throws IOException if the file cannot be read or is not a graph file of the expected kind
+     */
+    protected BaseMappedGraph( File file, boolean directed )
+        throws IOException
+    {
+        this( file, directed, MAPPING_SHIFT );
+    }
+
+    /**
+     * Memory-maps the input graph file, in buffers of at most {@code 1 << mappingShift} bytes.
+     *
+     * @param file the file written by {@link MappedGraphWriter}
+     * @param directed true if the file is expected to contain a directed graph
+     * @param mappingShift the base 2 logarithm of the maximum length of a mapped buffer
+     * @throws IOException if the file cannot be read or is not a graph file of the expected kind
+     */
+    BaseMappedGraph( File file, boolean directed, int mappingShift )
+        throws IOException
+    {
+        this.file = checkNotNull( file, "Impossible to map a null file" );
+        this.directed = directed;
+        this.mappingShift = mappingShift;
+        map();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getVertices()
+    {
+        return new ElementsIterable<V>( open().vertices, null, 0, vertices.size() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOrder()
+    {
+        return open().vertices.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<E> getEdges()
+    {
+        return new ElementsIterable<E>( open().edges, null, 0, edges.size() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getSize()
+    {
+        return open().edges.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getConnectedVertices( V v )
+    {
+        final int id = checkedVertexId( v );
+        return new ElementsIterable<V>( vertices, targets, offsets.get( id ), offsets.get( id + 1 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final E getEdge( V source, V target )
+    {
+        final int arc = search( offsets, targets, checkedVertexId( source ), checkedVertexId( target ) );
+        return arc < 0 ? null : edges.get( arcEdges.get( arc ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final VertexPair<V> getVertices( E e )
+    {
+        final int id = open().edges.idOf( e );
+        if ( id < 0 )
+        {
+            return null;
+        }
+        return new VertexPair<V>( vertices.get( heads.get( id ) ), vertices.get( tails.get( id ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsVertex( V v )
+    {
+        return open().vertices.idOf( v ) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsEdge( E e )
+    {
+        return open().edges.idOf( e ) >= 0;
+    }
+
+    /**
+     * Releases the mapped file sections; any further access to this graph fails.
+     *
+     * Mapped pages are unmapped by the JVM once the released buffers are garbage collected.
+     */
+    public final void close()
+    {
+        vertices = null;
+        edges = null;
+        heads = null;
+        tails = null;
+        offsets = null;
+        targets = null;
+        arcEdges = null;
+        inOffsets = null;
+        sources = null;
+    }
+
+    /**
+     * Returns the number of vertices adjacent to the vertex identified by the input identifier.
+     *
+     * @param id the vertex identifier
+     * @return the number of vertices adjacent to the input vertex
+     */
+    final int adjacencySize( int id )
+    {
+        return offsets.get( id + 1 ) - offsets.get( id );
+    }
+
+    /**
+     * Returns the number of vertices the vertex identified by the input identifier is adjacent to.
+     *
+     * @param id the vertex identifier
+     * @return the number of vertices the input vertex is adjacent to
+     */
+    final int inboundSize( int id )
+    {
+        return inOffsets.get( id + 1 ) - inOffsets.get( id );
+    }
+
+    /**
+     * Returns the vertices the vertex identified by the input identifier is adjacent to.
+     *
+     * @param id the vertex identifier
+     * @return the vertices the input vertex is adjacent to
+     */
+    final Iterable<V> inbound( int id )
+    {
+        return new ElementsIterable<V>( vertices, sources, inOffsets.get( id ), inOffsets.get( id + 1 ) );
+    }
+
+    /**
+     * Returns the identifier of the input vertex, failing if it is not part of this graph.
+     *
+     * @param v the vertex to look up
+     * @return the identifier of the input vertex
+     */
+    final int checkedVertexId( V v )
+    {
+        return checkElementId( open().vertices.idOf( v ), "Vertex %s does not exist in the Graph", v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = 1;
+        for ( int id = 0; id < getOrder(); id++ )
+        {
+            int row = vertices.get( id ).hashCode();
+            for ( int arc = offsets.get( id ); arc < offsets.get( id + 1 ); arc++ )
+            {
+                row += 31 * vertices.get( targets.get( arc ) ).hashCode();
+            }
+            result += row;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        BaseMappedGraph<Object, Object> other = (BaseMappedGraph<Object, Object>) obj;
+        if ( getOrder() != other.getOrder() || targets.size() != other.open().targets.size() )
+        {
+            return false;
+        }
+
+        for ( int id = 0; id < vertices.size(); id++ )
+        {
+            int otherId = other.vertices.idOf( vertices.get( id ) );
+            if ( otherId < 0 || adjacencySize( id ) != other.adjacencySize( otherId ) )
+            {
+                return false;
+            }
+
+            for ( int arc = offsets.get( id ); arc < offsets.get( id + 1 ); arc++ )
+            {
+                int otherTarget = other.vertices.idOf( vertices.get( targets.get( arc ) ) );
+                if ( otherTarget < 0 || search( other.offsets, other.targets, otherId, otherTarget ) < 0 )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( "{" );
+        for ( int id = 0; id < getOrder(); id++ )
+        {
+            if ( id > 0 )
+            {
+                builder.append( ", " );
+            }
+            builder.append( vertices.get( id ) ).append( "=[" );
+            for ( int arc = offsets.get( id ); arc < offsets.get( id + 1 ); arc++ )
+            {
+                if ( arc > offsets.get( id ) )
+                {
+                    builder.append( ", " );
+                }
+                builder.append( vertices.get( targets.get( arc ) ) );
+            }
+            builder.append( ']' );
+        }
+        return builder.append( '}' ).toString();
+    }
+
+    private BaseMappedGraph<V, E> open()
+    {
+        if ( vertices == null )
+        {
+            throw new GraphException( format( "The mapped Graph %s has already been closed", file ) );
+        }
+        return this;
+    }
+
+    private void map()
+        throws IOException
+    {
+        final RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try
+        {
+            final FileChannel channel = input.getChannel();
+            if ( channel.size() < HEADER_LENGTH )
+            {
+                throw new IOException( format( "%s is not a graph file", file ) );
+            }
+
+            final ByteBuffer header = channel.map( READ_ONLY, 0, HEADER_LENGTH );
+            if ( header.getInt( 0 ) != MAGIC )
+            {
+                throw new IOException( format( "%s is not a graph file", file ) );
+            }
+            if ( header.getInt( 4 ) != VERSION )
+            {
+                throw new IOException( format( "%s has unsupported format version %s", file, header.getInt( 4 ) ) );
+            }
+            if ( ( ( header.getInt( 8 ) & DIRECTED ) != 0 ) != directed )
+            {
+                throw new IOException( format( "%s does not contain a%s graph", file,
+                                               directed ? " directed" : "n undirected" ) );
+            }
+
+            final int order = header.getInt( 12 );
+            final int size = header.getInt( 16 );
+            final int arcs = header.getInt( 20 );
+            final int inArcs = header.getInt( 24 );
+            final int vertexSlots = header.getInt( 28 );
+            final int edgeSlots = header.getInt( 32 );
+            final long vertexDataLength = header.getLong( 36 );
+            final long edgeDataLength = header.getLong( 44 );
+
+            final Sections sections = new Sections( channel, mappingShift );
+            final MappedData vertexData = sections.data( vertexDataLength );
+            final MappedData edgeData = sections.data( edgeDataLength );
+            sections.skip( padding( vertexDataLength, edgeDataLength ) );
+
+            final MappedLongs vertexDataOffsets = sections.longs( order + 1 );
+            final MappedLongs edgeDataOffsets = sections.longs( size + 1 );
+            vertices = new MappedDictionary<V>( vertexData, vertexDataOffsets, sections.ints( order ),
+                                                sections.ints( vertexSlots ) );
+            edges = new MappedDictionary<E>( edgeData, edgeDataOffsets, sections.ints( size ),
+                                             sections.ints( edgeSlots ) );
+            heads = sections.ints( size );
+            tails = sections.ints( size );
+            offsets = sections.ints( order + 1 );
+            targets = sections.ints( arcs );
+            arcEdges = sections.ints( arcs );
+            inOffsets = sections.ints( directed ? order + 1 : 0 );
+            sources = sections.ints( inArcs );
+
+            if ( sections.position != channel.size() )
+            {
+                throw new IOException( format( "%s is truncated or corrupted", file ) );
+            }
+        }
+        finally
+        {
+            // mapped buffers stay valid after the channel is closed
+            input.close();
+        }
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        map();
+    }
+
+    /**
+     * Returns the number of bytes needed to align the long and int sections that follow the serialized elements.
+     */
+    static int padding( long vertexDataLength, long edgeDataLength )
+    {
+        return (int) ( -( vertexDataLength + edgeDataLength ) & 7 );
+    }
+
+    /**
+     * Binary searches the {@code target} identifier in the sorted row of the {@code source} identifier.
+     *
+     * @return the arc index, a negative number if not found
+     */
+    private static int search( MappedInts offsets, MappedInts targets, int source, int target )
+    {
+        int low = offsets.get( source );
+        int high = offsets.get( source + 1 ) - 1;
+        while ( low <= high )
+        {
+            int middle = ( low + high ) >>> 1;
+            int value = targets.get( middle );
+            if ( value < target )
+            {
+                low = middle + 1;
+            }
+            else if ( value > target )
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Maps the consecutive sections of a graph file, each in as many buffers as needed.
+     */
+    private static final class Sections
+    {
+
+        private final FileChannel channel;
+
+        private final int mappingShift;
+
+        private long position = HEADER_LENGTH;
+
+        Sections( FileChannel channel, int mappingShift )
+        {
+            this.channel = channel;
+            this.mappingShift = mappingShift;
+        }
+
+        /**
+         * Maps the serialized elements section in overlapping buffers, each starting {@code 1 << mappingShift} bytes
+         * after the previous one and spanning {@link #MAX_ELEMENT_BYTES} more bytes, so that each element is entirely
+         * contained in the buffer its first byte falls in.
+         */
+        MappedData data( long length )
+            throws IOException
+        {
+            checkLength( length );
+            final long stride = 1L << mappingShift;
+            final ByteBuffer[] windows = new ByteBuffer[(int) ( ( length + stride - 1 ) >>> mappingShift )];
+            for ( int i = 0; i < windows.length; i++ )
+            {
+                final long from = (long) i << mappingShift;
+                windows[i] = channel.map( READ_ONLY, position + from, Math.min( stride + MAX_ELEMENT_BYTES,
+                                                                                length - from ) );
+            }
+            position += length;
+            return new MappedData( windows, mappingShift );
+        }
+
+        MappedInts ints( int length )
+            throws IOException
+        {
+            final int shift = mappingShift - 2;
+            final IntBuffer[] chunks = new IntBuffer[chunks( length, shift )];
+            for ( int i = 0; i < chunks.length; i++ )
+            {
+                chunks[i] = map( (long) Math.min( length - ( i << shift ), 1 << shift ) << 2 ).asIntBuffer();
+            }
+            return new MappedInts( chunks, shift, length );
+        }
+
+        MappedLongs longs( int length )
+            throws IOException
+        {
+            final int shift = mappingShift - 3;
+            final LongBuffer[] chunks = new LongBuffer[chunks( length, shift )];
+            for ( int i = 0; i < chunks.length; i++ )
+            {
+                chunks[i] = map( (long) Math.min( length - ( i << shift ), 1 << shift ) << 3 ).asLongBuffer();
+            }
+            return new MappedLongs( chunks, shift );
+        }
+
+        void skip( int length )
+            throws IOException
+        {
+            checkLength( length );
+            position += length;
+        }
+
+        private ByteBuffer map( long length )
+            throws IOException
+        {
+            checkLength( length );
+            final ByteBuffer section = channel.map( READ_ONLY, position, length );
+            position += length;
+            return section;
+        }
+
+        private void checkLength( long length )
+            throws IOException
+        {
+            if ( length < 0 || position + length > channel.size() )
+            {
+                throw new IOException( "Graph file is truncated" );
+            }
+        }
+
+        private static int chunks( int length, int shift )
+        {
+            return (int) ( ( (long) length + ( 1 << shift ) - 1 ) >>> shift );
+        }
+
+    }
+
+    /**
+     * Section of serialized elements, mapped in overlapping buffers.
+     */
+    private static final class MappedData
+    {
+
+        private final ByteBuffer[] windows;
+
+        private final int shift;
+
+        MappedData( ByteBuffer[] windows, int shift )
+        {
+            this.windows = windows;
+            this.shift = shift;
+        }
+
+        /**
+         * Returns a buffer of the input bytes range, independent of the shared buffers position.
+         */
+        ByteBuffer slice( long from, long to )
+        {
+            final int window = (int) ( from >>> shift );
+            final int position = (int) ( from - ( (long) window << shift ) );
+            final ByteBuffer element = windows[window].duplicate();
+            element.limit( position + (int) ( to - from ) ).position( position );
+            return element;
+        }
+
+    }
+
+    /**
+     * Section of {@code int} values, mapped in consecutive buffers of {@code 1 << shift} values.
+     */
+    private static final class MappedInts
+    {
+
+        private final IntBuffer[] chunks;
+
+        private final int shift;
+
+        private final int mask;
+
+        private final int size;
+
+        MappedInts( IntBuffer[] chunks, int shift, int size )
+        {
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = ( 1 << shift ) - 1;
+            this.size = size;
+        }
+
+        int get( int index )
+        {
+            return chunks[index >>> shift].get( index & mask );
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+    }
+
+    /**
+     * Section of {@code long} values, mapped in consecutive buffers of {@code 1 << shift} values.
+     */
+    private static final class MappedLongs
+    {
+
+        private final LongBuffer[] chunks;
+
+        private final int shift;
+
+        private final int mask;
+
+        MappedLongs( LongBuffer[] chunks, int shift )
+        {
+            this.chunks = chunks;
+            this.shift = shift;
+            this.mask = ( 1 << shift ) - 1;
+        }
+
+        long get( int index )
+        {
+            return chunks[index >>> shift].get( index & mask );
+        }
+
+    }
+
+    /**
+     * Read-only dictionary of the serialized elements stored in a graph file, looked up through the stored hash
+     * codes and open-addressing slots table.
+     */
+    private static final class MappedDictionary<T>
+    {
+
+        private static final int CACHE_PAGE_SHIFT = 10;
+
+        private static final int CACHE_PAGE_MASK = ( 1 << CACHE_PAGE_SHIFT ) - 1;
+
+        private final MappedData data;
+
+        private final MappedLongs dataOffsets;
+
+        private final MappedInts hashes;
+
+        private final MappedInts slots;
+
+        private final int mask;
+
+        // the deserialized elements, in pages allocated on first read
+        private final AtomicReferenceArray<SoftReference<AtomicReferenceArray<Object>>> cache;
+
+        MappedDictionary( MappedData data, MappedLongs dataOffsets, MappedInts hashes, MappedInts slots )
+        {
+            this.data = data;
+            this.dataOffsets = dataOffsets;
+            this.hashes = hashes;
+            this.slots = slots;
+            this.mask = slots.size() - 1;
+            cache = new AtomicReferenceArray<SoftReference<AtomicReferenceArray<Object>>>(
+                (int) ( ( (long) hashes.size() + CACHE_PAGE_MASK ) >>> CACHE_PAGE_SHIFT ) );
+        }
+
+        int size()
+        {
+            return hashes.size();
+        }
+
+        int idOf( Object element )
+        {
+            if ( element == null )
+            {
+                return FREE;
+            }
+
+            final int hash = element.hashCode();
+            int slot = IdDictionary.spread( hash ) & mask;
+            for ( int id = slots.get( slot ); id != FREE; id = slots.get( slot ) )
+            {
+                if ( hashes.get( id ) == hash && element.equals( get( id ) ) )
+                {
+                    return id;
+                }
+                slot = ( slot + 1 ) & mask;
+            }
+            return FREE;
+        }
+
+        @SuppressWarnings( "unchecked" ) // only T instances are stored
+        T get( int id )
+        {
+            final SoftReference<AtomicReferenceArray<Object>> reference = cache.get( id >>> CACHE_PAGE_SHIFT );
+            AtomicReferenceArray<Object> page = reference != null ? reference.get() : null;
+            if ( page == null )
+            {
+                // concurrent readers may replace each other pages, losing only some already deserialized elements
+                page = new AtomicReferenceArray<Object>( CACHE_PAGE_MASK + 1 );
+                cache.set( id >>> CACHE_PAGE_SHIFT, new SoftReference<AtomicReferenceArray<Object>>( page ) );
+            }
+
+            Object element = page.get( id & CACHE_PAGE_MASK );
+            if ( element == null )
+            {
+                element = read( id );
+                page.set( id & CACHE_PAGE_MASK, element );
+            }
+            return (T) element;
+        }
+
+        private Object read( int id )
+        {
+            // slices are independent of the shared buffers position, so concurrent reads are safe
+            final ByteBuffer element = data.slice( dataOffsets.get( id ), dataOffsets.get( id + 1 ) );
+            try
+            {
+                return new ObjectInputStream( new ByteBufferInputStream( element ) ).readObject();
+            }
+            catch ( IOException e )
+            {
+                throw new GraphException( "Element %s cannot be read from the mapped Graph", e, id );
+            }
+            catch ( ClassNotFoundException e )
+            {
+                throw new GraphException( "Element %s cannot be read from the mapped Graph", e, id );
+            }
+        }
+
+    }
+
+    /**
+     * {@link InputStream} view over the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream
+        extends InputStream
+    {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream( ByteBuffer buffer )
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len )
+        {
+            if ( !buffer.hasRemaining() )
+            {
+                return -1;
+            }
+            final int read = Math.min( len, buffer.remaining() );
+            buffer.get( b, off, read );
+            return read;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+
+    }
+
+    /**
+     * Read-only view over the dictionary elements identified by a range of an identifiers buffer, or by the range
+     * itself when no buffer is given.
+     */
+    private static final class ElementsIterable<T>
+        implements Iterable<T>
+    {
+
+        private final MappedDictionary<T> dictionary;
+
+        private final MappedInts ids;
+
+        private final int from;
+
+        private final int to;
+
+        ElementsIterable( MappedDictionary<T> dictionary, MappedInts ids, int from, int to )
+        {
+            this.dictionary = dictionary;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Iterator<T> iterator()
+        {
+            return new Iterator<T>()
+            {
+
+                private int index = from;
+
+                public boolean hasNext()
+                {
+                    return index < to;
+                }
+
+                public T next()
+                {
+                    if ( index >= to )
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    final int position = index++;
+                    return dictionary.get( ids == null ? position : ids.get( position ) );
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException( "Mapped graphs cannot be modified" );
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -16,10 +16,11 @@ package org.nnsoft.trudeau.inmemory;
  *   limitations under the License.
  */
 
-import java.util.LinkedHashSet;
-
+import org.nnsoft.trudeau.api.DirectedGraph;
+import org.nnsoft.trudeau.api.Graph;
+import org.nnsoft.trudeau.api.GraphException;
 import org.nnsoft.trudeau.api.MutableGraph;
-import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.api.UndirectedGraph;
 
 /**
  * Basic abstract in-memory based of a simple mutable {@link org.apache.commons.graph.Graph} implementation.
@@ -36,6 +37,28 @@ public abstract class BaseMutableGraph<V, E>
 
     private static final long serialVersionUID = 1549113549446254183L;
 
+    // listeners are not part of the graph state, they are not serialized; copied on write, so that listeners can
+    // (un)register while being notified, null when there are no listeners
+    private transient GraphChangeListener<? super V, ? super E>[] listeners;
+
+    /**
+     * Creates a new empty graph.
+     */
+    protected BaseMutableGraph()
+    {
+        super();
+    }
+
+    /**
+     * Creates a new empty graph.
+     *
+     * @param store the dense identifiers based storage
+     */
+    BaseMutableGraph( DenseGraphStore<V, E> store )
+    {
+        super( store );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -44,9 +67,18 @@ public abstract class BaseMutableGraph<V, E>
         checkGraphCondition( v != null, "Impossible to add a null Vertex to the Graph" );
         checkGraphCondition( !containsVertex( v ), "Vertex '%s' already present in the Graph", v );
 
-        getAdjacencyList().put( v, new LinkedHashSet<V>() );
+        getStore().addVertex( v );
 
         decorateAddVertex( v );
+
+        final GraphChangeListener<? super V, ? super E>[] notified = listeners;
+        if ( notified != null )
+        {
+            for ( GraphChangeListener<? super V, ? super E> listener : notified )
+            {
+                listener.vertexAdded( v );
+            }
+        }
     }
 
     /**
@@ -63,13 +95,24 @@ public abstract class BaseMutableGraph<V, E>
         checkGraphCondition( v != null, "Impossible to remove a null Vertex from the Graph" );
         checkGraphCondition( containsVertex( v ), "Vertex '%s' not present in the Graph", v );
 
-        for ( V tail : getAdjacencyList().get( v ) )
+        final DenseGraphStore<V, E> store = getStore();
+        final int id = store.vertexId( v );
+        for ( int edge : store.incidentEdges( id ) )
         {
-            getIndexedEdges().remove( new VertexPair<V>( v, tail ) );
+            removeEdge( store.edge( edge ) );
         }
-        getAdjacencyList().remove( v );
+        store.removeVertex( id );
 
         decorateRemoveVertex( v );
+
+        final GraphChangeListener<? super V, ? super E>[] notified = listeners;
+        if ( notified != null )
+        {
+            for ( GraphChangeListener<? super V, ? super E> listener : notified )
+            {
+                listener.vertexRemoved( v );
+            }
+        }
     }
 
     /**
@@ -89,12 +132,22 @@ public abstract class BaseMutableGraph<V, E>
         checkGraphCondition( containsVertex( head ), "Head Vertex '%s' not present in the Graph", head );
         checkGraphCondition( containsVertex( tail ), "Head Vertex '%s' not present in the Graph", tail );
         checkGraphCondition( getEdge( head, tail ) == null, "Edge %s is already present in the Graph", e );
+        checkGraphCondition( !containsEdge( e ), "Edge %s is already present in the Graph", e );
 
-        getAllEdges().add( e );
+        getStore().addEdge( vertexId( head ), e, vertexId( tail ) );
 
         internalAddEdge( head, e, tail );
 
         decorateAddEdge( head, e, tail );
+
+        final GraphChangeListener<? super V, ? super E>[] notified = listeners;
+        if ( notified != null )
+        {
+            for ( GraphChangeListener<? super V, ? super E> listener : notified )
+            {
+                listener.edgeAdded( head, e, tail );
+            }
+        }
     }
 
     /**
@@ -106,15 +159,7 @@ public abstract class BaseMutableGraph<V, E>
      */
     protected void internalAddEdge( V head, E e, V tail )
     {
-        getAdjacencyList().get( head ).add( tail );
-
-        final VertexPair<V> vertexPair = new VertexPair<V>( head, tail );
-        getIndexedEdges().put( vertexPair, e );
-
-        if ( !getIndexedVertices().containsKey( e ) )
-        {
-            getIndexedVertices().put( e, vertexPair );
-        }
+        getStore().addArc( vertexId( head ), edgeId( e ), vertexId( tail ) );
     }
 
     /**
@@ -126,10 +171,7 @@ public abstract class BaseMutableGraph<V, E>
      */
     protected void internalRemoveEdge( V head, E e, V tail )
     {
-        final VertexPair<V> vertexPair = new VertexPair<V>( head, tail );
-        getIndexedVertices().remove( e );
-        getIndexedEdges().remove( vertexPair );
-        getAdjacencyList().get( vertexPair.getHead() ).remove( vertexPair.getTail() );
+        getStore().removeArc( vertexId( head ), edgeId( e ) );
     }
 
     /**
@@ -147,11 +189,22 @@ public abstract class BaseMutableGraph<V, E>
     {
         checkGraphCondition( e != null, "Impossible to remove a null Edge from the Graph" );
         checkGraphCondition( containsEdge( e ), "Edge '%s' not present in the Graph", e );
-        final VertexPair<V> vertexPair = getVertices( e );
+        final DenseGraphStore<V, E> store = getStore();
+        final int edge = edgeId( e );
+        final V head = store.vertex( store.head( edge ) );
+        final V tail = store.vertex( store.tail( edge ) );
         decorateRemoveEdge( e );
-        internalRemoveEdge( vertexPair.getHead(), e, vertexPair.getTail() );
-        getAllEdges().remove( e );
+        internalRemoveEdge( head, e, tail );
+        store.removeEdge( edge );
 
+        final GraphChangeListener<? super V, ? super E>[] notified = listeners;
+        if ( notified != null )
+        {
+            for ( GraphChangeListener<? super V, ? super E> listener : notified )
+            {
+                listener.edgeRemoved( head, e, tail );
+            }
+        }
     }
 
     /**
@@ -160,4 +213,84 @@ public abstract class BaseMutableGraph<V, E>
      */
     protected abstract void decorateRemoveEdge( E e );
 
+    /**
+     * Registers a listener notified of each change applied to this graph, after it has been applied.
+     *
+     * Listeners can register and unregister other listeners, or themselves, while being notified: the change being
+     * notified is still delivered to the listeners registered when it was applied.
+     *
+     * @param listener the listener to register
+     */
+    public final void addGraphChangeListener( GraphChangeListener<? super V, ? super E> listener )
+    {
+        checkGraphCondition( listener != null, "Null change listener not admitted" );
+        final int count = listeners == null ? 0 : listeners.length;
+        final GraphChangeListener<? super V, ? super E>[] registered = newListeners( count + 1 );
+        if ( count > 0 )
+        {
+            System.arraycopy( listeners, 0, registered, 0, count );
+        }
+        registered[count] = listener;
+        listeners = registered;
+    }
+
+    /**
+     * Unregisters a listener previously registered via {@link #addGraphChangeListener(GraphChangeListener)}.
+     *
+     * @param listener the listener to unregister
+     */
+    public final void removeGraphChangeListener( GraphChangeListener<? super V, ? super E> listener )
+    {
+        if ( listeners == null )
+        {
+            return;
+        }
+        for ( int i = 0; i < listeners.length; i++ )
+        {
+            if ( listeners[i].equals( listener ) )
+            {
+                if ( listeners.length == 1 )
+                {
+                    listeners = null;
+                    return;
+                }
+                final GraphChangeListener<? super V, ? super E>[] registered = newListeners( listeners.length - 1 );
+                System.arraycopy( listeners, 0, registered, 0, i );
+                System.arraycopy( listeners, i + 1, registered, i, registered.length - i );
+                listeners = registered;
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } ) // generic arrays cannot be created
+    private GraphChangeListener<? super V, ? super E>[] newListeners( int length )
+    {
+        return new GraphChangeListener[length];
+    }
+
+    /**
+     * Creates an immutable, compressed-sparse-row based snapshot of this graph, optimized for read-heavy workloads.
+     * Later modifications of this graph are not reflected in the returned snapshot.
+     *
+     * Directed graphs are frozen in a {@link FrozenDirectedGraph}, undirected ones in a {@link FrozenUndirectedGraph};
+     * subclasses may return a more specific type.
+     *
+     * @return an immutable snapshot of this graph
+     * @throws GraphException if this graph is neither a {@link DirectedGraph} nor an {@link UndirectedGraph}
+     */
+    public Graph<V, E> freeze()
+    {
+        if ( this instanceof DirectedGraph )
+        {
+            return new FrozenDirectedGraph<V, E>( (DirectedGraph<V, E>) this );
+        }
+        if ( this instanceof UndirectedGraph )
+        {
+            return new FrozenUndirectedGraph<V, E>( (UndirectedGraph<V, E>) this );
+        }
+        throw new GraphException( "Graph %s is neither directed nor undirected, it cannot be frozen",
+                                  getClass().getName() );
+    }
+
 }
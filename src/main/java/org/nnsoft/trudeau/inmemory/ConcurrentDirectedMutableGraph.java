@@ -0,0 +1,151 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.util.Collections.unmodifiableSet;
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+
+/**
+ * A memory-based implementation of a mutable directed Graph which admits concurrent writers, see
+ * {@link BaseConcurrentMutableGraph}.
+ *
+ * This class is thread safe.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public class ConcurrentDirectedMutableGraph<V, E>
+    extends BaseConcurrentMutableGraph<V, E>
+    implements DirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = 5961283093528466210L;
+
+    private final ConcurrentMap<V, ConcurrentMap<V, E>> inbound = new ConcurrentHashMap<V, ConcurrentMap<V, E>>();
+
+    /**
+     * Creates a new empty directed graph, sized for the default number of concurrent writers.
+     */
+    public ConcurrentDirectedMutableGraph()
+    {
+        super();
+    }
+
+    /**
+     * Creates a new empty directed graph.
+     *
+     * @param concurrencyLevel the expected number of concurrent writers
+     */
+    public ConcurrentDirectedMutableGraph( int concurrencyLevel )
+    {
+        super( concurrencyLevel );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getDegree( V v )
+    {
+        return getInDegree( v ) + getOutDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getInDegree( V v )
+    {
+        return getInboundAdjacency( v ).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getInbound( V v )
+    {
+        return unmodifiableSet( getInboundAdjacency( v ).keySet() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOutDegree( V v )
+    {
+        return getAdjacency( v ).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getOutbound( V v )
+    {
+        return getConnectedVertices( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateAddVertex( V v )
+    {
+        inbound.put( v, BaseConcurrentMutableGraph.<V, E>newAdjacency() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateRemoveVertex( V v )
+    {
+        for ( E e : new ArrayList<E>( inbound.get( v ).values() ) )
+        {
+            internalRemoveEdge( e );
+        }
+        inbound.remove( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateAddEdge( V head, E e, V tail )
+    {
+        inbound.get( tail ).put( head, e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateRemoveEdge( V head, E e, V tail )
+    {
+        inbound.get( tail ).remove( head );
+    }
+
+    private ConcurrentMap<V, E> getInboundAdjacency( V v )
+    {
+        final ConcurrentMap<V, E> connected = v == null ? null : inbound.get( v );
+        checkGraphCondition( connected != null, "Vertex %s does not exist in the Graph", v );
+        return connected;
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import org.nnsoft.trudeau.api.UndirectedGraph;
+
+/**
+ * A memory-based implementation of a mutable undirected Graph which admits concurrent writers, see
+ * {@link BaseConcurrentMutableGraph}.
+ *
+ * This class is thread safe.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public class ConcurrentUndirectedMutableGraph<V, E>
+    extends BaseConcurrentMutableGraph<V, E>
+    implements UndirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = -1047613052815960417L;
+
+    /**
+     * Creates a new empty undirected graph, sized for the default number of concurrent writers.
+     */
+    public ConcurrentUndirectedMutableGraph()
+    {
+        super();
+    }
+
+    /**
+     * Creates a new empty undirected graph.
+     *
+     * @param concurrencyLevel the expected number of concurrent writers
+     */
+    public ConcurrentUndirectedMutableGraph( int concurrencyLevel )
+    {
+        super( concurrencyLevel );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getDegree( V v )
+    {
+        return getAdjacency( v ).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateAddVertex( V v )
+    {
+        // do nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateRemoveVertex( V v )
+    {
+        // do nothing, edges are removed by the superclass from both endpoints
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateAddEdge( V head, E e, V tail )
+    {
+        // self loops are connected once
+        if ( !head.equals( tail ) )
+        {
+            getAdjacency( tail ).put( head, e );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateRemoveEdge( V head, E e, V tail )
+    {
+        if ( !head.equals( tail ) )
+        {
+            getAdjacency( tail ).remove( head );
+        }
+    }
+
+}
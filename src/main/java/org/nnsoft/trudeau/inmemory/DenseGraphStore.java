@@ -0,0 +1,613 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Dense identifiers based storage of a graph: vertices and edges are interned in {@link IdDictionary} instances, the
+ * edge endpoints are kept in fixed-size chunks of {@code int} values indexed by edge identifier and the adjacency of
+ * each vertex is a list of interleaved (adjacent vertex, edge) identifiers pairs.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+final class DenseGraphStore<V, E>
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -2497655434416339561L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int ENDPOINTS_CHUNK_SHIFT = 15;
+
+    private static final int ENDPOINTS_CHUNK_MASK = ( 1 << ENDPOINTS_CHUNK_SHIFT ) - 1;
+
+    /**
+     * Outbound lists with more arcs than this are indexed in the hub arcs map, shorter ones are scanned.
+     */
+    private static final int HUB_DEGREE = 64;
+
+    private final boolean offHeap;
+
+    private final IdDictionary<V> vertices;
+
+    private final IdDictionary<E> edges;
+
+    private final IntLists endpoints;
+
+    private final IntLists outbound;
+
+    private final IntLists inbound;
+
+    private final LongIntMap hubArcs = new LongIntMap( INITIAL_CAPACITY );
+
+    /**
+     * Creates a new empty storage.
+     *
+     * @param offHeap if true, endpoints and adjacency lists are kept outside the GC-managed heap
+     */
+    DenseGraphStore( boolean offHeap )
+    {
+        this( offHeap, INITIAL_CAPACITY, INITIAL_CAPACITY );
+    }
+
+    /**
+     * Creates a new empty storage, presized to hold the expected number of vertices and edges.
+     *
+     * @param offHeap if true, endpoints and adjacency lists are kept outside the GC-managed heap
+     * @param expectedOrder the expected number of vertices
+     * @param expectedSize the expected number of edges
+     */
+    DenseGraphStore( boolean offHeap, int expectedOrder, int expectedSize )
+    {
+        this.offHeap = offHeap;
+        vertices = new IdDictionary<V>( expectedOrder );
+        edges = new IdDictionary<E>( expectedSize );
+        endpoints = offHeap ? new OffHeapIntLists() : new HeapIntLists();
+        outbound = offHeap ? new OffHeapIntLists() : new HeapIntLists();
+        inbound = offHeap ? new OffHeapIntLists() : new HeapIntLists();
+    }
+
+    // vertices
+
+    int addVertex( V v )
+    {
+        final int id = vertices.add( v );
+        outbound.create( id );
+        inbound.release( id );
+        return id;
+    }
+
+    /**
+     * Adds the input vertex without creating its adjacency lists, which have to be created via
+     * {@link #reserveArcs(int, int, int)} before any arc is added.
+     */
+    int internVertex( V v )
+    {
+        return vertices.add( v );
+    }
+
+    void removeVertex( int id )
+    {
+        vertices.remove( id );
+        outbound.release( id );
+        inbound.release( id );
+    }
+
+    int vertexId( Object v )
+    {
+        return vertices.idOf( v );
+    }
+
+    V vertex( int id )
+    {
+        return vertices.get( id );
+    }
+
+    int order()
+    {
+        return vertices.size();
+    }
+
+    int vertexBound()
+    {
+        return vertices.bound();
+    }
+
+    Iterable<V> vertices()
+    {
+        return vertices.elements();
+    }
+
+    Iterable<V> vertices( int from, int to )
+    {
+        return vertices.elements( from, to );
+    }
+
+    void visitVertices( int from, int to, VertexVisitor<? super V> visitor )
+    {
+        final int bound = Math.min( to, vertices.bound() );
+        for ( int id = from; id < bound; id++ )
+        {
+            final V v = vertices.get( id );
+            if ( v != null )
+            {
+                visitor.visit( v );
+            }
+        }
+    }
+
+    /**
+     * Splits the vertex identifiers space in {@code parts} contiguous ranges, returned as {@code parts + 1}
+     * boundaries: ranges hold about the same number of identifiers or, if {@code byDegree}, about the same number of
+     * vertices plus arcs, so that skewed graphs are balanced by the work spent on each adjacency.
+     */
+    int[] vertexPartitions( int parts, boolean byDegree )
+    {
+        final int bound = vertices.bound();
+        if ( !byDegree )
+        {
+            return partitions( bound, parts );
+        }
+
+        long total = 0;
+        for ( int id = 0; id < bound; id++ )
+        {
+            total += weight( id );
+        }
+
+        final int[] boundaries = new int[parts + 1];
+        long weight = 0;
+        int part = 1;
+        for ( int id = 0; id < bound && part < parts; id++ )
+        {
+            weight += weight( id );
+            // a range ends as soon as the cumulated weight reaches its share, a hub may close several ranges at once
+            while ( part < parts && weight * parts >= total * part )
+            {
+                boundaries[part++] = id + 1;
+            }
+        }
+        while ( part <= parts )
+        {
+            boundaries[part++] = bound;
+        }
+        return boundaries;
+    }
+
+    // edges
+
+    int addEdge( int head, E e, int tail )
+    {
+        final int id = edges.add( e );
+        final int chunk = id >>> ENDPOINTS_CHUNK_SHIFT;
+        final int index = ( id & ENDPOINTS_CHUNK_MASK ) << 1;
+        if ( !endpoints.exists( chunk ) )
+        {
+            endpoints.create( chunk );
+        }
+        while ( endpoints.size( chunk ) <= index + 1 )
+        {
+            endpoints.add( chunk, 0 );
+        }
+        endpoints.set( chunk, index, head );
+        endpoints.set( chunk, index + 1, tail );
+        return id;
+    }
+
+    void removeEdge( int id )
+    {
+        edges.remove( id );
+    }
+
+    int edgeId( Object e )
+    {
+        return edges.idOf( e );
+    }
+
+    E edge( int id )
+    {
+        return edges.get( id );
+    }
+
+    int head( int edge )
+    {
+        return endpoints.get( edge >>> ENDPOINTS_CHUNK_SHIFT, ( edge & ENDPOINTS_CHUNK_MASK ) << 1 );
+    }
+
+    int tail( int edge )
+    {
+        return endpoints.get( edge >>> ENDPOINTS_CHUNK_SHIFT, ( ( edge & ENDPOINTS_CHUNK_MASK ) << 1 ) + 1 );
+    }
+
+    int size()
+    {
+        return edges.size();
+    }
+
+    int edgeBound()
+    {
+        return edges.bound();
+    }
+
+    Iterable<E> edges()
+    {
+        return edges.elements();
+    }
+
+    Iterable<E> edges( int from, int to )
+    {
+        return edges.elements( from, to );
+    }
+
+    /**
+     * Splits the edge identifiers space in {@code parts} contiguous ranges holding about the same number of
+     * identifiers, returned as {@code parts + 1} boundaries.
+     */
+    int[] edgePartitions( int parts )
+    {
+        return partitions( edges.bound(), parts );
+    }
+
+    void visitEdges( EdgeVisitor<? super V, ? super E> visitor )
+    {
+        visitEdges( 0, edges.bound(), visitor );
+    }
+
+    void visitEdges( int from, int to, EdgeVisitor<? super V, ? super E> visitor )
+    {
+        final int bound = Math.min( to, edges.bound() );
+        for ( int id = from; id < bound; id++ )
+        {
+            final E e = edges.get( id );
+            if ( e != null )
+            {
+                visitor.visit( vertices.get( head( id ) ), e, vertices.get( tail( id ) ) );
+            }
+        }
+    }
+
+    // adjacency
+
+    void addArc( int from, int edge, int to )
+    {
+        append( outbound, from, edge, to );
+
+        final int degree = outDegree( from );
+        if ( degree == HUB_DEGREE + 1 )
+        {
+            // the vertex just became a hub, all of its arcs are indexed
+            for ( int i = 0; i < degree << 1; i += 2 )
+            {
+                hubArcs.put( arcKey( from, outbound.get( from, i ) ), outbound.get( from, i + 1 ) );
+            }
+        }
+        else if ( degree > HUB_DEGREE )
+        {
+            hubArcs.put( arcKey( from, to ), edge );
+        }
+    }
+
+    /**
+     * Creates the adjacency lists of the input vertex, presized to hold the expected arcs without growing.
+     */
+    void reserveArcs( int id, int outDegree, int inDegree )
+    {
+        outbound.create( id, outDegree << 1 );
+        if ( inDegree > 0 )
+        {
+            inbound.create( id, inDegree << 1 );
+        }
+        else
+        {
+            inbound.release( id );
+        }
+    }
+
+    void removeArc( int from, int edge )
+    {
+        remove( outbound, from, edge );
+
+        if ( hubArcs.size() > 0 )
+        {
+            // the arc target is the endpoint of the edge which is not the source, both for direct and reverse arcs
+            final int to = head( edge ) == from ? tail( edge ) : head( edge );
+            hubArcs.remove( arcKey( from, to ) );
+        }
+    }
+
+    void addInboundArc( int to, int edge, int from )
+    {
+        if ( !inbound.exists( to ) )
+        {
+            inbound.create( to );
+        }
+        append( inbound, to, edge, from );
+    }
+
+    void removeInboundArc( int to, int edge )
+    {
+        if ( inbound.exists( to ) )
+        {
+            remove( inbound, to, edge );
+        }
+    }
+
+    /**
+     * Returns the identifier of the edge connecting {@code from} to {@code to}, {@code -1} if not found.
+     */
+    int findEdge( int from, int to )
+    {
+        final int size = outbound.size( from );
+        if ( size > HUB_DEGREE << 1 )
+        {
+            return hubArcs.get( arcKey( from, to ) );
+        }
+
+        for ( int i = 0; i < size; i += 2 )
+        {
+            if ( outbound.get( from, i ) == to )
+            {
+                return outbound.get( from, i + 1 );
+            }
+        }
+        return -1;
+    }
+
+    int outDegree( int id )
+    {
+        return outbound.size( id ) >> 1;
+    }
+
+    int inDegree( int id )
+    {
+        return inbound.exists( id ) ? inbound.size( id ) >> 1 : 0;
+    }
+
+    /**
+     * Returns the identifier of the vertex the {@code index}-th arc leaving the input vertex enters in.
+     */
+    int neighbor( int id, int index )
+    {
+        return outbound.get( id, index << 1 );
+    }
+
+    int[] neighbors( int id )
+    {
+        final int[] neighbors = new int[outbound.size( id ) >> 1];
+        for ( int i = 0; i < neighbors.length; i++ )
+        {
+            neighbors[i] = outbound.get( id, i << 1 );
+        }
+        return neighbors;
+    }
+
+    /**
+     * Returns the identifiers of the edges touching the input vertex, each one reported once.
+     */
+    int[] incidentEdges( int id )
+    {
+        final IntList incident = new IntList( outbound.size( id ) >> 1 );
+        for ( int i = 1; i < outbound.size( id ); i += 2 )
+        {
+            incident.add( outbound.get( id, i ) );
+        }
+        if ( inbound.exists( id ) )
+        {
+            for ( int i = 1; i < inbound.size( id ); i += 2 )
+            {
+                int edge = inbound.get( id, i );
+                // self loops are already listed in the outbound arcs
+                if ( head( edge ) != tail( edge ) )
+                {
+                    incident.add( edge );
+                }
+            }
+        }
+        return incident.toArray();
+    }
+
+    Iterable<V> outboundVertices( int id )
+    {
+        return new ArcsIterable( outbound, id );
+    }
+
+    Iterable<V> inboundVertices( int id )
+    {
+        return new ArcsIterable( inbound, id );
+    }
+
+    void visitOutboundVertices( int id, VertexVisitor<? super V> visitor )
+    {
+        visit( outbound, id, visitor );
+    }
+
+    void visitInboundVertices( int id, VertexVisitor<? super V> visitor )
+    {
+        visit( inbound, id, visitor );
+    }
+
+    void visitOutboundEdges( int id, EdgeVisitor<? super V, ? super E> visitor )
+    {
+        final V head = vertices.get( id );
+        final int size = outbound.size( id );
+        for ( int i = 0; i < size; i += 2 )
+        {
+            visitor.visit( head, edges.get( outbound.get( id, i + 1 ) ), vertices.get( outbound.get( id, i ) ) );
+        }
+    }
+
+    void visitInboundEdges( int id, EdgeVisitor<? super V, ? super E> visitor )
+    {
+        final V tail = vertices.get( id );
+        final int size = inbound.exists( id ) ? inbound.size( id ) : 0;
+        for ( int i = 0; i < size; i += 2 )
+        {
+            visitor.visit( vertices.get( inbound.get( id, i ) ), edges.get( inbound.get( id, i + 1 ) ), tail );
+        }
+    }
+
+    boolean anyOutboundVertex( int id, VertexPredicate<? super V> predicate )
+    {
+        return any( outbound, id, predicate );
+    }
+
+    boolean anyInboundVertex( int id, VertexPredicate<? super V> predicate )
+    {
+        return any( inbound, id, predicate );
+    }
+
+    /**
+     * Checks whether endpoints and adjacency lists are kept outside the GC-managed heap.
+     *
+     * @return true, if endpoints and adjacency lists are kept outside the GC-managed heap
+     */
+    boolean isOffHeap()
+    {
+        return offHeap;
+    }
+
+    /**
+     * Releases the resources held by this storage, which cannot be used anymore.
+     */
+    void close()
+    {
+        endpoints.close();
+        outbound.close();
+        inbound.close();
+    }
+
+    private int weight( int id )
+    {
+        return vertices.get( id ) == null ? 0 : 1 + outDegree( id ) + inDegree( id );
+    }
+
+    private static int[] partitions( int bound, int parts )
+    {
+        final int[] boundaries = new int[parts + 1];
+        for ( int part = 1; part <= parts; part++ )
+        {
+            boundaries[part] = (int) ( (long) bound * part / parts );
+        }
+        return boundaries;
+    }
+
+    private static long arcKey( int from, int to )
+    {
+        return ( (long) from << 32 ) | ( to & 0xFFFFFFFFL );
+    }
+
+    private static void append( IntLists arcs, int list, int edge, int vertex )
+    {
+        arcs.add( list, vertex );
+        arcs.add( list, edge );
+    }
+
+    private void visit( IntLists arcs, int list, VertexVisitor<? super V> visitor )
+    {
+        final int size = arcs.exists( list ) ? arcs.size( list ) : 0;
+        for ( int i = 0; i < size; i += 2 )
+        {
+            visitor.visit( vertices.get( arcs.get( list, i ) ) );
+        }
+    }
+
+    private boolean any( IntLists arcs, int list, VertexPredicate<? super V> predicate )
+    {
+        final int size = arcs.exists( list ) ? arcs.size( list ) : 0;
+        for ( int i = 0; i < size; i += 2 )
+        {
+            if ( predicate.apply( vertices.get( arcs.get( list, i ) ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void remove( IntLists arcs, int list, int edge )
+    {
+        final int size = arcs.size( list );
+        for ( int i = 1; i < size; i += 2 )
+        {
+            if ( arcs.get( list, i ) == edge )
+            {
+                arcs.remove( list, i - 1, 2 );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read-only view over the vertices of an arcs list.
+     */
+    private final class ArcsIterable
+        implements Iterable<V>
+    {
+
+        private final IntLists arcs;
+
+        private final int list;
+
+        ArcsIterable( IntLists arcs, int list )
+        {
+            this.arcs = arcs;
+            this.list = list;
+        }
+
+        public Iterator<V> iterator()
+        {
+            return new Iterator<V>()
+            {
+
+                private final int size = arcs.exists( list ) ? arcs.size( list ) : 0;
+
+                private int index;
+
+                public boolean hasNext()
+                {
+                    return index < size;
+                }
+
+                public V next()
+                {
+                    if ( index >= size )
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    V vertex = vertices.get( arcs.get( list, index ) );
+                    index += 2;
+                    return vertex;
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+import static org.nnsoft.trudeau.utils.Assertions.checkState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.nnsoft.trudeau.api.Mapper;
+import org.nnsoft.trudeau.api.WeightedPath;
+import org.nnsoft.trudeau.math.monoid.Monoid;
+
+/**
+ * A {@link PredecessorsList} alternative for graphs assigning dense identifiers to vertices: the predecessor of each
+ * vertex is stored in an {@code int} array indexed by vertex identifier, next to the epoch the entry was written in,
+ * so that the list is cleared in constant time by moving to the next epoch rather than by wiping the arrays.
+ *
+ * Instances are meant to be reused across queries, either explicitly via {@link #clear()} or by acquiring them from
+ * a per-thread pool via {@link #acquire(BaseGraph, Monoid, Mapper)} and giving them back via {@link #release()}.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <WE> the Graph weighted edges type
+ * @param <W> the weight type
+ */
+public final class DensePredecessorsList<V, WE, W>
+{
+
+    /**
+     * Each thread pools at most this number of released lists, enough for bidirectional searches.
+     */
+    private static final int MAX_POOLED = 4;
+
+    private static final ThreadLocal<List<DensePredecessorsList<?, ?, ?>>> POOL =
+        new ThreadLocal<List<DensePredecessorsList<?, ?, ?>>>()
+        {
+
+            @Override
+            protected List<DensePredecessorsList<?, ?, ?>> initialValue()
+            {
+                return new ArrayList<DensePredecessorsList<?, ?, ?>>( MAX_POOLED );
+            }
+
+        };
+
+    private BaseGraph<V, WE> graph;
+
+    private Monoid<W> weightOperations;
+
+    private Mapper<WE, W> weightedEdges;
+
+    private int[] predecessors = new int[0];
+
+    // identifier of the edge connecting each vertex to its predecessor, negative if not recorded
+    private int[] edges = new int[0];
+
+    private int[] epochs = new int[0];
+
+    private int epoch = 1;
+
+    private int size;
+
+    private boolean pooled;
+
+    public DensePredecessorsList( BaseGraph<V, WE> graph, Monoid<W> weightOperations, Mapper<WE, W> weightedEdges )
+    {
+        bind( graph, weightOperations, weightedEdges );
+    }
+
+    /**
+     * Returns an empty predecessors list taken from the pool of the current thread, or a new one if the pool is
+     * empty; arrays of pooled lists are retained, so that repeated queries do not allocate them again.
+     *
+     * @param graph the graph the searched paths belong to
+     * @param weightOperations the weight operations
+     * @param weightedEdges the mapper from edges to their weight
+     * @return an empty predecessors list
+     */
+    @SuppressWarnings( "unchecked" ) // pooled lists are rebound to the input types before being returned
+    public static <V, WE, W> DensePredecessorsList<V, WE, W> acquire( BaseGraph<V, WE> graph,
+                                                                      Monoid<W> weightOperations,
+                                                                      Mapper<WE, W> weightedEdges )
+    {
+        final List<DensePredecessorsList<?, ?, ?>> pool = POOL.get();
+        if ( pool.isEmpty() )
+        {
+            return new DensePredecessorsList<V, WE, W>( graph, weightOperations, weightedEdges );
+        }
+
+        final DensePredecessorsList<V, WE, W> list = (DensePredecessorsList<V, WE, W>) pool.remove( pool.size() - 1 );
+        list.pooled = false;
+        list.bind( graph, weightOperations, weightedEdges );
+        return list;
+    }
+
+    /**
+     * Gives this list back to the pool of the current thread; it cannot be used anymore by the caller.
+     */
+    public void release()
+    {
+        checkState( !pooled, "Predecessors list already released" );
+        clear();
+        graph = null;
+        weightOperations = null;
+        weightedEdges = null;
+
+        final List<DensePredecessorsList<?, ?, ?>> pool = POOL.get();
+        if ( pool.size() < MAX_POOLED )
+        {
+            pooled = true;
+            pool.add( this );
+        }
+    }
+
+    /**
+     * Add an edge in the predecessor list associated to the input vertex.
+     *
+     * @param tail the predecessor vertex
+     * @param head the edge that succeeds to the input vertex
+     */
+    public void addPredecessor( V tail, V head )
+    {
+        put( graph.vertexId( tail ), graph.vertexId( head ), -1 );
+    }
+
+    /**
+     * Add an edge in the predecessor list associated to the input vertex, recording the edge connecting the two
+     * vertices so that building the path does not need to look it up in the graph.
+     *
+     * @param tail the vertex the edge enters in
+     * @param edge the edge connecting the predecessor to the input vertex
+     * @param head the predecessor vertex
+     */
+    public void addPredecessor( V tail, WE edge, V head )
+    {
+        put( graph.vertexId( tail ), graph.vertexId( head ), graph.edgeId( edge ) );
+    }
+
+    /**
+     * Build a {@link WeightedPath} instance related to source-target path.
+     *
+     * @param source the path source vertex
+     * @param target the path target vertex
+     * @return the weighted path related to source to target
+     */
+    public WeightedPath<V, WE, W> buildPath( V source, V target )
+    {
+        final InMemoryWeightedPath<V, WE, W> path =
+            new InMemoryWeightedPath<V, WE, W>( source, target, weightOperations, weightedEdges );
+        addHeadConnections( path, graph.vertexId( source ), graph.vertexId( target ), source, target );
+        return path;
+    }
+
+    /**
+     * Build a {@link WeightedPath} instance related to source-target path.
+     *
+     * @param source the path source vertex
+     * @param touch the node where search frontiers meet, producing the shortest path
+     * @param target the path target vertex
+     * @param backwardsList the predecessor list in backwards search space along reversed edges
+     * @return the weighted path related to source to target
+     */
+    public WeightedPath<V, WE, W> buildPath( V source, V touch, V target,
+                                             DensePredecessorsList<V, WE, W> backwardsList )
+    {
+        final InMemoryWeightedPath<V, WE, W> path =
+            new InMemoryWeightedPath<V, WE, W>( source, target, weightOperations, weightedEdges );
+        final int touchId = graph.vertexId( touch );
+        addHeadConnections( path, graph.vertexId( source ), touchId, source, target );
+
+        final DenseGraphStore<V, WE> store = graph.getStore();
+        final int targetId = graph.vertexId( target );
+        int vertex = touchId;
+        while ( vertex != targetId )
+        {
+            // 'predecessor' is actually a successor.
+            int predecessor = backwardsList.predecessorOf( vertex );
+            if ( predecessor < 0 )
+            {
+                throw new PathNotFoundException( "Path from '%s' to '%s' doesn't exist", source, target );
+            }
+            WE edge = backwardsList.edgeOf( store, vertex, vertex, predecessor );
+            path.addConnectionInTail( store.vertex( vertex ), edge, store.vertex( predecessor ) );
+            vertex = predecessor;
+        }
+        return path;
+    }
+
+    /**
+     * Checks the predecessor list has no elements.
+     *
+     * @return true, if the predecessor list has no elements, false otherwise.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the predecessors, in constant time.
+     */
+    public void clear()
+    {
+        size = 0;
+        if ( ++epoch == 0 )
+        {
+            // entries written 2^32 epochs ago would look current again
+            Arrays.fill( epochs, 0 );
+            epoch = 1;
+        }
+    }
+
+    private void bind( BaseGraph<V, WE> graph, Monoid<W> weightOperations, Mapper<WE, W> weightedEdges )
+    {
+        this.graph = checkNotNull( graph, "Predecessors list cannot refer to a null graph" );
+        this.weightOperations = weightOperations;
+        this.weightedEdges = weightedEdges;
+    }
+
+    private void put( int id, int predecessor, int edge )
+    {
+        if ( id >= predecessors.length )
+        {
+            // sized on the graph, it grows only if vertices are added between queries
+            final int capacity = Math.max( id + 1, graph.getStore().vertexBound() );
+            predecessors = Arrays.copyOf( predecessors, capacity );
+            edges = Arrays.copyOf( edges, capacity );
+            epochs = Arrays.copyOf( epochs, capacity );
+        }
+        if ( epochs[id] != epoch )
+        {
+            epochs[id] = epoch;
+            size++;
+        }
+        predecessors[id] = predecessor;
+        edges[id] = edge;
+    }
+
+    private int predecessorOf( int id )
+    {
+        return id < epochs.length && epochs[id] == epoch ? predecessors[id] : -1;
+    }
+
+    private void addHeadConnections( InMemoryWeightedPath<V, WE, W> path, int sourceId, int from, V source,
+                                     V target )
+    {
+        final DenseGraphStore<V, WE> store = graph.getStore();
+        int vertex = from;
+        while ( vertex != sourceId )
+        {
+            int predecessor = predecessorOf( vertex );
+            if ( predecessor < 0 )
+            {
+                throw new PathNotFoundException( "Path from '%s' to '%s' doesn't exist", source, target );
+            }
+            path.addConnectionInHead( store.vertex( predecessor ), edgeOf( store, vertex, predecessor, vertex ),
+                                      store.vertex( vertex ) );
+            vertex = predecessor;
+        }
+    }
+
+    /**
+     * Returns the edge recorded for the vertex identified by {@code id}, if not recorded the one connecting
+     * {@code from} to {@code to} looked up in the graph storage.
+     */
+    private WE edgeOf( DenseGraphStore<V, WE> store, int id, int from, int to )
+    {
+        int edge = edges[id];
+        if ( edge < 0 )
+        {
+            edge = store.findEdge( from, to );
+        }
+        return edge < 0 ? null : store.edge( edge );
+    }
+
+}
@@ -0,0 +1,387 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableSet;
+import static org.nnsoft.trudeau.utils.Objects.eq;
+import static org.nnsoft.trudeau.utils.Objects.hash;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.VertexPair;
+
+/**
+ * Immutable version of a {@link VersionedDirectedMutableGraph}: vertices and edges are spread across hash segments,
+ * so that the next version shares with this one every segment the mutation did not touch.
+ *
+ * Instances never change once published and are safe to be shared across threads without any locking.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class DirectedGraphSnapshot<V, E>
+    implements DirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = 2760338418460627549L;
+
+    private final long version;
+
+    private final int order;
+
+    private final int size;
+
+    private final Map<V, Arcs<V, E>>[] vertexSegments;
+
+    private final Map<E, VertexPair<V>>[] edgeSegments;
+
+    /**
+     * Creates a new snapshot over the input segments, which must not be modified anymore.
+     */
+    DirectedGraphSnapshot( long version, int order, int size, Map<V, Arcs<V, E>>[] vertexSegments,
+                           Map<E, VertexPair<V>>[] edgeSegments )
+    {
+        this.version = version;
+        this.order = order;
+        this.size = size;
+        this.vertexSegments = vertexSegments;
+        this.edgeSegments = edgeSegments;
+    }
+
+    /**
+     * Returns the version of this snapshot; each mutation publishes a snapshot with a greater version.
+     *
+     * @return the version of this snapshot
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getVertices()
+    {
+        return new SegmentsIterable<V>( vertexSegments );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<E> getEdges()
+    {
+        return new SegmentsIterable<E>( edgeSegments );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDegree( V v )
+    {
+        final Arcs<V, E> arcs = checkedArcs( v );
+        return arcs.inbound.size() + arcs.outbound.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getConnectedVertices( V v )
+    {
+        return getOutbound( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public E getEdge( V source, V target )
+    {
+        final Arcs<V, E> arcs = checkedArcs( source );
+        checkedArcs( target );
+        return arcs.outbound.get( target );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public VertexPair<V> getVertices( E e )
+    {
+        return e == null ? null : edgeSegments[segmentOf( e, edgeSegments.length )].get( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean containsVertex( V v )
+    {
+        return arcs( v ) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean containsEdge( E e )
+    {
+        return getVertices( e ) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getInDegree( V v )
+    {
+        return checkedArcs( v ).inbound.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getInbound( V v )
+    {
+        return unmodifiableSet( checkedArcs( v ).inbound.keySet() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getOutDegree( V v )
+    {
+        return checkedArcs( v ).outbound.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getOutbound( V v )
+    {
+        return unmodifiableSet( checkedArcs( v ).outbound.keySet() );
+    }
+
+    /**
+     * Returns the vertices segments, shared with the writer.
+     *
+     * @return the vertices segments
+     */
+    Map<V, Arcs<V, E>>[] getVertexSegments()
+    {
+        return vertexSegments;
+    }
+
+    /**
+     * Returns the edges segments, shared with the writer.
+     *
+     * @return the edges segments
+     */
+    Map<E, VertexPair<V>>[] getEdgeSegments()
+    {
+        return edgeSegments;
+    }
+
+    /**
+     * Returns the arcs of the input vertex, null if the vertex is not part of this snapshot.
+     *
+     * @param v the vertex to look up
+     * @return the arcs of the input vertex, null if not found
+     */
+    Arcs<V, E> arcs( V v )
+    {
+        return v == null ? null : vertexSegments[segmentOf( v, vertexSegments.length )].get( v );
+    }
+
+    private Arcs<V, E> checkedArcs( V v )
+    {
+        final Arcs<V, E> arcs = arcs( v );
+        if ( arcs == null )
+        {
+            throw new GraphException( format( "Vertex %s does not exist in the Graph", v ) );
+        }
+        return arcs;
+    }
+
+    /**
+     * Returns the index of the segment the input element belongs to.
+     *
+     * @param element the element
+     * @param segments the number of segments, a power of two
+     * @return the index of the segment the input element belongs to
+     */
+    static int segmentOf( Object element, int segments )
+    {
+        return IdDictionary.spread( element.hashCode() ) & ( segments - 1 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        return hash( 1, prime, getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        DirectedGraphSnapshot<Object, Object> other = (DirectedGraphSnapshot<Object, Object>) obj;
+        return eq( getAdjacencyView(), other.getAdjacencyView() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return String.valueOf( getAdjacencyView() );
+    }
+
+    private Map<V, Set<V>> getAdjacencyView()
+    {
+        final Map<V, Set<V>> view = new HashMap<V, Set<V>>();
+        for ( Map<V, Arcs<V, E>> segment : vertexSegments )
+        {
+            for ( Map.Entry<V, Arcs<V, E>> entry : segment.entrySet() )
+            {
+                view.put( entry.getKey(), new HashSet<V>( entry.getValue().outbound.keySet() ) );
+            }
+        }
+        return view;
+    }
+
+    /**
+     * The immutable outbound and inbound adjacency of a vertex, mapping each connected vertex to the connecting edge.
+     */
+    static final class Arcs<V, E>
+        implements Serializable
+    {
+
+        private static final long serialVersionUID = -5513462404325744880L;
+
+        private static final Arcs<Object, Object> EMPTY =
+            new Arcs<Object, Object>( Collections.<Object, Object>emptyMap(), Collections.<Object, Object>emptyMap() );
+
+        final Map<V, E> outbound;
+
+        final Map<V, E> inbound;
+
+        Arcs( Map<V, E> outbound, Map<V, E> inbound )
+        {
+            this.outbound = outbound;
+            this.inbound = inbound;
+        }
+
+        @SuppressWarnings( "unchecked" ) // holds no elements
+        static <V, E> Arcs<V, E> empty()
+        {
+            return (Arcs<V, E>) EMPTY;
+        }
+
+    }
+
+    /**
+     * Read-only view over the keys of all the segments.
+     */
+    private static final class SegmentsIterable<T>
+        implements Iterable<T>
+    {
+
+        private final Map<T, ?>[] segments;
+
+        SegmentsIterable( Map<T, ?>[] segments )
+        {
+            this.segments = segments;
+        }
+
+        public Iterator<T> iterator()
+        {
+            return new Iterator<T>()
+            {
+
+                private int segment;
+
+                private Iterator<T> current = Collections.<T>emptySet().iterator();
+
+                public boolean hasNext()
+                {
+                    while ( !current.hasNext() && segment < segments.length )
+                    {
+                        current = segments[segment++].keySet().iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                public T next()
+                {
+                    if ( !hasNext() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException( "Graph snapshots cannot be modified" );
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -16,13 +16,10 @@ package org.nnsoft.trudeau.inmemory;
  *   limitations under the License.
  */
 
-import java.util.HashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 
 import org.nnsoft.trudeau.api.DirectedGraph;
-import org.nnsoft.trudeau.api.VertexPair;
 
 /**
  * A memory-based implementation of a mutable directed Graph.
@@ -39,9 +36,23 @@ public class DirectedMutableGraph<V, E>
 
     private static final long serialVersionUID = 630111985439492792L;
 
-    private final Map<V, Set<V>> inbound = new HashMap<V, Set<V>>();
+    /**
+     * Creates a new empty directed graph.
+     */
+    public DirectedMutableGraph()
+    {
+        super();
+    }
 
-    private final Map<V, Set<V>> outbound = new HashMap<V, Set<V>>();
+    /**
+     * Creates a new empty directed graph.
+     *
+     * @param store the dense identifiers based storage
+     */
+    DirectedMutableGraph( DenseGraphStore<V, E> store )
+    {
+        super( store );
+    }
 
     /**
      * {@inheritDoc}
@@ -56,7 +67,7 @@ public class DirectedMutableGraph<V, E>
      */
     public final int getInDegree( V v )
     {
-        return inbound.get( v ).size();
+        return getStore().inDegree( vertexId( v ) );
     }
 
     /**
@@ -64,7 +75,7 @@ public class DirectedMutableGraph<V, E>
      */
     public final Iterable<V> getInbound( V v )
     {
-        return inbound.get( v );
+        return getStore().inboundVertices( vertexId( v ) );
     }
 
     /**
@@ -72,7 +83,7 @@ public class DirectedMutableGraph<V, E>
      */
     public final int getOutDegree( V v )
     {
-        return outbound.get( v ).size();
+        return getStore().outDegree( vertexId( v ) );
     }
 
     /**
@@ -80,7 +91,93 @@ public class DirectedMutableGraph<V, E>
      */
     public final Iterable<V> getOutbound( V v )
     {
-        return outbound.get( v );
+        return getConnectedVertices( v );
+    }
+
+    /**
+     * Visits the vertices having an edge entering in the input vertex, in the same order of
+     * {@link #getInbound(Object)}, without allocating a view and its iterator.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each inbound vertex
+     */
+    public final void forEachInbound( V v, VertexVisitor<? super V> visitor )
+    {
+        getStore().visitInboundVertices( vertexId( v ), visitor );
+    }
+
+    /**
+     * Visits the vertices having an edge entering in the input vertex until one of them satisfies the input
+     * predicate.
+     *
+     * The predicate must not modify this graph.
+     *
+     * @param v the vertex
+     * @param predicate the condition tested against each inbound vertex
+     * @return true, if an inbound vertex satisfies the predicate
+     */
+    public final boolean anyInbound( V v, VertexPredicate<? super V> predicate )
+    {
+        return getStore().anyInboundVertex( vertexId( v ), predicate );
+    }
+
+    /**
+     * Visits the vertices an edge leaving the input vertex enters in, in the same order of
+     * {@link #getOutbound(Object)}, without allocating a view and its iterator.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each outbound vertex
+     */
+    public final void forEachOutbound( V v, VertexVisitor<? super V> visitor )
+    {
+        forEachNeighbor( v, visitor );
+    }
+
+    /**
+     * Visits the vertices an edge leaving the input vertex enters in, until one of them satisfies the input
+     * predicate.
+     *
+     * The predicate must not modify this graph.
+     *
+     * @param v the vertex
+     * @param predicate the condition tested against each outbound vertex
+     * @return true, if an outbound vertex satisfies the predicate
+     */
+    public final boolean anyOutbound( V v, VertexPredicate<? super V> predicate )
+    {
+        return anyNeighbor( v, predicate );
+    }
+
+    /**
+     * Visits the edges leaving the input vertex, together with the vertices they enter in, in the same order of
+     * {@link #getOutbound(Object)}; the edges are read from the vertex adjacency, with no lookup per edge.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each outgoing edge, having the input vertex as head
+     */
+    public final void forEachOutgoingEdge( V v, EdgeVisitor<? super V, ? super E> visitor )
+    {
+        getStore().visitOutboundEdges( vertexId( v ), visitor );
+    }
+
+    /**
+     * Visits the edges entering in the input vertex, together with the vertices they leave, in the same order of
+     * {@link #getInbound(Object)}; the edges are read from the vertex adjacency, with no lookup per edge.
+     *
+     * The visitor must not modify this graph.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each incoming edge, having the input vertex as tail
+     */
+    public final void forEachIncomingEdge( V v, EdgeVisitor<? super V, ? super E> visitor )
+    {
+        getStore().visitInboundEdges( vertexId( v ), visitor );
     }
 
     /**
@@ -89,8 +186,7 @@ public class DirectedMutableGraph<V, E>
     @Override
     protected void decorateAddVertex( V v )
     {
-        inbound.put( v, new LinkedHashSet<V>() );
-        outbound.put( v, new LinkedHashSet<V>() );
+        // the outbound adjacency is the graph one, the inbound is allocated on demand
     }
 
     /**
@@ -99,8 +195,7 @@ public class DirectedMutableGraph<V, E>
     @Override
     protected void decorateRemoveVertex( V v )
     {
-        inbound.remove( v );
-        outbound.remove( v );
+        // do nothing
     }
 
     /**
@@ -109,8 +204,7 @@ public class DirectedMutableGraph<V, E>
     @Override
     protected void decorateAddEdge( V head, E e, V tail )
     {
-        inbound.get( tail ).add( head );
-        outbound.get( head ).add( tail );
+        getStore().addInboundArc( vertexId( tail ), edgeId( e ), vertexId( head ) );
     }
 
     /**
@@ -119,9 +213,34 @@ public class DirectedMutableGraph<V, E>
     @Override
     protected void decorateRemoveEdge( E e )
     {
-        final VertexPair<V> vertices = getVertices( e );
-        inbound.get( vertices.getTail() ).remove( vertices.getHead() );
-        outbound.get( vertices.getHead() ).remove( vertices.getTail() );
+        final DenseGraphStore<V, E> store = getStore();
+        final int edge = edgeId( e );
+        store.removeInboundArc( store.tail( edge ), edge );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FrozenDirectedGraph<V, E> freeze()
+    {
+        return new FrozenDirectedGraph<V, E>( this );
+    }
+
+    /**
+     * Rebuilds the inbound adjacency from the edges restored by the superclass.
+     */
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        final DenseGraphStore<V, E> store = getStore();
+        // edges identifiers of a restored storage are compact
+        for ( int edge = 0; edge < store.size(); edge++ )
+        {
+            store.addInboundArc( store.tail( edge ), edge, store.head( edge ) );
+        }
     }
 
 }
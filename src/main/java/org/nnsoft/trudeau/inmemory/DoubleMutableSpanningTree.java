@@ -0,0 +1,90 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import org.nnsoft.trudeau.api.SpanningTree;
+
+/**
+ * A memory-based implementation of a mutable spanning tree specialized for {@code double} weights: the tree weight is
+ * kept as a primitive running total, rather than appended via {@link org.nnsoft.trudeau.math.monoid.Monoid}
+ * operations boxing a new {@link Double} on each added or removed edge.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <WE> the Graph weighted edges type
+ */
+public final class DoubleMutableSpanningTree<V, WE>
+    extends UndirectedMutableGraph<V, WE>
+    implements SpanningTree<V, WE, Double>
+{
+
+    private static final long serialVersionUID = 5719287301524985630L;
+
+    private final DoubleWeightMapper<? super WE> weightedEdges;
+
+    private double weight;
+
+    /**
+     * Creates a new instance of {@link DoubleMutableSpanningTree}
+     *
+     * @param weightedEdges the mapper from edges to their weight
+     */
+    public DoubleMutableSpanningTree( DoubleWeightMapper<? super WE> weightedEdges )
+    {
+        this.weightedEdges = weightedEdges;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Double getWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * Returns the tree weight, without boxing it.
+     *
+     * @return the tree weight
+     */
+    public double getDoubleWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateAddEdge( V head, WE e, V tail )
+    {
+        super.decorateAddEdge( head, e, tail );
+        weight += weightedEdges.map( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateRemoveEdge( WE e )
+    {
+        super.decorateRemoveEdge( e );
+        weight -= weightedEdges.map( e );
+    }
+
+}
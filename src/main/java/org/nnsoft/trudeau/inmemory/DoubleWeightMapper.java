@@ -0,0 +1,36 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+/**
+ * Maps edges to their {@code double} weight, the primitive specialization of a
+ * {@link org.nnsoft.trudeau.api.Mapper Mapper&lt;WE, Double&gt;}, so that weights are read without boxing.
+ *
+ * @param <WE> the Graph weighted edges type
+ */
+public interface DoubleWeightMapper<WE>
+{
+
+    /**
+     * Returns the weight of the input edge.
+     *
+     * @param edge the weighted edge
+     * @return the weight of the input edge
+     */
+    double map( WE edge );
+
+}
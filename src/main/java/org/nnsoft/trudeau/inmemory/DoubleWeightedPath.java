@@ -0,0 +1,134 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+
+import org.nnsoft.trudeau.api.WeightedPath;
+
+/**
+ * {@link WeightedPath} implementation specialized for {@code double} weights: the path weight is kept as a primitive
+ * running total, rather than appended via {@link org.nnsoft.trudeau.math.monoid.Monoid} operations boxing a new
+ * {@link Double} on each connection.
+ *
+ * @param <V> the Graph vertices type
+ * @param <WE> the Graph weighted edges type
+ */
+public final class DoubleWeightedPath<V, WE>
+    extends InMemoryPath<V, WE>
+    implements WeightedPath<V, WE, Double>
+{
+
+    private static final long serialVersionUID = -3208218389442587826L;
+
+    private final DoubleWeightMapper<? super WE> weightedEdges;
+
+    private double weight;
+
+    /**
+     * Creates a new instance of {@link DoubleWeightedPath}.
+     *
+     * @param start the start vertex
+     * @param target the target vertex
+     * @param weightedEdges the mapper from edges to their weight
+     */
+    public DoubleWeightedPath( V start, V target, DoubleWeightMapper<? super WE> weightedEdges )
+    {
+        super( start, target );
+        this.weightedEdges = weightedEdges;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addConnectionInHead( V head, WE edge, V tail )
+    {
+        super.addConnectionInHead( head, edge, tail );
+        weight += weightedEdges.map( edge );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addConnectionInTail( V head, WE edge, V tail )
+    {
+        super.addConnectionInTail( head, edge, tail );
+        weight += weightedEdges.map( edge );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Double getWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * Returns the path weight, without boxing it.
+     *
+     * @return the path weight
+     */
+    public double getDoubleWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        final long bits = Double.doubleToLongBits( weight );
+        return prime * super.hashCode() + (int) ( bits ^ ( bits >>> 32 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( !super.equals( obj ) )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any DoubleWeightedPath typed instance
+        DoubleWeightedPath<Object, Object> other = (DoubleWeightedPath<Object, Object>) obj;
+        return Double.doubleToLongBits( weight ) == Double.doubleToLongBits( other.weight );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return format( "InMemoryPath [weigth=%s, vertices=%s, edges=%s]", weight, getVertices(), getEdges() );
+    }
+
+}
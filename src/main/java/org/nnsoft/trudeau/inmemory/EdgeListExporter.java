@@ -0,0 +1,336 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.nnsoft.trudeau.api.Graph;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.Mapper;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Streams graphs as UTF-8 text, either as edge lists, one {@code head tail label} edge per line, in the format read by
+ * {@link EdgeListImporter}, or as adjacency lists, one {@code vertex connected...} line per vertex.
+ *
+ * Labels are encoded char by char into a reusable direct buffer, flushed to the channel whenever full, so that exports
+ * run in constant memory; graphs based on {@link BaseGraph} are read straight from their edges table.
+ *
+ * Labels the import format cannot represent are rejected: vertex labels must be non empty, must not contain blanks or
+ * line breaks and must not start with {@code #}, which would comment the line out; edge labels must be non empty, must
+ * not contain line breaks and must neither start nor end with a blank or control char, which would be trimmed. Edge
+ * lists carry only the vertices having edges: isolated vertices are not exported, adjacency lists have to be used to
+ * preserve them.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class EdgeListExporter<V, E>
+{
+
+    private static final int DEFAULT_BUFFER_BYTES = 64 << 10;
+
+    private static final int MAX_CODE_POINT_BYTES = 4;
+
+    private final Mapper<V, String> vertexLabels;
+
+    private final Mapper<E, String> edgeLabels;
+
+    private final ByteBuffer buffer;
+
+    private WritableByteChannel channel;
+
+    /**
+     * Creates a new exporter of {@link BaseLabeledVertex} and {@link BaseLabeledEdge} based graphs.
+     *
+     * @return a new exporter of labeled vertices and edges based graphs
+     */
+    public static EdgeListExporter<BaseLabeledVertex, BaseLabeledEdge> labeled()
+    {
+        return new EdgeListExporter<BaseLabeledVertex, BaseLabeledEdge>( new Mapper<BaseLabeledVertex, String>()
+        {
+
+            public String map( BaseLabeledVertex vertex )
+            {
+                return vertex.getLabel();
+            }
+
+        }, new Mapper<BaseLabeledEdge, String>()
+        {
+
+            public String map( BaseLabeledEdge edge )
+            {
+                return edge.getLabel();
+            }
+
+        } );
+    }
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param vertexLabels maps the vertices to their labels
+     * @param edgeLabels maps the edges to their labels
+     */
+    public EdgeListExporter( Mapper<V, String> vertexLabels, Mapper<E, String> edgeLabels )
+    {
+        this.vertexLabels = vertexLabels;
+        this.edgeLabels = edgeLabels;
+        buffer = ByteBuffer.allocateDirect( DEFAULT_BUFFER_BYTES );
+    }
+
+    /**
+     * Writes the edge list of the input graph to the input file, replacing its content; isolated vertices are not
+     * written.
+     *
+     * @param graph the graph to export
+     * @param file the target file
+     * @throws IOException if the file cannot be written
+     */
+    public void exportEdgeList( Graph<V, E> graph, File file )
+        throws IOException
+    {
+        final FileChannel target = new FileOutputStream( file ).getChannel();
+        try
+        {
+            exportEdgeList( graph, target );
+        }
+        finally
+        {
+            target.close();
+        }
+    }
+
+    /**
+     * Writes the edge list of the input graph to the input channel, which is not closed; isolated vertices are not
+     * written.
+     *
+     * @param graph the graph to export
+     * @param target the target channel
+     * @throws IOException if the channel cannot be written
+     */
+    public void exportEdgeList( Graph<V, E> graph, WritableByteChannel target )
+        throws IOException
+    {
+        channel = target;
+        try
+        {
+            if ( graph instanceof BaseGraph )
+            {
+                final DenseGraphStore<V, E> store = ( (BaseGraph<V, E>) graph ).getStore();
+                for ( int edge = 0; edge < store.edgeBound(); edge++ )
+                {
+                    final E e = store.edge( edge );
+                    if ( e != null )
+                    {
+                        writeEdge( store.vertex( store.head( edge ) ), e, store.vertex( store.tail( edge ) ) );
+                    }
+                }
+            }
+            else
+            {
+                for ( E e : graph.getEdges() )
+                {
+                    final VertexPair<V> vertices = graph.getVertices( e );
+                    writeEdge( vertices.getHead(), e, vertices.getTail() );
+                }
+            }
+            flush();
+        }
+        finally
+        {
+            buffer.clear();
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes the adjacency list of the input graph to the input file, replacing its content.
+     *
+     * @param graph the graph to export
+     * @param file the target file
+     * @throws IOException if the file cannot be written
+     */
+    public void exportAdjacencyList( Graph<V, E> graph, File file )
+        throws IOException
+    {
+        final FileChannel target = new FileOutputStream( file ).getChannel();
+        try
+        {
+            exportAdjacencyList( graph, target );
+        }
+        finally
+        {
+            target.close();
+        }
+    }
+
+    /**
+     * Writes the adjacency list of the input graph to the input channel, which is not closed.
+     *
+     * @param graph the graph to export
+     * @param target the target channel
+     * @throws IOException if the channel cannot be written
+     */
+    public void exportAdjacencyList( Graph<V, E> graph, WritableByteChannel target )
+        throws IOException
+    {
+        channel = target;
+        try
+        {
+            for ( V v : graph.getVertices() )
+            {
+                writeVertex( v );
+                for ( V connected : graph.getConnectedVertices( v ) )
+                {
+                    writeByte( ' ' );
+                    writeVertex( connected );
+                }
+                writeByte( '\n' );
+            }
+            flush();
+        }
+        finally
+        {
+            buffer.clear();
+            channel = null;
+        }
+    }
+
+    private void writeEdge( V head, E e, V tail )
+        throws IOException
+    {
+        writeVertex( head );
+        writeByte( ' ' );
+        writeVertex( tail );
+        writeByte( ' ' );
+        final String label = edgeLabels.map( e );
+        // the importer trims edge labels, and labels missing ones
+        if ( label.length() == 0 || label.charAt( 0 ) <= ' ' || label.charAt( label.length() - 1 ) <= ' ' )
+        {
+            throw new GraphException( "Edge label '%s' cannot be exported, it is empty or it would be trimmed",
+                                      label );
+        }
+        for ( int i = 0; i < label.length(); i++ )
+        {
+            final char c = label.charAt( i );
+            if ( c == '\n' || c == '\r' )
+            {
+                throw new GraphException( "Edge label '%s' cannot be exported, it contains line breaks", label );
+            }
+            i = writeChar( label, i );
+        }
+        writeByte( '\n' );
+    }
+
+    private void writeVertex( V v )
+        throws IOException
+    {
+        final String label = vertexLabels.map( v );
+        if ( label.length() == 0 )
+        {
+            throw new GraphException( "Vertex %s cannot be exported, its label is empty", v );
+        }
+        if ( label.charAt( 0 ) == '#' )
+        {
+            throw new GraphException( "Vertex label '%s' cannot be exported, it would be read as a comment", label );
+        }
+        for ( int i = 0; i < label.length(); i++ )
+        {
+            final char c = label.charAt( i );
+            if ( c == ' ' || c == '\t' || c == '\n' || c == '\r' )
+            {
+                throw new GraphException( "Vertex label '%s' cannot be exported, it contains blanks", label );
+            }
+            i = writeChar( label, i );
+        }
+    }
+
+    /**
+     * Encodes the char at the input index of the label as UTF-8, along with the next one if they form a surrogate
+     * pair.
+     *
+     * @return the index of the last encoded char
+     */
+    private int writeChar( String label, int index )
+        throws IOException
+    {
+        if ( buffer.remaining() < MAX_CODE_POINT_BYTES )
+        {
+            flush();
+        }
+
+        final char c = label.charAt( index );
+        if ( c < 0x80 )
+        {
+            buffer.put( (byte) c );
+        }
+        else if ( c < 0x800 )
+        {
+            buffer.put( (byte) ( 0xC0 | ( c >> 6 ) ) );
+            buffer.put( (byte) ( 0x80 | ( c & 0x3F ) ) );
+        }
+        else if ( Character.isHighSurrogate( c ) && index + 1 < label.length()
+            && Character.isLowSurrogate( label.charAt( index + 1 ) ) )
+        {
+            final int codePoint = Character.toCodePoint( c, label.charAt( index + 1 ) );
+            buffer.put( (byte) ( 0xF0 | ( codePoint >> 18 ) ) );
+            buffer.put( (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) ) );
+            buffer.put( (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) ) );
+            buffer.put( (byte) ( 0x80 | ( codePoint & 0x3F ) ) );
+            return index + 1;
+        }
+        else
+        {
+            buffer.put( (byte) ( 0xE0 | ( c >> 12 ) ) );
+            buffer.put( (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) ) );
+            buffer.put( (byte) ( 0x80 | ( c & 0x3F ) ) );
+        }
+        return index;
+    }
+
+    private void writeByte( char c )
+        throws IOException
+    {
+        if ( !buffer.hasRemaining() )
+        {
+            flush();
+        }
+        buffer.put( (byte) c );
+    }
+
+    private void flush()
+        throws IOException
+    {
+        buffer.flip();
+        while ( buffer.hasRemaining() )
+        {
+            channel.write( buffer );
+        }
+        buffer.clear();
+    }
+
+}
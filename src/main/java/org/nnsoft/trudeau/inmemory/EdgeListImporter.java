@@ -0,0 +1,500 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.Mapper;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Imports graphs from UTF-8 text edge lists, one {@code head tail [label]} edge per line, fields separated by spaces
+ * or tabs; blank lines and lines starting with {@code #} are skipped. Edges without label are labeled
+ * {@code head -> tail}.
+ *
+ * The file is split in chunks on line boundaries, chunks are read via positional {@link FileChannel} reads and
+ * parsed concurrently into per-chunk buffers, which are merged, in file order, via a {@link GraphLoader} as soon as
+ * they are parsed; the imported graph is the same obtained adding the edges one by one, in file order, each vertex
+ * being added the first time it occurs. Duplicate edges are rejected as in
+ * {@link BaseMutableGraph#addEdge(Object, Object, Object)}.
+ *
+ * Only a few chunks ahead of the merged one are parsed at any time, so the parsed but not yet merged vertices and
+ * edges take a bounded amount of memory, whatever the file size. The edges storage is presized on the number of
+ * edges of the first chunk, the vertices storage on the expected number of vertices, if given, and grows otherwise.
+ *
+ * Vertices and edges factories are invoked concurrently, so they have to be thread safe.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class EdgeListImporter<V, E>
+{
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private static final int BOUNDARY_WINDOW_BYTES = 256;
+
+    // chunks parsed ahead of the merged one, per available processor
+    private static final int CHUNKS_AHEAD_PER_PROCESSOR = 2;
+
+    private final Mapper<String, V> vertexFactory;
+
+    private final Mapper<String, E> edgeFactory;
+
+    private final int expectedOrder;
+
+    private final int chunkBytes;
+
+    /**
+     * Creates a new importer of {@link BaseLabeledVertex} and {@link BaseLabeledEdge} based graphs.
+     *
+     * @return a new importer of labeled vertices and edges based graphs
+     */
+    public static EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge> labeled()
+    {
+        return labeled( 0 );
+    }
+
+    /**
+     * Creates a new importer of {@link BaseLabeledVertex} and {@link BaseLabeledEdge} based graphs, presized to hold
+     * the expected number of vertices.
+     *
+     * @param expectedOrder the expected number of vertices of the imported graphs
+     * @return a new importer of labeled vertices and edges based graphs
+     */
+    public static EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge> labeled( int expectedOrder )
+    {
+        return new EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge>( new Mapper<String, BaseLabeledVertex>()
+        {
+
+            public BaseLabeledVertex map( String label )
+            {
+                return new BaseLabeledVertex( label );
+            }
+
+        }, new Mapper<String, BaseLabeledEdge>()
+        {
+
+            public BaseLabeledEdge map( String label )
+            {
+                return new BaseLabeledEdge( label );
+            }
+
+        }, expectedOrder );
+    }
+
+    /**
+     * Creates a new importer.
+     *
+     * @param vertexFactory creates the vertices from their labels
+     * @param edgeFactory creates the edges from their labels
+     */
+    public EdgeListImporter( Mapper<String, V> vertexFactory, Mapper<String, E> edgeFactory )
+    {
+        this( vertexFactory, edgeFactory, 0 );
+    }
+
+    /**
+     * Creates a new importer, presized to hold the expected number of vertices.
+     *
+     * @param vertexFactory creates the vertices from their labels
+     * @param edgeFactory creates the edges from their labels
+     * @param expectedOrder the expected number of vertices of the imported graphs
+     */
+    public EdgeListImporter( Mapper<String, V> vertexFactory, Mapper<String, E> edgeFactory, int expectedOrder )
+    {
+        this( vertexFactory, edgeFactory, expectedOrder, DEFAULT_CHUNK_BYTES );
+    }
+
+    /**
+     * Creates a new importer.
+     *
+     * @param vertexFactory creates the vertices from their labels
+     * @param edgeFactory creates the edges from their labels
+     * @param expectedOrder the expected number of vertices of the imported graphs
+     * @param chunkBytes the size, in bytes, of the chunks parsed concurrently
+     */
+    EdgeListImporter( Mapper<String, V> vertexFactory, Mapper<String, E> edgeFactory, int expectedOrder,
+                      int chunkBytes )
+    {
+        checkArgument( expectedOrder >= 0, "Negative expected order %s not admitted", expectedOrder );
+        this.vertexFactory = vertexFactory;
+        this.edgeFactory = edgeFactory;
+        this.expectedOrder = expectedOrder;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Imports a directed graph, parsing the file with as many threads as the available processors.
+     *
+     * @param file the edge list file
+     * @return the imported directed graph
+     * @throws IOException if the file cannot be read
+     */
+    public DirectedMutableGraph<V, E> importDirected( File file )
+        throws IOException
+    {
+        final ExecutorService executor = newExecutor();
+        try
+        {
+            return importDirected( file, executor );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Imports a directed graph, parsing the file in the input executor.
+     *
+     * @param file the edge list file
+     * @param executor the executor where chunks are parsed
+     * @return the imported directed graph
+     * @throws IOException if the file cannot be read
+     */
+    public DirectedMutableGraph<V, E> importDirected( File file, ExecutorService executor )
+        throws IOException
+    {
+        return load( file, executor ).buildDirected();
+    }
+
+    /**
+     * Imports an undirected graph, parsing the file with as many threads as the available processors.
+     *
+     * @param file the edge list file
+     * @return the imported undirected graph
+     * @throws IOException if the file cannot be read
+     */
+    public UndirectedMutableGraph<V, E> importUndirected( File file )
+        throws IOException
+    {
+        final ExecutorService executor = newExecutor();
+        try
+        {
+            return importUndirected( file, executor );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Imports an undirected graph, parsing the file in the input executor.
+     *
+     * @param file the edge list file
+     * @param executor the executor where chunks are parsed
+     * @return the imported undirected graph
+     * @throws IOException if the file cannot be read
+     */
+    public UndirectedMutableGraph<V, E> importUndirected( File file, ExecutorService executor )
+        throws IOException
+    {
+        return load( file, executor ).buildUndirected();
+    }
+
+    private GraphLoader<V, E> load( File file, ExecutorService executor )
+        throws IOException
+    {
+        final RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try
+        {
+            final FileChannel channel = input.getChannel();
+            final long[] boundaries = boundaries( channel );
+
+            final int nChunks = boundaries.length - 1;
+            final int chunksAhead = CHUNKS_AHEAD_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+
+            // chunks are parsed in a sliding window and merged in file order, each one dropped once merged
+            final LinkedList<Future<Chunk<V, E>>> parsing = new LinkedList<Future<Chunk<V, E>>>();
+            int submitted = 0;
+            GraphLoader<V, E> loader = null;
+            try
+            {
+                for ( int merged = 0; merged < nChunks; merged++ )
+                {
+                    while ( submitted < nChunks && submitted - merged < chunksAhead )
+                    {
+                        parsing.add( executor.submit( new ChunkParser( channel, boundaries[submitted],
+                                                                       boundaries[submitted + 1] ) ) );
+                        submitted++;
+                    }
+
+                    final Chunk<V, E> chunk = get( parsing.removeFirst() );
+                    if ( loader == null )
+                    {
+                        // chunks hold about as many edges as the first one
+                        final long expectedSize = Math.min( (long) chunk.edges.size() * nChunks, Integer.MAX_VALUE );
+                        loader = new GraphLoader<V, E>( expectedOrder, (int) expectedSize );
+                    }
+                    merge( chunk, loader );
+                }
+            }
+            finally
+            {
+                // parsing chunks would read the closed channel
+                for ( Future<Chunk<V, E>> future : parsing )
+                {
+                    future.cancel( true );
+                }
+            }
+            return loader != null ? loader : new GraphLoader<V, E>( expectedOrder, 0 );
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private void merge( Chunk<V, E> chunk, GraphLoader<V, E> loader )
+    {
+        for ( int i = 0; i < chunk.edges.size(); i++ )
+        {
+            final int head = loader.internVertex( chunk.heads.get( i ) );
+            final int tail = loader.internVertex( chunk.tails.get( i ) );
+            loader.addEdge( head, chunk.edges.get( i ), tail );
+        }
+    }
+
+    /**
+     * Splits the file in chunks of about {@code chunkBytes} bytes, each one starting at the beginning of a line.
+     *
+     * @return the chunk boundaries, the first one being {@code 0} and the last one the file size
+     */
+    private long[] boundaries( FileChannel channel )
+        throws IOException
+    {
+        final long size = channel.size();
+        final List<Long> boundaries = new ArrayList<Long>();
+        boundaries.add( 0L );
+
+        final ByteBuffer window = ByteBuffer.allocate( BOUNDARY_WINDOW_BYTES );
+        long position = chunkBytes;
+        while ( position < size )
+        {
+            // the chunk ends after the first line feed past its nominal end
+            window.clear();
+            final int read = channel.read( window, position );
+            int lineFeed = 0;
+            while ( lineFeed < read && window.get( lineFeed ) != '\n' )
+            {
+                lineFeed++;
+            }
+            position += lineFeed;
+            if ( lineFeed == read )
+            {
+                continue;
+            }
+
+            position++;
+            if ( position < size )
+            {
+                boundaries.add( position );
+            }
+            position += chunkBytes;
+        }
+        boundaries.add( size );
+
+        final long[] result = new long[boundaries.size()];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            result[i] = boundaries.get( i );
+        }
+        return result;
+    }
+
+    private static <T> T get( Future<T> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Edge list import interrupted" );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GraphException( "Edge list chunk cannot be parsed", e.getCause() );
+        }
+    }
+
+    private static ExecutorService newExecutor()
+    {
+        return Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * The vertices and edges parsed from a chunk, as parallel lists of {@code (head, edge, tail)} triples.
+     */
+    private static final class Chunk<V, E>
+    {
+
+        final List<V> heads = new ArrayList<V>();
+
+        final List<E> edges = new ArrayList<E>();
+
+        final List<V> tails = new ArrayList<V>();
+
+    }
+
+    /**
+     * Reads and parses the lines in the {@code [from, to)} range of the file.
+     */
+    private final class ChunkParser
+        implements Callable<Chunk<V, E>>
+    {
+
+        private final FileChannel channel;
+
+        private final long from;
+
+        private final long to;
+
+        ChunkParser( FileChannel channel, long from, long to )
+        {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Chunk<V, E> call()
+            throws IOException
+        {
+            final ByteBuffer buffer = ByteBuffer.allocate( (int) ( to - from ) );
+            while ( buffer.hasRemaining() )
+            {
+                // positional reads do not move the channel position, so chunks can be read concurrently
+                if ( channel.read( buffer, from + buffer.position() ) < 0 )
+                {
+                    throw new IOException( "Edge list file truncated while importing" );
+                }
+            }
+            final byte[] bytes = buffer.array();
+
+            final Chunk<V, E> chunk = new Chunk<V, E>();
+            final String[] fields = new String[3];
+            int lineStart = 0;
+            while ( lineStart < bytes.length )
+            {
+                int lineEnd = lineStart;
+                while ( lineEnd < bytes.length && bytes[lineEnd] != '\n' )
+                {
+                    lineEnd++;
+                }
+                parseLine( bytes, lineStart, lineEnd, fields, chunk );
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        private void parseLine( byte[] bytes, int lineStart, int lineEnd, String[] fields, Chunk<V, E> chunk )
+        {
+            int end = lineEnd;
+            if ( end > lineStart && bytes[end - 1] == '\r' )
+            {
+                end--;
+            }
+
+            int count = 0;
+            int position = skipBlanks( bytes, lineStart, end );
+            if ( position == end || bytes[position] == '#' )
+            {
+                return;
+            }
+            while ( position < end && count < fields.length )
+            {
+                int fieldEnd = position;
+                // the label spans the rest of the line
+                while ( fieldEnd < end && ( count == 2 || !isBlank( bytes[fieldEnd] ) ) )
+                {
+                    fieldEnd++;
+                }
+                fields[count++] = new String( bytes, position, fieldEnd - position, UTF_8 );
+                position = skipBlanks( bytes, fieldEnd, end );
+            }
+            if ( count < 2 )
+            {
+                throw new GraphException( "Malformed edge '%s' at byte %s, head and tail expected",
+                                          new String( bytes, lineStart, end - lineStart, UTF_8 ), from + lineStart );
+            }
+
+            final E edge = edgeFactory.map( count == 3 ? fields[2].trim() : fields[0] + " -> " + fields[1] );
+            if ( edge == null )
+            {
+                throw new GraphException( "Impossible to add a null Edge in the Graph" );
+            }
+            final V head = vertexFactory.map( fields[0] );
+            final V tail = vertexFactory.map( fields[1] );
+            if ( head == null || tail == null )
+            {
+                throw new GraphException( "Impossible to add a null Vertex to the Graph" );
+            }
+            chunk.heads.add( head );
+            chunk.edges.add( edge );
+            chunk.tails.add( tail );
+        }
+
+        private int skipBlanks( byte[] bytes, int from, int to )
+        {
+            int position = from;
+            while ( position < to && isBlank( bytes[position] ) )
+            {
+                position++;
+            }
+            return position;
+        }
+
+        private boolean isBlank( byte b )
+        {
+            return b == ' ' || b == '\t';
+        }
+
+    }
+
+}
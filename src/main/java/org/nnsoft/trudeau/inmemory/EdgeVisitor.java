@@ -0,0 +1,38 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+/**
+ * Callback notified with each visited edge together with its endpoints, used to iterate the edges of a graph without
+ * looking up their endpoints one by one.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public interface EdgeVisitor<V, E>
+{
+
+    /**
+     * Visits the input edge.
+     *
+     * @param head the edge head vertex
+     * @param e the visited edge
+     * @param tail the edge tail vertex
+     */
+    void visit( V head, E e, V tail );
+
+}
@@ -0,0 +1,137 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+
+/**
+ * An immutable, compressed-sparse-row based implementation of a directed Graph, which keeps an additional
+ * transposed adjacency to serve inbound queries.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class FrozenDirectedGraph<V, E>
+    extends BaseFrozenGraph<V, E>
+    implements DirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = 4733542785393924961L;
+
+    private final int[] inOffsets;
+
+    private final int[] sources;
+
+    /**
+     * Creates a new immutable snapshot of the input directed graph.
+     *
+     * @param graph the directed graph to be frozen
+     */
+    public FrozenDirectedGraph( DirectedGraph<V, E> graph )
+    {
+        super( graph );
+
+        final int[] offsets = getOffsets();
+        final int[] targets = getTargets();
+        final int order = offsets.length - 1;
+
+        inOffsets = new int[order + 1];
+        for ( int arc = 0; arc < targets.length; arc++ )
+        {
+            inOffsets[targets[arc] + 1]++;
+        }
+        for ( int id = 0; id < order; id++ )
+        {
+            inOffsets[id + 1] += inOffsets[id];
+        }
+
+        // filling by ascending source keeps each inbound row sorted
+        sources = new int[targets.length];
+        final int[] cursors = new int[order];
+        for ( int source = 0; source < order; source++ )
+        {
+            for ( int arc = offsets[source]; arc < offsets[source + 1]; arc++ )
+            {
+                int target = targets[arc];
+                sources[inOffsets[target] + cursors[target]++] = source;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDegree( V v )
+    {
+        return getInDegree( v ) + getOutDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getInDegree( V v )
+    {
+        final int id = checkedVertexId( v );
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getInbound( V v )
+    {
+        final int id = checkedVertexId( v );
+        return new ElementsIterable<V>( getVertexDictionary(), sources, inOffsets[id], inOffsets[id + 1] );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getOutDegree( V v )
+    {
+        return adjacencySize( checkedVertexId( v ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getOutbound( V v )
+    {
+        return getConnectedVertices( v );
+    }
+
+    /**
+     * Returns the offsets of the transposed compressed-sparse-row adjacency.
+     *
+     * @return the offsets of the transposed compressed-sparse-row adjacency
+     */
+    int[] getInOffsets()
+    {
+        return inOffsets;
+    }
+
+    /**
+     * Returns the sources of the transposed compressed-sparse-row adjacency.
+     *
+     * @return the sources of the transposed compressed-sparse-row adjacency
+     */
+    int[] getSources()
+    {
+        return sources;
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import org.nnsoft.trudeau.api.UndirectedGraph;
+
+/**
+ * An immutable, compressed-sparse-row based implementation of an undirected Graph.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class FrozenUndirectedGraph<V, E>
+    extends BaseFrozenGraph<V, E>
+    implements UndirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = -1846287402557612361L;
+
+    /**
+     * Creates a new immutable snapshot of the input undirected graph.
+     *
+     * @param graph the undirected graph to be frozen
+     */
+    public FrozenUndirectedGraph( UndirectedGraph<V, E> graph )
+    {
+        super( graph );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDegree( V v )
+    {
+        return adjacencySize( checkedVertexId( v ) );
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+/**
+ * Receives the changes applied to a graph in batches collected by a {@link GraphChangeBuffer}.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public interface GraphChangeBatchListener<V, E>
+{
+
+    /**
+     * Notifies a batch of changes, in the order they have been applied; the batch is valid only until this method
+     * returns, since its storage is recycled by the next changes.
+     *
+     * @param batch the batch of changes
+     */
+    void changed( GraphChangeBuffer<V, E> batch );
+
+}
@@ -0,0 +1,255 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+
+/**
+ * {@link GraphChangeListener} which records the changes in a fixed-size ring buffer and delivers them to a
+ * {@link GraphChangeBatchListener} once the buffer is full, or when {@link #flush()} is invoked, so that downstream
+ * structures are maintained incrementally, thousands of changes per callback, without any allocation per change.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class GraphChangeBuffer<V, E>
+    implements GraphChangeListener<V, E>
+{
+
+    /**
+     * The kinds of change recorded in the buffer.
+     */
+    public enum Change
+    {
+        VERTEX_ADDED, VERTEX_REMOVED, EDGE_ADDED, EDGE_REMOVED
+    }
+
+    private static final Change[] CHANGES = Change.values();
+
+    private final GraphChangeBatchListener<V, E> listener;
+
+    private final byte[] changes;
+
+    private final Object[] heads;
+
+    private final Object[] edges;
+
+    private final Object[] tails;
+
+    private final int mask;
+
+    private int start;
+
+    private int size;
+
+    /**
+     * Creates a new buffer delivering batches of at most {@code capacity} changes, rounded up to a power of two.
+     *
+     * @param capacity the maximum number of changes delivered in a batch
+     * @param listener the listener the batches are delivered to
+     */
+    public GraphChangeBuffer( int capacity, GraphChangeBatchListener<V, E> listener )
+    {
+        checkArgument( capacity > 0, "Buffer capacity must be positive, %s is not valid", capacity );
+        checkArgument( listener != null, "Null batch listener not admitted" );
+        this.listener = listener;
+
+        final int length = Integer.highestOneBit( ( capacity << 1 ) - 1 );
+        changes = new byte[length];
+        heads = new Object[length];
+        edges = new Object[length];
+        tails = new Object[length];
+        mask = length - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void vertexAdded( V v )
+    {
+        record( Change.VERTEX_ADDED, v, null, null );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void vertexRemoved( V v )
+    {
+        record( Change.VERTEX_REMOVED, v, null, null );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void edgeAdded( V head, E e, V tail )
+    {
+        record( Change.EDGE_ADDED, head, e, tail );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void edgeRemoved( V head, E e, V tail )
+    {
+        record( Change.EDGE_REMOVED, head, e, tail );
+    }
+
+    /**
+     * Delivers the recorded changes, if any, to the batch listener.
+     */
+    public void flush()
+    {
+        if ( size == 0 )
+        {
+            return;
+        }
+
+        try
+        {
+            listener.changed( this );
+        }
+        finally
+        {
+            // delivered slots are released, so that the buffer does not retain removed vertices and edges
+            for ( int i = 0; i < size; i++ )
+            {
+                final int slot = ( start + i ) & mask;
+                heads[slot] = null;
+                edges[slot] = null;
+                tails[slot] = null;
+            }
+            start = ( start + size ) & mask;
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the number of changes in the current batch.
+     *
+     * @return the number of changes in the current batch
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the kind of the change at the input index of the current batch.
+     *
+     * @param index the change index, in the {@code [0, size())} range
+     * @return the kind of the change
+     */
+    public Change getChange( int index )
+    {
+        return CHANGES[changes[slot( index )]];
+    }
+
+    /**
+     * Returns the vertex added or removed by the change at the input index of the current batch, or the head of the
+     * edge added or removed.
+     *
+     * @param index the change index, in the {@code [0, size())} range
+     * @return the vertex, or the edge head, of the change
+     */
+    @SuppressWarnings( "unchecked" ) // only V instances are recorded
+    public V getHead( int index )
+    {
+        return (V) heads[slot( index )];
+    }
+
+    /**
+     * Returns the edge added or removed by the change at the input index of the current batch, null for vertex
+     * changes.
+     *
+     * @param index the change index, in the {@code [0, size())} range
+     * @return the edge of the change
+     */
+    @SuppressWarnings( "unchecked" ) // only E instances are recorded
+    public E getEdge( int index )
+    {
+        return (E) edges[slot( index )];
+    }
+
+    /**
+     * Returns the tail of the edge added or removed by the change at the input index of the current batch, null for
+     * vertex changes.
+     *
+     * @param index the change index, in the {@code [0, size())} range
+     * @return the edge tail of the change
+     */
+    @SuppressWarnings( "unchecked" ) // only V instances are recorded
+    public V getTail( int index )
+    {
+        return (V) tails[slot( index )];
+    }
+
+    /**
+     * Notifies the changes of the current batch, in order, to the input listener.
+     *
+     * @param target the listener to notify
+     */
+    public void replay( GraphChangeListener<? super V, ? super E> target )
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            switch ( getChange( i ) )
+            {
+                case VERTEX_ADDED:
+                    target.vertexAdded( getHead( i ) );
+                    break;
+
+                case VERTEX_REMOVED:
+                    target.vertexRemoved( getHead( i ) );
+                    break;
+
+                case EDGE_ADDED:
+                    target.edgeAdded( getHead( i ), getEdge( i ), getTail( i ) );
+                    break;
+
+                default:
+                    target.edgeRemoved( getHead( i ), getEdge( i ), getTail( i ) );
+                    break;
+            }
+        }
+    }
+
+    private void record( Change change, V head, E e, V tail )
+    {
+        if ( size == changes.length )
+        {
+            flush();
+        }
+
+        final int slot = ( start + size++ ) & mask;
+        changes[slot] = (byte) change.ordinal();
+        heads[slot] = head;
+        edges[slot] = e;
+        tails[slot] = tail;
+    }
+
+    private int slot( int index )
+    {
+        if ( index < 0 || index >= size )
+        {
+            throw new IndexOutOfBoundsException( "Change " + index + " is out of the current batch" );
+        }
+        return ( start + index ) & mask;
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+/**
+ * Receives the changes applied to a {@link BaseMutableGraph}, right after each of them is applied, on the thread
+ * mutating the graph; removing a vertex notifies first the removal of each edge touching it.
+ *
+ * Listeners must not modify the graph they are notified by.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public interface GraphChangeListener<V, E>
+{
+
+    /**
+     * Notifies the input vertex has been added.
+     *
+     * @param v the added vertex
+     */
+    void vertexAdded( V v );
+
+    /**
+     * Notifies the input vertex has been removed.
+     *
+     * @param v the removed vertex
+     */
+    void vertexRemoved( V v );
+
+    /**
+     * Notifies the input edge has been added.
+     *
+     * @param head the head vertex
+     * @param e the added edge
+     * @param tail the tail vertex
+     */
+    void edgeAdded( V head, E e, V tail );
+
+    /**
+     * Notifies the input edge has been removed.
+     *
+     * @param head the head vertex
+     * @param e the removed edge
+     * @param tail the tail vertex
+     */
+    void edgeRemoved( V head, E e, V tail );
+
+}
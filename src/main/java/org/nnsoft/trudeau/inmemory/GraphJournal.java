@@ -0,0 +1,656 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import org.nnsoft.trudeau.api.GraphException;
+
+/**
+ * Optional durability layer for a {@link BaseMutableGraph}: every change is appended to a binary write-ahead log,
+ * a full snapshot of the graph is written at checkpoints and, when the journal is opened, the latest snapshot is
+ * restored and the log tail is replayed on top of it.
+ *
+ * Changes are collected in a {@link GraphChangeBuffer} and written, as a single checksummed frame followed by a single
+ * {@code fsync}, once the group is full or when {@link #commit()} is invoked; vertices and edges occurring several
+ * times in a group are serialized once. Full groups are serialized and forced to the disk by a background thread while
+ * the next group is collected, so mutations only pay for recording the changes. Changes are durable once the group
+ * holding them is committed: a crash loses the uncommitted ones only, torn frames at the end of the log are detected
+ * and discarded at recovery.
+ *
+ * The journal directory holds the {@code graph.snapshot} and {@code graph.log} files, along with the
+ * {@code graph.snapshot.tmp} and {@code graph.snapshot.old} ones while a checkpoint replaces the snapshot, and must
+ * not be shared by different journals. Checkpoints never truncate the log, whose frames are lost if the renamed
+ * snapshot does not survive a crash: they rotate it to {@code graph.log.old}, which is replayed too at recovery and
+ * deleted by the next checkpoint. This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ * @param <G> the journaled Graph type
+ */
+public final class GraphJournal<V, E, G extends BaseMutableGraph<V, E>>
+    implements Closeable
+{
+
+    static final String SNAPSHOT_FILE = "graph.snapshot";
+
+    static final String PREVIOUS_SNAPSHOT_FILE = "graph.snapshot.old";
+
+    static final String LOG_FILE = "graph.log";
+
+    static final String PREVIOUS_LOG_FILE = "graph.log.old";
+
+    private static final int MAGIC = 0x54524a4c;
+
+    private static final int VERSION = 1;
+
+    private static final int LOG_HEADER_LENGTH = 8;
+
+    // payload length, sequence number, payload checksum
+    private static final int FRAME_HEADER_LENGTH = 16;
+
+    private static final int DEFAULT_GROUP_SIZE = 1024;
+
+    private static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private static final GraphChangeBuffer.Change[] CHANGES = GraphChangeBuffer.Change.values();
+
+    private final File directory;
+
+    private final G graph;
+
+    private final long checkpointBytes;
+
+    private final GraphChangeBuffer<V, E> pending;
+
+    private RandomAccessFile logFile;
+
+    private FileChannel log;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor( new ThreadFactory()
+    {
+
+        public Thread newThread( Runnable runnable )
+        {
+            final Thread thread = new Thread( runnable, "graph-journal-writer" );
+            thread.setDaemon( true );
+            return thread;
+        }
+
+    } );
+
+    // accessed by the writer thread only
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+    private long sequence;
+
+    private Future<?> inFlight;
+
+    private volatile IOException failure;
+
+    /**
+     * Opens the journal in the input directory, with the default group size and checkpointing whenever the log grows
+     * past 64 MB.
+     *
+     * @param <V> the Graph vertices type
+     * @param <E> the Graph edges type
+     * @param <G> the journaled Graph type
+     * @param directory the journal directory, created if it does not exist
+     * @param emptyGraph the graph changes are replayed into when no snapshot has been written yet
+     * @return the opened journal
+     * @throws IOException if the journal files cannot be read or written
+     */
+    public static <V, E, G extends BaseMutableGraph<V, E>> GraphJournal<V, E, G> open( File directory, G emptyGraph )
+        throws IOException
+    {
+        return open( directory, emptyGraph, DEFAULT_GROUP_SIZE, DEFAULT_CHECKPOINT_BYTES );
+    }
+
+    /**
+     * Opens the journal in the input directory, restoring the journaled graph.
+     *
+     * @param <V> the Graph vertices type
+     * @param <E> the Graph edges type
+     * @param <G> the journaled Graph type
+     * @param directory the journal directory, created if it does not exist
+     * @param emptyGraph the graph changes are replayed into when no snapshot has been written yet
+     * @param groupSize the number of changes committed together once the group is full
+     * @param checkpointBytes the log size past which {@link #commit()} writes a new snapshot
+     * @return the opened journal
+     * @throws IOException if the journal files cannot be read or written
+     */
+    public static <V, E, G extends BaseMutableGraph<V, E>> GraphJournal<V, E, G> open( File directory, G emptyGraph,
+                                                                                     int groupSize,
+                                                                                     long checkpointBytes )
+        throws IOException
+    {
+        checkNotNull( directory, "Impossible to open a journal in a null directory" );
+        checkNotNull( emptyGraph, "Impossible to journal a null Graph" );
+        checkArgument( emptyGraph.getOrder() == 0, "Changes can only be replayed into an empty Graph" );
+        checkArgument( checkpointBytes > 0, "Checkpoint size must be positive, %s is not valid", checkpointBytes );
+        if ( !directory.isDirectory() && !directory.mkdirs() )
+        {
+            throw new IOException( "Journal directory " + directory + " cannot be created" );
+        }
+
+        G graph = emptyGraph;
+        long sequence = 0;
+        File snapshot = new File( directory, SNAPSHOT_FILE );
+        if ( !snapshot.exists() )
+        {
+            // a crash while a checkpoint was replacing the snapshot, before the new one was renamed in place
+            snapshot = new File( directory, PREVIOUS_SNAPSHOT_FILE );
+        }
+        if ( snapshot.exists() )
+        {
+            final ObjectInputStream in =
+                new ObjectInputStream( new BufferedInputStream( new FileInputStream( snapshot ) ) );
+            try
+            {
+                checkHeader( in.readInt(), in.readInt(), snapshot );
+                sequence = in.readLong();
+                @SuppressWarnings( "unchecked" ) // the snapshot has been written by a journal of the same type
+                G restored = (G) in.readObject();
+                graph = restored;
+            }
+            catch ( ClassNotFoundException e )
+            {
+                throw new GraphException( "Snapshot %s cannot be restored", e, snapshot );
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+
+        return new GraphJournal<V, E, G>( directory, graph, sequence, groupSize, checkpointBytes );
+    }
+
+    private GraphJournal( File directory, G graph, long snapshotSequence, int groupSize, long checkpointBytes )
+        throws IOException
+    {
+        this.directory = directory;
+        this.graph = graph;
+        this.checkpointBytes = checkpointBytes;
+        sequence = snapshotSequence;
+
+        logFile = new RandomAccessFile( new File( directory, LOG_FILE ), "rw" );
+        log = logFile.getChannel();
+        try
+        {
+            replay();
+        }
+        catch ( IOException e )
+        {
+            logFile.close();
+            throw e;
+        }
+        catch ( RuntimeException e )
+        {
+            logFile.close();
+            throw e;
+        }
+
+        // changes are recorded only once the graph has been restored
+        pending = new GraphChangeBuffer<V, E>( groupSize, new GraphChangeBatchListener<V, E>()
+        {
+
+            public void changed( GraphChangeBuffer<V, E> batch )
+            {
+                append( batch );
+            }
+
+        } );
+        graph.addGraphChangeListener( pending );
+    }
+
+    /**
+     * Returns the journaled graph, whose changes are logged.
+     *
+     * @return the journaled graph
+     */
+    public G getGraph()
+    {
+        return graph;
+    }
+
+    /**
+     * Makes all the changes applied so far durable, writing a snapshot too if the log grew past the checkpoint size.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void commit()
+        throws IOException
+    {
+        flushPending();
+
+        if ( log.size() > checkpointBytes )
+        {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes a full snapshot of the graph, replacing the previous one, and rotates the log.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void checkpoint()
+        throws IOException
+    {
+        flushPending();
+
+        final File temporary = new File( directory, SNAPSHOT_FILE + ".tmp" );
+        final FileOutputStream file = new FileOutputStream( temporary );
+        try
+        {
+            final ObjectOutputStream out = new ObjectOutputStream( new BufferedOutputStream( file ) );
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeLong( sequence );
+            out.writeObject( graph );
+            out.flush();
+            file.getFD().sync();
+        }
+        finally
+        {
+            file.close();
+        }
+
+        final File snapshot = new File( directory, SNAPSHOT_FILE );
+        // renaming over an existing file is atomic where supported, other platforms need the target to be moved aside
+        // first: the previous snapshot is kept, and restored by open, until the new one is in place
+        if ( !temporary.renameTo( snapshot ) )
+        {
+            final File previous = new File( directory, PREVIOUS_SNAPSHOT_FILE );
+            previous.delete();
+            if ( !snapshot.renameTo( previous ) || !temporary.renameTo( snapshot ) )
+            {
+                throw new IOException( "Snapshot " + temporary + " cannot be renamed to " + snapshot );
+            }
+            previous.delete();
+        }
+
+        rotateLog();
+    }
+
+    /**
+     * Commits the pending changes and closes the log; the graph changes are not journaled anymore.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            if ( failure == null )
+            {
+                flushPending();
+            }
+        }
+        finally
+        {
+            graph.removeGraphChangeListener( pending );
+            writer.shutdown();
+            logFile.close();
+        }
+        checkHealthy();
+    }
+
+    /**
+     * Hands the input batch over to the writer thread, once the previous frame has been written, so that serializing
+     * and forcing a group to the disk overlap with the changes of the next one.
+     */
+    private void append( GraphChangeBuffer<V, E> batch )
+    {
+        awaitWrite();
+
+        // the batch storage is recycled as soon as this method returns
+        final byte[] changes = new byte[batch.size()];
+        final Object[] elements = new Object[batch.size() * 3];
+        for ( int i = 0; i < changes.length; i++ )
+        {
+            changes[i] = (byte) batch.getChange( i ).ordinal();
+            elements[i * 3] = batch.getHead( i );
+            elements[i * 3 + 1] = batch.getEdge( i );
+            elements[i * 3 + 2] = batch.getTail( i );
+        }
+
+        final long frameSequence = ++sequence;
+        inFlight = writer.submit( new Runnable()
+        {
+
+            public void run()
+            {
+                try
+                {
+                    writeFrame( frameSequence, changes, elements );
+                }
+                catch ( IOException e )
+                {
+                    failure = e;
+                }
+            }
+
+        } );
+    }
+
+    /**
+     * Waits for the frame being written, if any, failing if it could not be written.
+     */
+    private void awaitWrite()
+    {
+        if ( inFlight != null )
+        {
+            try
+            {
+                inFlight.get();
+                inFlight = null;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new GraphException( "Interrupted while waiting for the journal log to be written", e );
+            }
+            catch ( ExecutionException e )
+            {
+                failure = new IOException( "Graph changes cannot be written to the journal", e.getCause() );
+            }
+        }
+
+        if ( failure != null )
+        {
+            // the graph has already been changed, the journal cannot keep track of it anymore
+            throw new GraphException( "The journal failed writing the log, Graph changes are not recorded", failure );
+        }
+    }
+
+    /**
+     * Writes the input changes as a single frame and forces it to the disk, on the writer thread.
+     */
+    private void writeFrame( long frameSequence, byte[] changes, Object[] elements )
+        throws IOException
+    {
+        frame.reset();
+        final ObjectOutputStream out = new ObjectOutputStream( frame );
+        out.writeInt( changes.length );
+        for ( int i = 0; i < changes.length; i++ )
+        {
+            out.writeByte( changes[i] );
+            switch ( CHANGES[changes[i]] )
+            {
+                case EDGE_ADDED:
+                    out.writeObject( elements[i * 3] );
+                    out.writeObject( elements[i * 3 + 1] );
+                    out.writeObject( elements[i * 3 + 2] );
+                    break;
+
+                case EDGE_REMOVED:
+                    out.writeObject( elements[i * 3 + 1] );
+                    break;
+
+                default:
+                    out.writeObject( elements[i * 3] );
+                    break;
+            }
+        }
+        out.close();
+
+        final byte[] payload = frame.toByteArray();
+        final CRC32 checksum = new CRC32();
+        checksum.update( payload );
+        final ByteBuffer header = ByteBuffer.allocate( FRAME_HEADER_LENGTH );
+        header.putInt( payload.length ).putLong( frameSequence ).putInt( (int) checksum.getValue() ).flip();
+
+        final long position = log.size();
+        write( header, position );
+        write( ByteBuffer.wrap( payload ), position + FRAME_HEADER_LENGTH );
+        log.force( false );
+    }
+
+    /**
+     * Moves the log, whose frames are all covered by the snapshot just written, aside and starts a new one; the log
+     * moved aside by the previous checkpoint is deleted, as the previous snapshot has been in place since then.
+     */
+    private void rotateLog()
+        throws IOException
+    {
+        final File file = new File( directory, LOG_FILE );
+        final File previous = new File( directory, PREVIOUS_LOG_FILE );
+        if ( previous.exists() && !previous.delete() )
+        {
+            throw new IOException( "Log " + previous + " cannot be deleted" );
+        }
+
+        // open files cannot be renamed on some platforms
+        logFile.close();
+        final boolean rotated = file.renameTo( previous );
+        logFile = new RandomAccessFile( file, "rw" );
+        log = logFile.getChannel();
+        if ( !rotated )
+        {
+            throw new IOException( "Log " + file + " cannot be renamed to " + previous );
+        }
+        writeLogHeader();
+    }
+
+    private void writeLogHeader()
+        throws IOException
+    {
+        final ByteBuffer header = ByteBuffer.allocate( LOG_HEADER_LENGTH );
+        header.putInt( MAGIC ).putInt( VERSION ).flip();
+        log.truncate( 0 );
+        write( header, 0 );
+        log.force( true );
+    }
+
+    /**
+     * Replays the valid frames following the snapshot, from the log rotated by the last checkpoint, if any, and from
+     * the current log, then truncates the current log after its last valid frame.
+     */
+    private void replay()
+        throws IOException
+    {
+        final File previousFile = new File( directory, PREVIOUS_LOG_FILE );
+        if ( previousFile.exists() )
+        {
+            // frames covered by the snapshot, unless the last checkpoint did not survive a crash
+            final RandomAccessFile previous = new RandomAccessFile( previousFile, "r" );
+            try
+            {
+                replay( previous.getChannel(), previousFile );
+            }
+            finally
+            {
+                previous.close();
+            }
+        }
+
+        if ( log.size() < LOG_HEADER_LENGTH )
+        {
+            writeLogHeader();
+            return;
+        }
+
+        // drops the torn frame, if any, so that new frames are appended after the last valid one
+        log.truncate( replay( log, new File( directory, LOG_FILE ) ) );
+        log.force( true );
+    }
+
+    /**
+     * Replays the valid frames of the input log following the snapshot and the already replayed frames.
+     *
+     * @return the position following the last valid frame
+     */
+    private long replay( FileChannel channel, File file )
+        throws IOException
+    {
+        final ByteBuffer logHeader = read( channel, 0, LOG_HEADER_LENGTH );
+        checkHeader( logHeader.getInt(), logHeader.getInt(), file );
+
+        long position = LOG_HEADER_LENGTH;
+        while ( position + FRAME_HEADER_LENGTH <= channel.size() )
+        {
+            final ByteBuffer header = read( channel, position, FRAME_HEADER_LENGTH );
+            final int length = header.getInt();
+            final long frameSequence = header.getLong();
+            final int expectedChecksum = header.getInt();
+            if ( length < 0 || position + FRAME_HEADER_LENGTH + length > channel.size() )
+            {
+                break;
+            }
+
+            final byte[] payload = read( channel, position + FRAME_HEADER_LENGTH, length ).array();
+            final CRC32 checksum = new CRC32();
+            checksum.update( payload );
+            if ( (int) checksum.getValue() != expectedChecksum )
+            {
+                break;
+            }
+
+            if ( frameSequence > sequence )
+            {
+                apply( payload, file );
+            }
+            sequence = Math.max( sequence, frameSequence );
+            position += FRAME_HEADER_LENGTH + length;
+        }
+        return position;
+    }
+
+    @SuppressWarnings( "unchecked" ) // frames have been written by a journal of the same type
+    private void apply( byte[] payload, File file )
+        throws IOException
+    {
+        final ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( payload ) );
+        try
+        {
+            final int size = in.readInt();
+            for ( int i = 0; i < size; i++ )
+            {
+                switch ( CHANGES[in.readByte()] )
+                {
+                    case VERTEX_ADDED:
+                        graph.addVertex( (V) in.readObject() );
+                        break;
+
+                    case VERTEX_REMOVED:
+                        graph.removeVertex( (V) in.readObject() );
+                        break;
+
+                    case EDGE_ADDED:
+                        graph.addEdge( (V) in.readObject(), (E) in.readObject(), (V) in.readObject() );
+                        break;
+
+                    default:
+                        graph.removeEdge( (E) in.readObject() );
+                        break;
+                }
+            }
+        }
+        catch ( ClassNotFoundException e )
+        {
+            throw new GraphException( "Log %s cannot be replayed", e, file );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static ByteBuffer read( FileChannel channel, long position, int length )
+        throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate( length );
+        while ( buffer.hasRemaining() )
+        {
+            if ( channel.read( buffer, position + buffer.position() ) < 0 )
+            {
+                throw new IOException( "Unexpected end of the journal log" );
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void write( ByteBuffer buffer, long position )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            log.write( buffer, position + buffer.position() );
+        }
+    }
+
+    private void flushPending()
+        throws IOException
+    {
+        checkHealthy();
+        try
+        {
+            pending.flush();
+            awaitWrite();
+        }
+        catch ( GraphException e )
+        {
+            // write failures are reported as such
+            checkHealthy();
+            throw e;
+        }
+    }
+
+    private void checkHealthy()
+        throws IOException
+    {
+        if ( failure != null )
+        {
+            throw new IOException( "The journal failed writing the log and cannot be used anymore", failure );
+        }
+    }
+
+    private static void checkHeader( int magic, int version, File file )
+    {
+        if ( magic != MAGIC || version != VERSION )
+        {
+            throw new GraphException( "%s is not a version %s Graph journal file", file, VERSION );
+        }
+    }
+
+}
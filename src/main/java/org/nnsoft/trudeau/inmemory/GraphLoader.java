@@ -0,0 +1,301 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.nnsoft.trudeau.api.GraphException;
+
+/**
+ * Loads large graphs faster than repeated {@link BaseMutableGraph#addEdge(Object, Object, Object)} calls: the storage
+ * is presized to the expected number of vertices and edges, per edge checks are reduced to plain comparisons, or to
+ * one validation per batch of edges, the adjacency lists are created once the degrees are known and parallel edges
+ * are detected once, when the graph is built.
+ *
+ * Built graphs are identical to the ones obtained adding the same vertices and edges, in the same order, one by one.
+ * A loader builds a single graph and cannot be used anymore once it failed.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class GraphLoader<V, E>
+{
+
+    private DenseGraphStore<V, E> store;
+
+    /**
+     * Creates a new loader, presized to hold the expected number of vertices and edges.
+     *
+     * @param expectedOrder the expected number of vertices
+     * @param expectedSize the expected number of edges
+     */
+    public GraphLoader( int expectedOrder, int expectedSize )
+    {
+        store = new DenseGraphStore<V, E>( false, expectedOrder, expectedSize );
+    }
+
+    /**
+     * Adds the input vertex.
+     *
+     * @param v the vertex to add
+     * @return this loader
+     */
+    public GraphLoader<V, E> addVertex( V v )
+    {
+        final DenseGraphStore<V, E> store = open();
+        if ( v == null )
+        {
+            fail( "Impossible to add a null Vertex to the Graph" );
+        }
+
+        final int order = store.order();
+        store.internVertex( v );
+        if ( store.order() == order )
+        {
+            fail( "Vertex '%s' already present in the Graph", v );
+        }
+        return this;
+    }
+
+    /**
+     * Adds all the input vertices.
+     *
+     * @param vertices the vertices to add
+     * @return this loader
+     */
+    public GraphLoader<V, E> addVertices( Iterable<? extends V> vertices )
+    {
+        for ( V v : vertices )
+        {
+            addVertex( v );
+        }
+        return this;
+    }
+
+    /**
+     * Adds the input edge, connecting vertices already added to this loader.
+     *
+     * @param head the head vertex
+     * @param e the edge to add
+     * @param tail the tail vertex
+     * @return this loader
+     */
+    public GraphLoader<V, E> addEdge( V head, E e, V tail )
+    {
+        final DenseGraphStore<V, E> store = open();
+        if ( e == null )
+        {
+            fail( "Impossible to add a null Edge in the Graph" );
+        }
+
+        final int headId = store.vertexId( head );
+        if ( headId < 0 )
+        {
+            fail( "Head Vertex '%s' not present in the Graph", head );
+        }
+        final int tailId = store.vertexId( tail );
+        if ( tailId < 0 )
+        {
+            fail( "Tail Vertex '%s' not present in the Graph", tail );
+        }
+
+        addEdge( headId, e, tailId );
+        return this;
+    }
+
+    /**
+     * Adds a batch of {@code (head, edge, tail)} triples, given as three lists of the same size, connecting vertices
+     * already added to this loader. The whole batch is validated before any edge is added, so per edge checks are
+     * left to the duplicate edges detection only.
+     *
+     * @param heads the head vertices
+     * @param edges the edges to add
+     * @param tails the tail vertices
+     * @return this loader
+     */
+    public GraphLoader<V, E> addEdges( List<? extends V> heads, List<? extends E> edges, List<? extends V> tails )
+    {
+        final DenseGraphStore<V, E> store = open();
+        if ( heads == null || edges == null || tails == null )
+        {
+            fail( "Impossible to add a null batch of Edges in the Graph" );
+        }
+        if ( heads.size() != edges.size() || tails.size() != edges.size() )
+        {
+            fail( "Batch of %s heads, %s edges and %s tails is not made of triples", heads.size(), edges.size(),
+                  tails.size() );
+        }
+
+        final int[] endpoints = new int[edges.size() << 1];
+        for ( int i = 0; i < edges.size(); i++ )
+        {
+            final E e = edges.get( i );
+            final int head = store.vertexId( heads.get( i ) );
+            final int tail = store.vertexId( tails.get( i ) );
+            if ( e == null || head < 0 || tail < 0 )
+            {
+                fail( "Edge %s at batch position %s is null or connects vertices not present in the Graph", e, i );
+            }
+            endpoints[i << 1] = head;
+            endpoints[( i << 1 ) + 1] = tail;
+        }
+
+        for ( int i = 0; i < edges.size(); i++ )
+        {
+            addEdge( endpoints[i << 1], edges.get( i ), endpoints[( i << 1 ) + 1] );
+        }
+        return this;
+    }
+
+    /**
+     * Adds the input vertex, if not already added, and returns its identifier.
+     *
+     * @param v the vertex to add
+     * @return the identifier of the input vertex
+     */
+    int internVertex( V v )
+    {
+        return open().internVertex( v );
+    }
+
+    /**
+     * Adds the input edge, connecting the vertices identified by the input identifiers.
+     *
+     * @param head the head vertex identifier
+     * @param e the edge to add
+     * @param tail the tail vertex identifier
+     */
+    void addEdge( int head, E e, int tail )
+    {
+        final DenseGraphStore<V, E> store = open();
+        final int size = store.size();
+        store.addEdge( head, e, tail );
+        if ( store.size() == size )
+        {
+            // the endpoints of the already present edge have been overwritten
+            fail( "Edge %s is already present in the Graph", e );
+        }
+    }
+
+    /**
+     * Builds the directed graph made of the loaded vertices and edges.
+     *
+     * @return the directed graph made of the loaded vertices and edges
+     */
+    public DirectedMutableGraph<V, E> buildDirected()
+    {
+        final DenseGraphStore<V, E> store = open();
+        final int[] outDegrees = new int[store.vertexBound()];
+        final int[] inDegrees = new int[store.vertexBound()];
+        for ( int edge = 0; edge < store.size(); edge++ )
+        {
+            outDegrees[store.head( edge )]++;
+            inDegrees[store.tail( edge )]++;
+        }
+        for ( int id = 0; id < outDegrees.length; id++ )
+        {
+            store.reserveArcs( id, outDegrees[id], inDegrees[id] );
+        }
+
+        // edges identifiers of a new storage are compact, in insertion order
+        for ( int edge = 0; edge < store.size(); edge++ )
+        {
+            store.addArc( store.head( edge ), edge, store.tail( edge ) );
+            store.addInboundArc( store.tail( edge ), edge, store.head( edge ) );
+        }
+        checkNoParallelEdges();
+        return new DirectedMutableGraph<V, E>( store );
+    }
+
+    /**
+     * Builds the undirected graph made of the loaded vertices and edges.
+     *
+     * @return the undirected graph made of the loaded vertices and edges
+     */
+    public UndirectedMutableGraph<V, E> buildUndirected()
+    {
+        final DenseGraphStore<V, E> store = open();
+        final int[] degrees = new int[store.vertexBound()];
+        for ( int edge = 0; edge < store.size(); edge++ )
+        {
+            degrees[store.head( edge )]++;
+            if ( store.head( edge ) != store.tail( edge ) )
+            {
+                degrees[store.tail( edge )]++;
+            }
+        }
+        for ( int id = 0; id < degrees.length; id++ )
+        {
+            store.reserveArcs( id, degrees[id], 0 );
+        }
+
+        for ( int edge = 0; edge < store.size(); edge++ )
+        {
+            final int head = store.head( edge );
+            final int tail = store.tail( edge );
+            store.addArc( head, edge, tail );
+            // self loops are connected once
+            if ( head != tail )
+            {
+                store.addArc( tail, edge, head );
+            }
+        }
+        checkNoParallelEdges();
+        return new UndirectedMutableGraph<V, E>( store );
+    }
+
+    /**
+     * Verifies, once all the arcs are in place, that no vertex is connected twice to the same vertex.
+     */
+    private void checkNoParallelEdges()
+    {
+        for ( int id = 0; id < store.vertexBound(); id++ )
+        {
+            final int[] neighbors = store.neighbors( id );
+            Arrays.sort( neighbors );
+            for ( int i = 1; i < neighbors.length; i++ )
+            {
+                if ( neighbors[i] == neighbors[i - 1] )
+                {
+                    fail( "Vertices '%s' and '%s' are connected by more than one Edge", store.vertex( id ),
+                          store.vertex( neighbors[i] ) );
+                }
+            }
+        }
+        // the storage now belongs to the built graph
+        store = null;
+    }
+
+    private DenseGraphStore<V, E> open()
+    {
+        if ( store == null )
+        {
+            throw new GraphException( "The loader already built a graph or failed" );
+        }
+        return store;
+    }
+
+    private void fail( String messageTemplate, Object...messageArgs )
+    {
+        store = null;
+        throw new GraphException( messageTemplate, messageArgs );
+    }
+
+}
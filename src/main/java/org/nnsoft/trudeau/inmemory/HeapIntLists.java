@@ -0,0 +1,122 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * {@link IntLists} implementation where each list is an {@link IntList} on the heap.
+ *
+ * This class is NOT thread safe!
+ */
+final class HeapIntLists
+    extends IntLists
+{
+
+    private static final long serialVersionUID = 8460883563939596216L;
+
+    private IntList[] lists = new IntList[16];
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void create( int list, int capacity )
+    {
+        if ( list >= lists.length )
+        {
+            lists = Arrays.copyOf( lists, Math.max( list + 1, lists.length << 1 ) );
+        }
+        lists[list] = new IntList( capacity );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void release( int list )
+    {
+        if ( list < lists.length )
+        {
+            lists[list] = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean exists( int list )
+    {
+        return list < lists.length && lists[list] != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int size( int list )
+    {
+        return lists[list].size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int get( int list, int index )
+    {
+        return lists[list].get( index );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set( int list, int index, int value )
+    {
+        lists[list].set( index, value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void add( int list, int value )
+    {
+        lists[list].add( value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void remove( int list, int index, int count )
+    {
+        lists[list].remove( index, count );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void close()
+    {
+        lists = new IntList[0];
+    }
+
+}
@@ -0,0 +1,343 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing dictionary that assigns a dense {@code int} identifier to each added element, so that graph
+ * structures can be stored as primitive arrays indexed by identifier. Identifiers of removed elements are recycled by
+ * later additions, keeping the identifiers space compact.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <T> the dictionary elements type
+ */
+final class IdDictionary<T>
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 4325716592386474389L;
+
+    private static final int FREE = -1;
+
+    private Object[] elements;
+
+    private int bound;
+
+    private int size;
+
+    private final IntList recycled = new IntList();
+
+    private transient int[] hashes;
+
+    private transient int[] slots;
+
+    private transient int mask;
+
+    /**
+     * Creates a new dictionary presized to hold {@code expectedSize} elements without rehashing.
+     *
+     * @param expectedSize the expected number of elements
+     */
+    IdDictionary( int expectedSize )
+    {
+        elements = new Object[Math.max( expectedSize, 4 )];
+        hashes = new int[elements.length];
+        allocateSlots( elements.length << 1 );
+    }
+
+    /**
+     * Adds the input element, if not already present, and returns its identifier.
+     *
+     * @param element the element to add
+     * @return the identifier of the input element
+     */
+    int add( T element )
+    {
+        final int hash = spread( element.hashCode() );
+        int slot = hash & mask;
+        for ( int id = slots[slot]; id != FREE; id = slots[slot] )
+        {
+            if ( hashes[id] == hash && element.equals( elements[id] ) )
+            {
+                return id;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+
+        final int id;
+        if ( recycled.isEmpty() )
+        {
+            if ( bound == elements.length )
+            {
+                elements = Arrays.copyOf( elements, bound << 1 );
+                hashes = Arrays.copyOf( hashes, bound << 1 );
+            }
+            id = bound++;
+        }
+        else
+        {
+            id = recycled.removeLast();
+        }
+
+        elements[id] = element;
+        hashes[id] = hash;
+        slots[slot] = id;
+
+        if ( ++size << 1 > slots.length )
+        {
+            allocateSlots( slots.length << 1 );
+        }
+        return id;
+    }
+
+    /**
+     * Returns the identifier of the input element, {@code -1} if the element is not in the dictionary.
+     *
+     * @param element the element to look up
+     * @return the identifier of the input element, {@code -1} if not found
+     */
+    int idOf( Object element )
+    {
+        if ( element == null )
+        {
+            return FREE;
+        }
+
+        final int hash = spread( element.hashCode() );
+        int slot = hash & mask;
+        for ( int id = slots[slot]; id != FREE; id = slots[slot] )
+        {
+            if ( hashes[id] == hash && ( element == elements[id] || element.equals( elements[id] ) ) )
+            {
+                return id;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * Returns the element identified by the input identifier, null if the identifier is not in use.
+     *
+     * @param id the element identifier
+     * @return the element identified by the input identifier
+     */
+    @SuppressWarnings( "unchecked" ) // only T instances are stored
+    T get( int id )
+    {
+        return (T) elements[id];
+    }
+
+    /**
+     * Removes the element identified by the input identifier, making the identifier available for recycling.
+     *
+     * @param id the identifier of the element to remove
+     */
+    void remove( int id )
+    {
+        int hole = hashes[id] & mask;
+        while ( slots[hole] != id )
+        {
+            hole = ( hole + 1 ) & mask;
+        }
+
+        // backward shift deletion, no tombstones are left in the table
+        for ( int next = ( hole + 1 ) & mask; slots[next] != FREE; next = ( next + 1 ) & mask )
+        {
+            int ideal = hashes[slots[next]] & mask;
+            if ( ( ( next - ideal ) & mask ) >= ( ( next - hole ) & mask ) )
+            {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = FREE;
+
+        elements[id] = null;
+        recycled.add( id );
+        size--;
+    }
+
+    /**
+     * Returns the number of elements in this dictionary.
+     *
+     * @return the number of elements in this dictionary
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the upper bound, exclusive, of the identifiers assigned so far.
+     *
+     * @return the upper bound, exclusive, of the identifiers assigned so far
+     */
+    int bound()
+    {
+        return bound;
+    }
+
+    /**
+     * Returns a read-only view of the elements in this dictionary, in identifiers order.
+     *
+     * @return a read-only view of the elements in this dictionary
+     */
+    Iterable<T> elements()
+    {
+        return new Iterable<T>()
+        {
+
+            public Iterator<T> iterator()
+            {
+                return new ElementsIterator( 0, -1 );
+            }
+
+        };
+    }
+
+    /**
+     * Returns a read-only view of the elements identified by the input identifiers range, in identifiers order.
+     *
+     * @param from the lowest identifier of the range, inclusive
+     * @param to the highest identifier of the range, exclusive
+     * @return a read-only view of the elements identified by the input identifiers range
+     */
+    Iterable<T> elements( final int from, final int to )
+    {
+        return new Iterable<T>()
+        {
+
+            public Iterator<T> iterator()
+            {
+                return new ElementsIterator( from, to );
+            }
+
+        };
+    }
+
+    private void allocateSlots( int minimumCapacity )
+    {
+        int capacity = Integer.highestOneBit( Math.max( minimumCapacity, 4 ) - 1 ) << 1;
+        slots = new int[capacity];
+        Arrays.fill( slots, FREE );
+        mask = capacity - 1;
+
+        for ( int id = 0; id < bound; id++ )
+        {
+            if ( elements[id] != null )
+            {
+                int slot = hashes[id] & mask;
+                while ( slots[slot] != FREE )
+                {
+                    slot = ( slot + 1 ) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        // element hash codes are not guaranteed to be stable across JVMs
+        hashes = new int[elements.length];
+        for ( int id = 0; id < bound; id++ )
+        {
+            if ( elements[id] != null )
+            {
+                hashes[id] = spread( elements[id].hashCode() );
+            }
+        }
+        allocateSlots( size << 1 );
+    }
+
+    /**
+     * Spreads the bits of the input hash code, so that sequential hash codes do not cluster in the slots table.
+     *
+     * @param hashCode the hash code to spread
+     * @return the spread hash code
+     */
+    static int spread( int hashCode )
+    {
+        final int h = hashCode * 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+
+    private final class ElementsIterator
+        implements Iterator<T>
+    {
+
+        // negative when the range is open, following the bound as elements are added
+        private final int to;
+
+        private int next;
+
+        ElementsIterator( int from, int to )
+        {
+            this.to = to;
+            next = advance( from );
+        }
+
+        public boolean hasNext()
+        {
+            return next < end();
+        }
+
+        public T next()
+        {
+            if ( next >= end() )
+            {
+                throw new NoSuchElementException();
+            }
+            T element = get( next );
+            next = advance( next + 1 );
+            return element;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private int advance( int from )
+        {
+            int id = from;
+            while ( id < end() && elements[id] == null )
+            {
+                id++;
+            }
+            return id;
+        }
+
+        private int end()
+        {
+            return to < 0 ? bound : Math.min( to, bound );
+        }
+
+    }
+
+}
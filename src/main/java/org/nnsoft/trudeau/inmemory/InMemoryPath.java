@@ -17,17 +17,17 @@ package org.nnsoft.trudeau.inmemory;
  */
 
 import static java.lang.String.format;
-import static java.util.Arrays.asList;
-import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.singletonList;
 import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
 import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
 import static org.nnsoft.trudeau.utils.Objects.eq;
 import static org.nnsoft.trudeau.utils.Objects.hash;
 
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.nnsoft.trudeau.api.Path;
 import org.nnsoft.trudeau.api.VertexPair;
@@ -36,6 +36,12 @@ import org.nnsoft.trudeau.api.VertexPair;
  * Support {@link Path} implementation, optimized for algorithms (such Dijkstra's) that need to rebuild the path
  * traversing the predecessor list bottom-up.
  *
+ * Vertices and edges are kept in arrays that grow at either end, where the {@code i}-th edge connects the
+ * {@code i}-th vertex to the next one; the indexes answering lookups by vertex and by edge are built on first
+ * lookup only, since most paths are just iterated.
+ *
+ * This class is NOT thread safe!
+ *
  * @param <V> the Graph vertices type
  * @param <E> the Graph edges type
  */
@@ -43,21 +49,20 @@ public class InMemoryPath<V, E>
     implements Path<V, E>
 {
 
-    private static final long serialVersionUID = -7248626031673230570L;
+    private static final long serialVersionUID = 3045866157352905017L;
 
     private final V source;
 
     private final V target;
 
-    private final LinkedList<V> vertices = new LinkedList<V>();
-
-    private final LinkedList<E> edges = new LinkedList<E>();
+    private final ArraySequence<V> vertices = new ArraySequence<V>();
 
-    private final Map<V, V> successors = new HashMap<V, V>();
+    private final ArraySequence<E> edges = new ArraySequence<E>();
 
-    private final Map<VertexPair<V>, E> indexedEdges = new HashMap<VertexPair<V>, E>();
+    // positions of vertices and edges in the sequences, null until the first lookup and after each change
+    private transient Map<V, Integer> vertexPositions;
 
-    private final Map<E, VertexPair<V>> indexedVertices = new HashMap<E, VertexPair<V>>();
+    private transient Map<E, Integer> edgePositions;
 
     /**
      * Creates a new instance of {@link InMemoryPath} from {@code start} vertex to {@code taget} vertex
@@ -91,7 +96,7 @@ public class InMemoryPath<V, E>
      */
     public Iterable<V> getVertices()
     {
-        return unmodifiableList( vertices );
+        return vertices;
     }
 
     /**
@@ -119,7 +124,7 @@ public class InMemoryPath<V, E>
         vertices.addFirst( head );
         edges.addFirst( edge );
 
-        addConnection( head, edge, tail );
+        invalidatePositions();
     }
 
     /**
@@ -139,16 +144,7 @@ public class InMemoryPath<V, E>
             vertices.addLast( tail );
         }
 
-        addConnection( head, edge, tail );
-    }
-
-    private void addConnection( V head, E edge, V tail )
-    {
-        successors.put( head, tail );
-
-        VertexPair<V> vertexPair = new VertexPair<V>( head, tail );
-        indexedEdges.put( vertexPair, edge );
-        indexedVertices.put( edge, vertexPair );
+        invalidatePositions();
     }
 
     /**
@@ -156,7 +152,7 @@ public class InMemoryPath<V, E>
      */
     public Iterable<E> getEdges()
     {
-        return unmodifiableList( edges );
+        return edges;
     }
 
     /**
@@ -173,7 +169,7 @@ public class InMemoryPath<V, E>
     public int getDegree( V v )
     {
         v = checkNotNull( v, "Impossible to get the degree of a null vertex" );
-        checkArgument( successors.containsKey( v ),
+        checkArgument( headPosition( v ) >= 0,
                        "Impossible to get the degree of input vertex; %s not contained in this path", v );
 
         if ( source.equals( v ) || target.equals( v ) )
@@ -196,12 +192,11 @@ public class InMemoryPath<V, E>
             return null;
         }
 
-        checkArgument( successors.containsKey( v ),
+        final int position = headPosition( v );
+        checkArgument( position >= 0,
                        "Impossible to get the degree of input vertex; %s not contained in this path", v );
 
-        @SuppressWarnings( "unchecked" ) // type driven by input type
-        List<V> connected = asList( successors.get( v ) );
-        return connected;
+        return singletonList( tailOf( position ) );
     }
 
     /**
@@ -209,7 +204,12 @@ public class InMemoryPath<V, E>
      */
     public E getEdge( V source, V target )
     {
-        return indexedEdges.get( new VertexPair<V>( source, target ) );
+        final int position = headPosition( source );
+        if ( position < 0 || !eq( target, tailOf( position ) ) )
+        {
+            return null;
+        }
+        return edges.get( position );
     }
 
     /**
@@ -217,7 +217,12 @@ public class InMemoryPath<V, E>
      */
     public VertexPair<V> getVertices( E e )
     {
-        return indexedVertices.get( e );
+        final Integer position = edgePositions().get( e );
+        if ( position == null )
+        {
+            return null;
+        }
+        return new VertexPair<V>( vertices.get( position ), tailOf( position ) );
     }
 
     /**
@@ -225,7 +230,7 @@ public class InMemoryPath<V, E>
      */
     public boolean containsVertex( V v )
     {
-        return vertices.contains( v );
+        return vertexPositions().containsKey( v );
     }
 
     /**
@@ -233,7 +238,48 @@ public class InMemoryPath<V, E>
      */
     public boolean containsEdge( E e )
     {
-        return edges.contains( e );
+        return edgePositions().containsKey( e );
+    }
+
+    /**
+     * Returns the position of the input vertex as head of one of the edges, -1 if it is not.
+     */
+    private int headPosition( V v )
+    {
+        final Integer position = vertexPositions().get( v );
+        return position == null || position >= edges.size() ? -1 : position;
+    }
+
+    /**
+     * Returns the tail of the edge at the input position, the target if the path misses it.
+     */
+    private V tailOf( int position )
+    {
+        return position + 1 < vertices.size() ? vertices.get( position + 1 ) : target;
+    }
+
+    private Map<V, Integer> vertexPositions()
+    {
+        if ( vertexPositions == null )
+        {
+            vertexPositions = vertices.positions();
+        }
+        return vertexPositions;
+    }
+
+    private Map<E, Integer> edgePositions()
+    {
+        if ( edgePositions == null )
+        {
+            edgePositions = edges.positions();
+        }
+        return edgePositions;
+    }
+
+    private void invalidatePositions()
+    {
+        vertexPositions = null;
+        edgePositions = null;
     }
 
     /**
@@ -279,4 +325,82 @@ public class InMemoryPath<V, E>
         return format( "InMemoryPath [vertices=%s, edges=%s]", vertices, edges );
     }
 
+    /**
+     * Read-only list view of an array which grows at either end, leaving free room on the side that filled up.
+     */
+    private static final class ArraySequence<T>
+        extends AbstractList<T>
+        implements RandomAccess, Serializable
+    {
+
+        private static final long serialVersionUID = 1725283069185812370L;
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private Object[] elements = new Object[0];
+
+        private int first;
+
+        private int size;
+
+        void addFirst( T element )
+        {
+            if ( first == 0 )
+            {
+                grow( true );
+            }
+            elements[--first] = element;
+            size++;
+        }
+
+        void addLast( T element )
+        {
+            if ( first + size == elements.length )
+            {
+                grow( false );
+            }
+            elements[first + size++] = element;
+        }
+
+        @SuppressWarnings( "unchecked" ) // only T instances are stored
+        @Override
+        public T get( int index )
+        {
+            if ( index < 0 || index >= size )
+            {
+                throw new IndexOutOfBoundsException( format( "Index %s out of bounds for size %s", index, size ) );
+            }
+            return (T) elements[first + index];
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        Map<T, Integer> positions()
+        {
+            final Map<T, Integer> positions = new HashMap<T, Integer>( size << 1 );
+            for ( int i = 0; i < size; i++ )
+            {
+                @SuppressWarnings( "unchecked" ) // only T instances are stored
+                T element = (T) elements[first + i];
+                positions.put( element, i );
+            }
+            return positions;
+        }
+
+        private void grow( boolean atFirst )
+        {
+            final Object[] grown = new Object[Math.max( INITIAL_CAPACITY, elements.length << 1 )];
+            // the free room goes where it ran out, paths are usually built from a single end
+            final int newFirst = atFirst ? grown.length - size : 0;
+            System.arraycopy( elements, first, grown, newFirst, size );
+            elements = grown;
+            first = newFirst;
+        }
+
+    }
+
 }
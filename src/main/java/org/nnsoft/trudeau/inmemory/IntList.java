@@ -0,0 +1,158 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive {@code int} values.
+ *
+ * This class is NOT thread safe!
+ */
+final class IntList
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -1361270779524372353L;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+
+    private int size;
+
+    /**
+     * Creates a new empty list.
+     */
+    IntList()
+    {
+        values = EMPTY;
+    }
+
+    /**
+     * Creates a new empty list, presized to hold {@code capacity} values without growing.
+     *
+     * @param capacity the initial capacity
+     */
+    IntList( int capacity )
+    {
+        values = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    /**
+     * Appends the input value at the end of this list.
+     *
+     * @param value the value to append
+     */
+    void add( int value )
+    {
+        if ( size == values.length )
+        {
+            values = Arrays.copyOf( values, Math.max( 4, size + ( size >> 1 ) ) );
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the input position.
+     *
+     * @param index the value position
+     * @return the value at the input position
+     */
+    int get( int index )
+    {
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at the input position.
+     *
+     * @param index the value position
+     * @param value the new value
+     */
+    void set( int index, int value )
+    {
+        values[index] = value;
+    }
+
+    /**
+     * Removes and returns the last value of this list.
+     *
+     * @return the last value of this list
+     */
+    int removeLast()
+    {
+        return values[--size];
+    }
+
+    /**
+     * Removes {@code count} values starting from the input position, preserving the order of the remaining ones.
+     *
+     * @param index the position of the first value to remove
+     * @param count the number of values to remove
+     */
+    void remove( int index, int count )
+    {
+        System.arraycopy( values, index + count, values, index, size - index - count );
+        size -= count;
+    }
+
+    /**
+     * Returns the number of values in this list.
+     *
+     * @return the number of values in this list
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Checks this list has no values.
+     *
+     * @return true, if this list has no values, false otherwise
+     */
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Ensures this list can hold {@code capacity} values without growing.
+     *
+     * @param capacity the minimum capacity
+     */
+    void ensureCapacity( int capacity )
+    {
+        if ( capacity > values.length )
+        {
+            values = Arrays.copyOf( values, capacity );
+        }
+    }
+
+    /**
+     * Returns a copy of the values of this list.
+     *
+     * @return a copy of the values of this list
+     */
+    int[] toArray()
+    {
+        return Arrays.copyOf( values, size );
+    }
+
+}
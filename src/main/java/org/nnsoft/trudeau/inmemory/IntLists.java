@@ -0,0 +1,115 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+
+/**
+ * Storage of many growable lists of {@code int} values, identified by dense {@code int} identifiers.
+ *
+ * Implementations are NOT thread safe!
+ */
+abstract class IntLists
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -3993386223640342720L;
+
+    /**
+     * Creates a new empty list identified by the input identifier, replacing the previous one, if any.
+     *
+     * @param list the list identifier
+     */
+    final void create( int list )
+    {
+        create( list, 0 );
+    }
+
+    /**
+     * Creates a new empty list identified by the input identifier, replacing the previous one, if any, presized to
+     * hold {@code capacity} values without growing.
+     *
+     * @param list the list identifier
+     * @param capacity the initial capacity
+     */
+    abstract void create( int list, int capacity );
+
+    /**
+     * Releases the list identified by the input identifier.
+     *
+     * @param list the list identifier
+     */
+    abstract void release( int list );
+
+    /**
+     * Checks a list is identified by the input identifier.
+     *
+     * @param list the list identifier
+     * @return true, if a list is identified by the input identifier, false otherwise
+     */
+    abstract boolean exists( int list );
+
+    /**
+     * Returns the number of values in the identified list.
+     *
+     * @param list the list identifier
+     * @return the number of values in the identified list
+     */
+    abstract int size( int list );
+
+    /**
+     * Returns the value at the input position of the identified list.
+     *
+     * @param list the list identifier
+     * @param index the value position
+     * @return the value at the input position
+     */
+    abstract int get( int list, int index );
+
+    /**
+     * Replaces the value at the input position of the identified list.
+     *
+     * @param list the list identifier
+     * @param index the value position
+     * @param value the new value
+     */
+    abstract void set( int list, int index, int value );
+
+    /**
+     * Appends the input value at the end of the identified list.
+     *
+     * @param list the list identifier
+     * @param value the value to append
+     */
+    abstract void add( int list, int value );
+
+    /**
+     * Removes {@code count} values of the identified list, starting from the input position and preserving the order
+     * of the remaining ones.
+     *
+     * @param list the list identifier
+     * @param index the position of the first value to remove
+     * @param count the number of values to remove
+     */
+    abstract void remove( int list, int index, int count );
+
+    /**
+     * Releases all the resources held by this storage, which cannot be used anymore.
+     */
+    abstract void close();
+
+}
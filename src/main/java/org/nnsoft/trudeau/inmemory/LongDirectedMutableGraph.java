@@ -0,0 +1,146 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+
+/**
+ * A memory-based implementation of a mutable directed Graph, specialized for primitive {@code long} vertices.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <E> the Graph edges type
+ */
+public class LongDirectedMutableGraph<E>
+    extends BaseLongMutableGraph<E>
+    implements DirectedGraph<Long, E>
+{
+
+    private static final long serialVersionUID = -1420905931012386155L;
+
+    /**
+     * Creates a new empty directed graph.
+     */
+    public LongDirectedMutableGraph()
+    {
+        super( true );
+    }
+
+    /**
+     * Returns the number of edges touching the input vertex.
+     *
+     * @param v the vertex
+     * @return the number of edges touching the input vertex
+     */
+    public final int getDegree( long v )
+    {
+        return getInDegree( v ) + getOutDegree( v );
+    }
+
+    /**
+     * Returns the number of edges entering in the input vertex.
+     *
+     * @param v the vertex
+     * @return the number of edges entering in the input vertex
+     */
+    public final int getInDegree( long v )
+    {
+        return getInbound( checkedSlot( v ) ).size();
+    }
+
+    /**
+     * Returns the number of edges leaving the input vertex.
+     *
+     * @param v the vertex
+     * @return the number of edges leaving the input vertex
+     */
+    public final int getOutDegree( long v )
+    {
+        return getOutbound( checkedSlot( v ) ).size();
+    }
+
+    /**
+     * Visits the vertices having an edge entering in the input vertex, without boxing them.
+     *
+     * @param v the vertex
+     * @param visitor the visitor notified with each inbound vertex
+     */
+    public final void forEachInbound( long v, LongVisitor visitor )
+    {
+        final LongList adjacency = getInbound( checkedSlot( v ) );
+        for ( int i = 0; i < adjacency.size(); i++ )
+        {
+            visitor.visit( adjacency.get( i ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getDegree( Long v )
+    {
+        return getInDegree( v ) + getOutDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getInDegree( Long v )
+    {
+        checkGraphCondition( v != null, "Vertex %s does not exist in the Graph", v );
+        return getInDegree( v.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<Long> getInbound( Long v )
+    {
+        checkGraphCondition( v != null, "Vertex %s does not exist in the Graph", v );
+        return new LongsIterable( getInbound( checkedSlot( v.longValue() ) ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOutDegree( Long v )
+    {
+        checkGraphCondition( v != null, "Vertex %s does not exist in the Graph", v );
+        return getOutDegree( v.longValue() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<Long> getOutbound( Long v )
+    {
+        return getConnectedVertices( v );
+    }
+
+    /**
+     * Creates an immutable, compressed-sparse-row based snapshot of this graph.
+     *
+     * @return an immutable snapshot of this graph
+     */
+    public FrozenDirectedGraph<Long, E> freeze()
+    {
+        return new FrozenDirectedGraph<Long, E>( this );
+    }
+
+}
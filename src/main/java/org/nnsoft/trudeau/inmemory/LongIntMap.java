@@ -0,0 +1,174 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive {@code long} keys to non negative {@code int} values.
+ *
+ * This class is NOT thread safe!
+ */
+final class LongIntMap
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -6271307962498342375L;
+
+    private static final int FREE = -1;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    /**
+     * Creates a new map presized to hold {@code expectedSize} entries without rehashing.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    LongIntMap( int expectedSize )
+    {
+        allocate( Integer.highestOneBit( Math.max( expectedSize << 1, 4 ) - 1 ) << 1 );
+    }
+
+    /**
+     * Returns the value associated to the input key, {@code -1} if the key is not in the map.
+     *
+     * @param key the key to look up
+     * @return the value associated to the input key, {@code -1} if not found
+     */
+    int get( long key )
+    {
+        for ( int slot = hash( key ) & mask; values[slot] != FREE; slot = ( slot + 1 ) & mask )
+        {
+            if ( keys[slot] == key )
+            {
+                return values[slot];
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * Associates the input value to the input key, replacing the previous association, if any.
+     *
+     * @param key the key
+     * @param value the non negative value
+     */
+    void put( long key, int value )
+    {
+        int slot = hash( key ) & mask;
+        while ( values[slot] != FREE && keys[slot] != key )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+
+        if ( values[slot] == FREE )
+        {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+
+        if ( size << 1 > values.length )
+        {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate( values.length << 1 );
+            for ( int i = 0; i < oldValues.length; i++ )
+            {
+                if ( oldValues[i] != FREE )
+                {
+                    int target = hash( oldKeys[i] ) & mask;
+                    while ( values[target] != FREE )
+                    {
+                        target = ( target + 1 ) & mask;
+                    }
+                    keys[target] = oldKeys[i];
+                    values[target] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the association of the input key.
+     *
+     * @param key the key to remove
+     * @return the value associated to the removed key, {@code -1} if the key was not in the map
+     */
+    int remove( long key )
+    {
+        int hole = hash( key ) & mask;
+        while ( values[hole] != FREE && keys[hole] != key )
+        {
+            hole = ( hole + 1 ) & mask;
+        }
+
+        final int removed = values[hole];
+        if ( removed == FREE )
+        {
+            return FREE;
+        }
+
+        // backward shift deletion, no tombstones are left in the table
+        for ( int next = ( hole + 1 ) & mask; values[next] != FREE; next = ( next + 1 ) & mask )
+        {
+            int ideal = hash( keys[next] ) & mask;
+            if ( ( ( next - ideal ) & mask ) >= ( ( next - hole ) & mask ) )
+            {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = FREE;
+        size--;
+
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     *
+     * @return the number of entries in this map
+     */
+    int size()
+    {
+        return size;
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill( values, FREE );
+        mask = capacity - 1;
+    }
+
+    static int hash( long key )
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) ( h ^ ( h >>> 32 ) );
+    }
+
+}
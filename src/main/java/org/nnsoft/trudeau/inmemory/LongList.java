@@ -0,0 +1,103 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive {@code long} values.
+ *
+ * This class is NOT thread safe!
+ */
+final class LongList
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 2916520473613960862L;
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values = EMPTY;
+
+    private int size;
+
+    /**
+     * Appends the input value at the end of this list.
+     *
+     * @param value the value to append
+     */
+    void add( long value )
+    {
+        if ( size == values.length )
+        {
+            values = Arrays.copyOf( values, Math.max( 4, size + ( size >> 1 ) ) );
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the input position.
+     *
+     * @param index the value position
+     * @return the value at the input position
+     */
+    long get( int index )
+    {
+        return values[index];
+    }
+
+    /**
+     * Returns the position of the first occurrence of the input value, {@code -1} if not found.
+     *
+     * @param value the value to look up
+     * @return the position of the first occurrence of the input value, {@code -1} if not found
+     */
+    int indexOf( long value )
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( values[i] == value )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the value at the input position, preserving the order of the remaining ones.
+     *
+     * @param index the position of the value to remove
+     */
+    void remove( int index )
+    {
+        System.arraycopy( values, index + 1, values, index, size - index - 1 );
+        size--;
+    }
+
+    /**
+     * Returns the number of values in this list.
+     *
+     * @return the number of values in this list
+     */
+    int size()
+    {
+        return size;
+    }
+
+}
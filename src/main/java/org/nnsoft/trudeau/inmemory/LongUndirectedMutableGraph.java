@@ -0,0 +1,75 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+
+import org.nnsoft.trudeau.api.UndirectedGraph;
+
+/**
+ * A memory-based implementation of a mutable undirected Graph, specialized for primitive {@code long} vertices.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <E> the Graph edges type
+ */
+public class LongUndirectedMutableGraph<E>
+    extends BaseLongMutableGraph<E>
+    implements UndirectedGraph<Long, E>
+{
+
+    private static final long serialVersionUID = 7606450386066127393L;
+
+    /**
+     * Creates a new empty undirected graph.
+     */
+    public LongUndirectedMutableGraph()
+    {
+        super( false );
+    }
+
+    /**
+     * Returns the number of vertices connected to the input vertex.
+     *
+     * @param v the vertex
+     * @return the number of vertices connected to the input vertex
+     */
+    public final int getDegree( long v )
+    {
+        return getOutbound( checkedSlot( v ) ).size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getDegree( Long v )
+    {
+        checkGraphCondition( v != null, "Vertex %s does not exist in the Graph", v );
+        return getDegree( v.longValue() );
+    }
+
+    /**
+     * Creates an immutable, compressed-sparse-row based snapshot of this graph.
+     *
+     * @return an immutable snapshot of this graph
+     */
+    public FrozenUndirectedGraph<Long, E> freeze()
+    {
+        return new FrozenUndirectedGraph<Long, E>( this );
+    }
+
+}
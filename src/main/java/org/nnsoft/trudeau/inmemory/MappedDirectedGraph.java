@@ -0,0 +1,103 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+
+/**
+ * A read-only, memory-mapped implementation of a directed Graph, served from a file written by
+ * {@link MappedGraphWriter}.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class MappedDirectedGraph<V, E>
+    extends BaseMappedGraph<V, E>
+    implements DirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = -5466914370392839561L;
+
+    /**
+     * Memory-maps the input directed graph file.
+     *
+     * @param file the file written by {@link MappedGraphWriter}
+     * @throws IOException if the file cannot be read or does not contain a directed graph
+     */
+    public MappedDirectedGraph( File file )
+        throws IOException
+    {
+        super( file, true );
+    }
+
+    /**
+     * Memory-maps the input directed graph file, in buffers of at most {@code 1 << mappingShift} bytes.
+     *
+     * @param file the file written by {@link MappedGraphWriter}
+     * @param mappingShift the base 2 logarithm of the maximum length of a mapped buffer
+     * @throws IOException if the file cannot be read or does not contain a directed graph
+     */
+    MappedDirectedGraph( File file, int mappingShift )
+        throws IOException
+    {
+        super( file, true, mappingShift );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDegree( V v )
+    {
+        return getInDegree( v ) + getOutDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getInDegree( V v )
+    {
+        return inboundSize( checkedVertexId( v ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getInbound( V v )
+    {
+        return inbound( checkedVertexId( v ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getOutDegree( V v )
+    {
+        return adjacencySize( checkedVertexId( v ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Iterable<V> getOutbound( V v )
+    {
+        return getConnectedVertices( v );
+    }
+
+}
@@ -0,0 +1,231 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+import org.nnsoft.trudeau.api.Graph;
+import org.nnsoft.trudeau.api.UndirectedGraph;
+
+/**
+ * Writes graphs in the versioned binary format that {@link MappedDirectedGraph} and {@link MappedUndirectedGraph}
+ * memory-map and query in place.
+ *
+ * The file starts with a fixed length header, followed by the Java serialized form of each vertex and edge, by their
+ * {@code long} offsets and by the {@code int} sections of the vertices and edges hash indexes and of the
+ * compressed-sparse-row adjacency, so that readers never need to rebuild any in-memory structure.
+ *
+ * Each element is serialized in its own stream, so that it can be deserialized on its own: the stream header and the
+ * class descriptors are repeated for each element, which takes some tens of bytes per labeled vertex or edge on top
+ * of its fields, and deserializing an element reads its class descriptors again. Readers pay that cost once per
+ * element, as they cache the deserialized ones. Elements with a compact custom serialized form, i.e.
+ * {@link java.io.Externalizable} ones, reduce both the file size and the first lookup costs.
+ */
+public final class MappedGraphWriter
+{
+
+    /**
+     * Hidden constructor, this class cannot be instantiated.
+     */
+    private MappedGraphWriter()
+    {
+        // do nothing
+    }
+
+    /**
+     * Writes the input graph to the input file, replacing any previous content.
+     *
+     * Since the hash indexes are computed at write time, vertices and edges hash codes have to be stable across JVMs,
+     * as they are for labeled vertices and edges.
+     *
+     * @param <V> the Graph vertices type
+     * @param <E> the Graph edges type
+     * @param graph the graph to write, either a {@link DirectedGraph} or an {@link UndirectedGraph}
+     * @param file the destination file
+     * @throws IOException if any error occurs while writing the file
+     */
+    public static <V, E> void write( Graph<V, E> graph, File file )
+        throws IOException
+    {
+        checkNotNull( graph, "Impossible to write a null Graph" );
+        checkNotNull( file, "Impossible to write a Graph to a null file" );
+
+        final boolean directed = graph instanceof DirectedGraph;
+        final BaseFrozenGraph<V, E> frozen = freeze( graph, directed );
+        final IdDictionary<V> vertices = frozen.getVertexDictionary();
+        final IdDictionary<E> edges = frozen.getEdgeDictionary();
+        final int order = vertices.size();
+        final int size = edges.size();
+        final int[] offsets = frozen.getOffsets();
+        final int[] inOffsets = directed ? ( (FrozenDirectedGraph<V, E>) frozen ).getInOffsets() : new int[0];
+        final int[] sources = directed ? ( (FrozenDirectedGraph<V, E>) frozen ).getSources() : new int[0];
+
+        final FileOutputStream fileStream = new FileOutputStream( file );
+        try
+        {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( fileStream ) );
+            out.write( new byte[BaseMappedGraph.HEADER_LENGTH] );
+
+            long[] vertexDataOffsets = writeElements( vertices.elements(), order, out );
+            long[] edgeDataOffsets = writeElements( edges.elements(), size, out );
+            // long and int sections are aligned to 8 bytes
+            out.write( new byte[BaseMappedGraph.padding( vertexDataOffsets[order], edgeDataOffsets[size] )] );
+
+            int[] vertexHashes = hashes( vertices.elements(), order );
+            int[] edgeHashes = hashes( edges.elements(), size );
+            int[] vertexSlots = slots( vertexHashes );
+            int[] edgeSlots = slots( edgeHashes );
+
+            writeLongs( vertexDataOffsets, out );
+            writeLongs( edgeDataOffsets, out );
+            writeInts( vertexHashes, out );
+            writeInts( vertexSlots, out );
+            writeInts( edgeHashes, out );
+            writeInts( edgeSlots, out );
+            writeInts( frozen.getHeads(), out );
+            writeInts( frozen.getTails(), out );
+            writeInts( offsets, out );
+            writeInts( frozen.getTargets(), out );
+            writeInts( frozen.getArcEdges(), out );
+            writeInts( inOffsets, out );
+            writeInts( sources, out );
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate( BaseMappedGraph.HEADER_LENGTH );
+            header.putInt( BaseMappedGraph.MAGIC )
+                  .putInt( BaseMappedGraph.VERSION )
+                  .putInt( directed ? BaseMappedGraph.DIRECTED : 0 )
+                  .putInt( order )
+                  .putInt( size )
+                  .putInt( frozen.getTargets().length )
+                  .putInt( sources.length )
+                  .putInt( vertexSlots.length )
+                  .putInt( edgeSlots.length )
+                  .putLong( vertexDataOffsets[order] )
+                  .putLong( edgeDataOffsets[size] );
+            header.clear();
+            fileStream.getChannel().write( header, 0 );
+        }
+        finally
+        {
+            fileStream.close();
+        }
+    }
+
+    private static <V, E> BaseFrozenGraph<V, E> freeze( Graph<V, E> graph, boolean directed )
+    {
+        if ( graph instanceof BaseFrozenGraph )
+        {
+            return (BaseFrozenGraph<V, E>) graph;
+        }
+        if ( directed )
+        {
+            return new FrozenDirectedGraph<V, E>( (DirectedGraph<V, E>) graph );
+        }
+        checkGraphCondition( graph instanceof UndirectedGraph, "Graph %s is neither directed nor undirected", graph );
+        return new FrozenUndirectedGraph<V, E>( (UndirectedGraph<V, E>) graph );
+    }
+
+    /**
+     * Writes the serialized form of each element and returns the offsets of each of them, plus the total length.
+     */
+    private static long[] writeElements( Iterable<?> elements, int count, DataOutputStream out )
+        throws IOException
+    {
+        final long[] dataOffsets = new long[count + 1];
+        final ByteArrayOutputStream element = new ByteArrayOutputStream();
+        int id = 0;
+        long position = 0;
+        for ( Object e : elements )
+        {
+            element.reset();
+            ObjectOutputStream elementOut = new ObjectOutputStream( element );
+            elementOut.writeObject( e );
+            elementOut.close();
+            checkGraphCondition( element.size() <= BaseMappedGraph.MAX_ELEMENT_BYTES,
+                                 "Serialized element %s exceeds %s bytes", e, BaseMappedGraph.MAX_ELEMENT_BYTES );
+            element.writeTo( out );
+
+            position += element.size();
+            dataOffsets[++id] = position;
+        }
+        return dataOffsets;
+    }
+
+    private static int[] hashes( Iterable<?> elements, int count )
+    {
+        final int[] hashes = new int[count];
+        int id = 0;
+        for ( Object e : elements )
+        {
+            hashes[id++] = e.hashCode();
+        }
+        return hashes;
+    }
+
+    /**
+     * Builds the open-addressing table of the elements identifiers, slotted by their spread hash codes.
+     */
+    private static int[] slots( int[] hashes )
+    {
+        final int capacity = Integer.highestOneBit( Math.max( hashes.length << 1, 4 ) - 1 ) << 1;
+        final int mask = capacity - 1;
+        final int[] slots = new int[capacity];
+        Arrays.fill( slots, BaseMappedGraph.FREE );
+        for ( int id = 0; id < hashes.length; id++ )
+        {
+            int slot = IdDictionary.spread( hashes[id] ) & mask;
+            while ( slots[slot] != BaseMappedGraph.FREE )
+            {
+                slot = ( slot + 1 ) & mask;
+            }
+            slots[slot] = id;
+        }
+        return slots;
+    }
+
+    private static void writeLongs( long[] values, DataOutputStream out )
+        throws IOException
+    {
+        for ( long value : values )
+        {
+            out.writeLong( value );
+        }
+    }
+
+    private static void writeInts( int[] values, DataOutputStream out )
+        throws IOException
+    {
+        for ( int value : values )
+        {
+            out.writeInt( value );
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.nnsoft.trudeau.api.UndirectedGraph;
+
+/**
+ * A read-only, memory-mapped implementation of an undirected Graph, served from a file written by
+ * {@link MappedGraphWriter}.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public final class MappedUndirectedGraph<V, E>
+    extends BaseMappedGraph<V, E>
+    implements UndirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = 7937003218470954512L;
+
+    /**
+     * Memory-maps the input undirected graph file.
+     *
+     * @param file the file written by {@link MappedGraphWriter}
+     * @throws IOException if the file cannot be read or does not contain an undirected graph
+     */
+    public MappedUndirectedGraph( File file )
+        throws IOException
+    {
+        super( file, false );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDegree( V v )
+    {
+        return adjacencySize( checkedVertexId( v ) );
+    }
+
+}
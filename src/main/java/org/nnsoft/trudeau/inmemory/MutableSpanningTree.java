@@ -80,6 +80,7 @@ public final class MutableSpanningTree<V, WE, W>
     @Override
     protected void decorateRemoveEdge( WE e )
     {
+        super.decorateRemoveEdge( e );
         weight = weightOperations.append( weight, weightOperations.inverse( weightedEdges.map( e ) ) );
     }
 
@@ -0,0 +1,56 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Closeable;
+
+/**
+ * A mutable directed Graph implementation that keeps edge endpoints and adjacency lists in direct buffers, outside
+ * the GC-managed heap; the vertices and edges objects, their identifiers dictionaries and the index of the arcs of
+ * high degree vertices are kept on the heap.
+ *
+ * Graph instances have to be {@link #close() closed} once not needed anymore; closed graphs cannot be used anymore.
+ *
+ * This class is NOT thread safe!
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public class OffHeapDirectedMutableGraph<V, E>
+    extends DirectedMutableGraph<V, E>
+    implements Closeable
+{
+
+    private static final long serialVersionUID = -8812406219442925107L;
+
+    /**
+     * Creates a new empty off-heap directed graph.
+     */
+    public OffHeapDirectedMutableGraph()
+    {
+        super( new DenseGraphStore<V, E>( true ) );
+    }
+
+    /**
+     * Releases the off-heap memory held by this graph.
+     */
+    public void close()
+    {
+        getStore().close();
+    }
+
+}
@@ -0,0 +1,421 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.nnsoft.trudeau.api.GraphException;
+
+/**
+ * {@link IntLists} implementation that keeps both the lists values and their directory in direct buffers, outside the
+ * GC-managed heap.
+ *
+ * Values live in blocks carved out of fixed-size slabs: block capacities are powers of two, a list moves to a block
+ * twice as large when it fills its own, and released blocks are recycled by later allocations of the same capacity.
+ * Lists larger than a slab get a dedicated buffer, which is never carved for other lists.
+ *
+ * The direct memory is given back explicitly on {@link #close()} where the running JVM allows it, otherwise once the
+ * buffers are collected.
+ *
+ * This class is NOT thread safe!
+ */
+final class OffHeapIntLists
+    extends IntLists
+{
+
+    private static final long serialVersionUID = -5197269416452239839L;
+
+    private static final int SLAB_INTS = 1 << 20;
+
+    private static final int MIN_BLOCK_INTS = 4;
+
+    // directory entry layout: slab, offset, capacity, size
+    private static final int ENTRY_INTS = 4;
+
+    private static final int NO_SLAB = -1;
+
+    private transient IntBuffer directory;
+
+    private transient List<IntBuffer> slabs;
+
+    // the buffers backing the directory and the slabs, kept to free them explicitly
+    private transient ByteBuffer directoryMemory;
+
+    private transient List<ByteBuffer> slabsMemory;
+
+    // index of the slab blocks are carved from, NO_SLAB until the first one is allocated
+    private transient int carving;
+
+    private transient int top;
+
+    private transient LongList[] recycled;
+
+    OffHeapIntLists()
+    {
+        initialize();
+    }
+
+    private void initialize()
+    {
+        directoryMemory = allocate( 16 * ENTRY_INTS );
+        directory = directoryMemory.asIntBuffer();
+        for ( int i = 0; i < directory.capacity(); i += ENTRY_INTS )
+        {
+            directory.put( i, NO_SLAB );
+        }
+        slabs = new ArrayList<IntBuffer>();
+        slabsMemory = new ArrayList<ByteBuffer>();
+        carving = NO_SLAB;
+        top = SLAB_INTS;
+        recycled = new LongList[32];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void create( int list, int capacity )
+    {
+        final int entry = list * ENTRY_INTS;
+        if ( entry >= directory().capacity() )
+        {
+            growDirectory( entry + ENTRY_INTS );
+        }
+        else if ( directory.get( entry ) != NO_SLAB )
+        {
+            release( list );
+        }
+
+        final int blockInts = Math.max( Integer.highestOneBit( Math.max( capacity, 1 ) - 1 ) << 1, MIN_BLOCK_INTS );
+        final long block = allocateBlock( blockInts );
+        directory.put( entry, (int) ( block >>> 32 ) );
+        directory.put( entry + 1, (int) block );
+        directory.put( entry + 2, blockInts );
+        directory.put( entry + 3, 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void release( int list )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        if ( entry < directory.capacity() && directory.get( entry ) != NO_SLAB )
+        {
+            releaseBlock( directory.get( entry ), directory.get( entry + 1 ), directory.get( entry + 2 ) );
+            directory.put( entry, NO_SLAB );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean exists( int list )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        return entry < directory.capacity() && directory.get( entry ) != NO_SLAB;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int size( int list )
+    {
+        return directory().get( list * ENTRY_INTS + 3 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int get( int list, int index )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        return slabs.get( directory.get( entry ) ).get( directory.get( entry + 1 ) + index );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set( int list, int index, int value )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        slabs.get( directory.get( entry ) ).put( directory.get( entry + 1 ) + index, value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void add( int list, int value )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        int slab = directory.get( entry );
+        int offset = directory.get( entry + 1 );
+        final int capacity = directory.get( entry + 2 );
+        final int size = directory.get( entry + 3 );
+
+        if ( size == capacity )
+        {
+            final long block = allocateBlock( capacity << 1 );
+            final IntBuffer source = slabs.get( slab );
+            slab = (int) ( block >>> 32 );
+            final IntBuffer target = slabs.get( slab );
+            final int targetOffset = (int) block;
+            for ( int i = 0; i < size; i++ )
+            {
+                target.put( targetOffset + i, source.get( offset + i ) );
+            }
+            releaseBlock( directory.get( entry ), offset, capacity );
+
+            offset = targetOffset;
+            directory.put( entry, slab );
+            directory.put( entry + 1, offset );
+            directory.put( entry + 2, capacity << 1 );
+        }
+
+        slabs.get( slab ).put( offset + size, value );
+        directory.put( entry + 3, size + 1 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void remove( int list, int index, int count )
+    {
+        final IntBuffer directory = directory();
+        final int entry = list * ENTRY_INTS;
+        final IntBuffer slab = slabs.get( directory.get( entry ) );
+        final int offset = directory.get( entry + 1 );
+        final int size = directory.get( entry + 3 );
+        for ( int i = offset + index; i < offset + size - count; i++ )
+        {
+            slab.put( i, slab.get( i + count ) );
+        }
+        directory.put( entry + 3, size - count );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void close()
+    {
+        if ( directory == null )
+        {
+            return;
+        }
+
+        directory = null;
+        slabs = null;
+        recycled = null;
+        free( directoryMemory );
+        directoryMemory = null;
+        for ( ByteBuffer buffer : slabsMemory )
+        {
+            free( buffer );
+        }
+        slabsMemory = null;
+    }
+
+    private IntBuffer directory()
+    {
+        if ( directory == null )
+        {
+            throw new GraphException( "The off-heap Graph storage has already been closed" );
+        }
+        return directory;
+    }
+
+    private void growDirectory( int minimumCapacity )
+    {
+        final ByteBuffer grownMemory = allocate( Math.max( minimumCapacity, directory.capacity() << 1 ) );
+        final IntBuffer grown = grownMemory.asIntBuffer();
+        for ( int i = 0; i < directory.capacity(); i++ )
+        {
+            grown.put( i, directory.get( i ) );
+        }
+        for ( int i = directory.capacity(); i < grown.capacity(); i += ENTRY_INTS )
+        {
+            grown.put( i, NO_SLAB );
+        }
+        free( directoryMemory );
+        directoryMemory = grownMemory;
+        directory = grown;
+    }
+
+    /**
+     * Allocates a block of the input power of two capacity, returning the slab index in the high 32 bits and the
+     * block offset in the low 32 bits.
+     */
+    private long allocateBlock( int capacity )
+    {
+        final int sizeClass = Integer.numberOfTrailingZeros( capacity );
+        final LongList free = recycled[sizeClass];
+        if ( free != null && free.size() > 0 )
+        {
+            final long block = free.get( free.size() - 1 );
+            free.remove( free.size() - 1 );
+            return block;
+        }
+
+        if ( capacity > SLAB_INTS )
+        {
+            slabs.add( allocateSlab( capacity ) );
+            return (long) ( slabs.size() - 1 ) << 32;
+        }
+
+        if ( top + capacity > SLAB_INTS )
+        {
+            slabs.add( allocateSlab( SLAB_INTS ) );
+            carving = slabs.size() - 1;
+            top = 0;
+        }
+        final long block = ( (long) carving << 32 ) | top;
+        top += capacity;
+        return block;
+    }
+
+    private void releaseBlock( int slab, int offset, int capacity )
+    {
+        final int sizeClass = Integer.numberOfTrailingZeros( capacity );
+        if ( recycled[sizeClass] == null )
+        {
+            recycled[sizeClass] = new LongList();
+        }
+        recycled[sizeClass].add( ( (long) slab << 32 ) | offset );
+    }
+
+    private static ByteBuffer allocate( int ints )
+    {
+        return ByteBuffer.allocateDirect( ints << 2 ).order( ByteOrder.nativeOrder() );
+    }
+
+    private IntBuffer allocateSlab( int ints )
+    {
+        final ByteBuffer buffer = allocate( ints );
+        slabsMemory.add( buffer );
+        return buffer.asIntBuffer();
+    }
+
+    /**
+     * Frees the memory of the input direct buffer, via {@code sun.misc.Unsafe.invokeCleaner} on Java 9 and later, or
+     * via the buffer {@code cleaner()} on earlier versions; when neither is accessible the memory is given back once
+     * the buffer is collected.
+     */
+    private static void free( ByteBuffer buffer )
+    {
+        try
+        {
+            final Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            final Method invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+            final Field theUnsafe = unsafeClass.getDeclaredField( "theUnsafe" );
+            theUnsafe.setAccessible( true );
+            invokeCleaner.invoke( theUnsafe.get( null ), buffer );
+            return;
+        }
+        catch ( NoSuchMethodException e )
+        {
+            // before Java 9, falls back to the buffer cleaner
+        }
+        catch ( Exception e )
+        {
+            return;
+        }
+
+        try
+        {
+            final Method cleanerMethod = buffer.getClass().getMethod( "cleaner" );
+            cleanerMethod.setAccessible( true );
+            final Object cleaner = cleanerMethod.invoke( buffer );
+            if ( cleaner != null )
+            {
+                cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+            }
+        }
+        catch ( Exception e )
+        {
+            // left to the garbage collector
+        }
+    }
+
+    private void writeObject( ObjectOutputStream out )
+        throws IOException
+    {
+        out.defaultWriteObject();
+
+        final IntBuffer directory = directory();
+        final int lists = directory.capacity() / ENTRY_INTS;
+        out.writeInt( lists );
+        for ( int list = 0; list < lists; list++ )
+        {
+            if ( !exists( list ) )
+            {
+                out.writeInt( -1 );
+                continue;
+            }
+
+            int size = size( list );
+            out.writeInt( size );
+            for ( int i = 0; i < size; i++ )
+            {
+                out.writeInt( get( list, i ) );
+            }
+        }
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        initialize();
+
+        final int lists = in.readInt();
+        for ( int list = 0; list < lists; list++ )
+        {
+            int size = in.readInt();
+            if ( size >= 0 )
+            {
+                create( list );
+                for ( int i = 0; i < size; i++ )
+                {
+                    add( list, in.readInt() );
+                }
+            }
+        }
+    }
+
+}
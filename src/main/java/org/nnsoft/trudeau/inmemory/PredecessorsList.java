@@ -43,6 +43,9 @@ public final class PredecessorsList<V, WE, W>
 
     private final Map<V, V> predecessors = new HashMap<V, V>();
 
+    // filled only by the three arguments addPredecessor, so that the two arguments one does not allocate entries
+    private final Map<V, WE> predecessorEdges = new HashMap<V, WE>();
+
     public PredecessorsList( Graph<V, WE> graph, Monoid<W> weightOperations, Mapper<WE, W> weightedEdges )
     {
         this.graph = graph;
@@ -59,6 +62,25 @@ public final class PredecessorsList<V, WE, W>
     public void addPredecessor( V tail, V head )
     {
         predecessors.put( tail, head );
+        if ( !predecessorEdges.isEmpty() )
+        {
+            // the recorded edge, if any, connects the previous predecessor
+            predecessorEdges.remove( tail );
+        }
+    }
+
+    /**
+     * Add an edge in the predecessor list associated to the input vertex, recording the edge connecting the two
+     * vertices so that building the path does not need to look it up in the graph.
+     *
+     * @param tail the vertex the edge enters in
+     * @param edge the edge connecting the predecessor to the input vertex
+     * @param head the predecessor vertex
+     */
+    public void addPredecessor( V tail, WE edge, V head )
+    {
+        predecessors.put( tail, head );
+        predecessorEdges.put( tail, edge );
     }
 
     /**
@@ -80,7 +102,11 @@ public final class PredecessorsList<V, WE, W>
             {
                 throw new PathNotFoundException( "Path from '%s' to '%s' doesn't exist", source, target );
             }
-            WE edge = graph.getEdge( predecessor, vertex );
+            WE edge = predecessorEdges.get( vertex );
+            if ( edge == null )
+            {
+                edge = graph.getEdge( predecessor, vertex );
+            }
 
             path.addConnectionInHead( predecessor, edge, vertex );
 
@@ -110,7 +136,11 @@ public final class PredecessorsList<V, WE, W>
             {
                 throw new PathNotFoundException( "Path from '%s' to '%s' doesn't exist", source, target );
             }
-            WE edge = graph.getEdge( predecessor, vertex );
+            WE edge = predecessorEdges.get( vertex );
+            if ( edge == null )
+            {
+                edge = graph.getEdge( predecessor, vertex );
+            }
 
             path.addConnectionInHead(predecessor, edge, vertex);
 
@@ -127,7 +157,11 @@ public final class PredecessorsList<V, WE, W>
             {
                 throw new PathNotFoundException( "Path from '%s' to '%s' doesn't exist", source, target );
             }
-            WE edge = graph.getEdge( vertex, predecessor );
+            WE edge = backwardsList.predecessorEdges.get( vertex );
+            if ( edge == null )
+            {
+                edge = graph.getEdge( vertex, predecessor );
+            }
 
             path.addConnectionInTail( vertex, edge, predecessor );
 
@@ -16,7 +16,11 @@ package org.nnsoft.trudeau.inmemory;
  *   limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
 import org.nnsoft.trudeau.api.UndirectedGraph;
+import org.nnsoft.trudeau.api.VertexPair;
 
 /**
  * A memory-based implementation of a mutable undirected Graph.
@@ -33,12 +37,30 @@ public class UndirectedMutableGraph<V, E>
 
     private static final long serialVersionUID = 3067145277295525946L;
 
+    /**
+     * Creates a new empty undirected graph.
+     */
+    public UndirectedMutableGraph()
+    {
+        super();
+    }
+
+    /**
+     * Creates a new empty undirected graph.
+     *
+     * @param store the dense identifiers based storage
+     */
+    UndirectedMutableGraph( DenseGraphStore<V, E> store )
+    {
+        super( store );
+    }
+
     /**
      * {@inheritDoc}
      */
     public final int getDegree( V v )
     {
-        return getAdjacencyList().get( v ).size();
+        return getStore().outDegree( vertexId( v ) );
     }
 
     /**
@@ -65,7 +87,11 @@ public class UndirectedMutableGraph<V, E>
     @Override
     protected void decorateAddEdge( V head, E e, V tail )
     {
-        internalAddEdge( tail, e, head );
+        // self loops are connected once
+        if ( !head.equals( tail ) )
+        {
+            internalAddEdge( tail, e, head );
+        }
     }
 
     /**
@@ -74,7 +100,40 @@ public class UndirectedMutableGraph<V, E>
     @Override
     protected void decorateRemoveEdge( E e )
     {
-        internalRemoveEdge( getVertices( e ).getTail(), e, getVertices( e ).getHead() );
+        final DenseGraphStore<V, E> store = getStore();
+        final int edge = edgeId( e );
+        if ( store.head( edge ) != store.tail( edge ) )
+        {
+            internalRemoveEdge( store.vertex( store.tail( edge ) ), e, store.vertex( store.head( edge ) ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FrozenUndirectedGraph<V, E> freeze()
+    {
+        return new FrozenUndirectedGraph<V, E>( this );
+    }
+
+    /**
+     * Adds the reverse arcs of the edges restored by the superclass.
+     */
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        for ( E e : getEdges() )
+        {
+            final VertexPair<V> vertices = getVertices( e );
+            // subclasses decorations, such as weights, are restored with their own state
+            if ( !vertices.getHead().equals( vertices.getTail() ) )
+            {
+                internalAddEdge( vertices.getTail(), e, vertices.getHead() );
+            }
+        }
     }
 
 }
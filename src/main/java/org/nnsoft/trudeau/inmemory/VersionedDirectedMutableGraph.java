@@ -0,0 +1,439 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.inmemory.BaseGraph.checkGraphCondition;
+import static org.nnsoft.trudeau.inmemory.DirectedGraphSnapshot.segmentOf;
+import static org.nnsoft.trudeau.utils.Objects.eq;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.nnsoft.trudeau.api.DirectedGraph;
+import org.nnsoft.trudeau.api.MutableGraph;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.DirectedGraphSnapshot.Arcs;
+
+/**
+ * A memory-based implementation of a mutable directed Graph with multi-version concurrency control: each mutation
+ * publishes a new immutable {@link DirectedGraphSnapshot} through a volatile reference, so that readers never lock
+ * and never observe a partially applied mutation.
+ *
+ * Mutations copy only the hash segments and the adjacency maps they touch, every other part is shared with the
+ * previous version; the number of segments grows with the square root of the graph, bounding the copy cost of
+ * mutations which do not involve high degree vertices. Queries which span several calls should pin a consistent
+ * view via {@link #snapshot()} rather than calling this graph repeatedly.
+ *
+ * This class is thread safe, mutations are serialized and meant to be performed by a single writer.
+ *
+ * @param <V> the Graph vertices type
+ * @param <E> the Graph edges type
+ */
+public class VersionedDirectedMutableGraph<V, E>
+    implements MutableGraph<V, E>, DirectedGraph<V, E>
+{
+
+    private static final long serialVersionUID = -8137205349462285196L;
+
+    private static final int MINIMUM_SEGMENTS = 16;
+
+    private volatile DirectedGraphSnapshot<V, E> current;
+
+    /**
+     * Creates a new empty directed graph.
+     */
+    public VersionedDirectedMutableGraph()
+    {
+        final Map<V, Arcs<V, E>>[] vertexSegments = newSegments( MINIMUM_SEGMENTS );
+        final Map<E, VertexPair<V>>[] edgeSegments = newSegments( MINIMUM_SEGMENTS );
+        current = new DirectedGraphSnapshot<V, E>( 0L, 0, 0, vertexSegments, edgeSegments );
+    }
+
+    /**
+     * Returns the latest published version of this graph, which will not change while it is traversed.
+     *
+     * @return the latest published version of this graph
+     */
+    public final DirectedGraphSnapshot<V, E> snapshot()
+    {
+        return current;
+    }
+
+    /**
+     * Returns the version of the latest published snapshot.
+     *
+     * @return the version of the latest published snapshot
+     */
+    public final long getVersion()
+    {
+        return current.getVersion();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getVertices()
+    {
+        return current.getVertices();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOrder()
+    {
+        return current.getOrder();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<E> getEdges()
+    {
+        return current.getEdges();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getSize()
+    {
+        return current.getSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getDegree( V v )
+    {
+        return current.getDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getConnectedVertices( V v )
+    {
+        return current.getConnectedVertices( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final E getEdge( V source, V target )
+    {
+        return current.getEdge( source, target );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final VertexPair<V> getVertices( E e )
+    {
+        return current.getVertices( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsVertex( V v )
+    {
+        return current.containsVertex( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final boolean containsEdge( E e )
+    {
+        return current.containsEdge( e );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getInDegree( V v )
+    {
+        return current.getInDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getInbound( V v )
+    {
+        return current.getInbound( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final int getOutDegree( V v )
+    {
+        return current.getOutDegree( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final Iterable<V> getOutbound( V v )
+    {
+        return current.getOutbound( v );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final synchronized void addVertex( V v )
+    {
+        checkGraphCondition( v != null, "Impossible to add a null Vertex to the Graph" );
+        checkGraphCondition( !current.containsVertex( v ), "Vertex '%s' already present in the Graph", v );
+
+        final Draft draft = new Draft();
+        draft.vertexSegment( v ).put( v, Arcs.<V, E>empty() );
+        draft.order++;
+        draft.publish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final synchronized void removeVertex( V v )
+    {
+        checkGraphCondition( v != null, "Impossible to remove a null Vertex from the Graph" );
+        checkGraphCondition( current.containsVertex( v ), "Vertex '%s' not present in the Graph", v );
+
+        final Draft draft = new Draft();
+        final Arcs<V, E> arcs = current.arcs( v );
+        for ( Map.Entry<V, E> outbound : arcs.outbound.entrySet() )
+        {
+            draft.edgeSegment( outbound.getValue() ).remove( outbound.getValue() );
+            draft.mutableArcs( outbound.getKey() ).inbound.remove( v );
+            draft.size--;
+        }
+        for ( Map.Entry<V, E> inbound : arcs.inbound.entrySet() )
+        {
+            if ( !v.equals( inbound.getKey() ) ) // self loops have been already removed
+            {
+                draft.edgeSegment( inbound.getValue() ).remove( inbound.getValue() );
+                draft.mutableArcs( inbound.getKey() ).outbound.remove( v );
+                draft.size--;
+            }
+        }
+        draft.vertexSegment( v ).remove( v );
+        draft.order--;
+        draft.publish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final synchronized void addEdge( V head, E e, V tail )
+    {
+        checkGraphCondition( head != null, "Null head Vertex not admitted" );
+        checkGraphCondition( e != null, "Impossible to add a null Edge in the Graph" );
+        checkGraphCondition( tail != null, "Null tail Vertex not admitted" );
+        checkGraphCondition( current.containsVertex( head ), "Head Vertex '%s' not present in the Graph", head );
+        checkGraphCondition( current.containsVertex( tail ), "Tail Vertex '%s' not present in the Graph", tail );
+        checkGraphCondition( current.getEdge( head, tail ) == null, "Edge %s is already present in the Graph", e );
+        checkGraphCondition( !current.containsEdge( e ), "Edge %s is already present in the Graph", e );
+
+        final Draft draft = new Draft();
+        draft.edgeSegment( e ).put( e, new VertexPair<V>( head, tail ) );
+        draft.mutableArcs( head ).outbound.put( tail, e );
+        draft.mutableArcs( tail ).inbound.put( head, e );
+        draft.size++;
+        draft.publish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public final synchronized void removeEdge( E e )
+    {
+        checkGraphCondition( e != null, "Impossible to remove a null Edge from the Graph" );
+        final VertexPair<V> vertices = current.getVertices( e );
+        checkGraphCondition( vertices != null, "Edge '%s' not present in the Graph", e );
+
+        final Draft draft = new Draft();
+        draft.edgeSegment( e ).remove( e );
+        draft.mutableArcs( vertices.getHead() ).outbound.remove( vertices.getTail() );
+        draft.mutableArcs( vertices.getTail() ).inbound.remove( vertices.getHead() );
+        draft.size--;
+        draft.publish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return current.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        @SuppressWarnings( "unchecked" ) // test against any Graph typed instance
+        VersionedDirectedMutableGraph<Object, Object> other = (VersionedDirectedMutableGraph<Object, Object>) obj;
+        return eq( current, other.current );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return current.toString();
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } ) // generic arrays cannot be created
+    private static <K, T> Map<K, T>[] newSegments( int segments )
+    {
+        final Map<K, T>[] result = new Map[segments];
+        for ( int i = 0; i < segments; i++ )
+        {
+            result[i] = Collections.emptyMap();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the segments holding the same entries of the input ones, resized to be about the square root of the
+     * number of entries.
+     */
+    private static <K, T> Map<K, T>[] resize( Map<K, T>[] segments, int entries )
+    {
+        int target = segments.length;
+        // in long, the squared segments count overflows int well before the entries count does
+        while ( entries > ( (long) target * target ) << 1 )
+        {
+            target <<= 1;
+        }
+        if ( target == segments.length )
+        {
+            return segments;
+        }
+
+        final Map<K, T>[] resized = newSegments( target );
+        for ( Map<K, T> segment : segments )
+        {
+            for ( Map.Entry<K, T> entry : segment.entrySet() )
+            {
+                int index = segmentOf( entry.getKey(), target );
+                if ( resized[index].isEmpty() )
+                {
+                    resized[index] = new HashMap<K, T>();
+                }
+                resized[index].put( entry.getKey(), entry.getValue() );
+            }
+        }
+        return resized;
+    }
+
+    /**
+     * The next version being prepared by the writer: segments and adjacency maps are copied the first time they are
+     * touched, and never modified anymore once published.
+     */
+    private final class Draft
+    {
+
+        private final Map<V, Arcs<V, E>>[] vertexSegments;
+
+        private final boolean[] copiedVertexSegments;
+
+        private final Map<E, VertexPair<V>>[] edgeSegments;
+
+        private final boolean[] copiedEdgeSegments;
+
+        private final Map<V, Arcs<V, E>> copiedArcs = new HashMap<V, Arcs<V, E>>( 4 );
+
+        private int order;
+
+        private int size;
+
+        Draft()
+        {
+            vertexSegments = current.getVertexSegments().clone();
+            copiedVertexSegments = new boolean[vertexSegments.length];
+            edgeSegments = current.getEdgeSegments().clone();
+            copiedEdgeSegments = new boolean[edgeSegments.length];
+            order = current.getOrder();
+            size = current.getSize();
+        }
+
+        Map<V, Arcs<V, E>> vertexSegment( V v )
+        {
+            final int index = segmentOf( v, vertexSegments.length );
+            if ( !copiedVertexSegments[index] )
+            {
+                vertexSegments[index] = new HashMap<V, Arcs<V, E>>( vertexSegments[index] );
+                copiedVertexSegments[index] = true;
+            }
+            return vertexSegments[index];
+        }
+
+        Map<E, VertexPair<V>> edgeSegment( E e )
+        {
+            final int index = segmentOf( e, edgeSegments.length );
+            if ( !copiedEdgeSegments[index] )
+            {
+                edgeSegments[index] = new HashMap<E, VertexPair<V>>( edgeSegments[index] );
+                copiedEdgeSegments[index] = true;
+            }
+            return edgeSegments[index];
+        }
+
+        Arcs<V, E> mutableArcs( V v )
+        {
+            Arcs<V, E> arcs = copiedArcs.get( v );
+            if ( arcs == null )
+            {
+                final Arcs<V, E> published = current.arcs( v );
+                arcs = new Arcs<V, E>( new HashMap<V, E>( published.outbound ),
+                                       new HashMap<V, E>( published.inbound ) );
+                vertexSegment( v ).put( v, arcs );
+                copiedArcs.put( v, arcs );
+            }
+            return arcs;
+        }
+
+        void publish()
+        {
+            current = new DirectedGraphSnapshot<V, E>( current.getVersion() + 1, order, size,
+                                                       resize( vertexSegments, order ), resize( edgeSegments, size ) );
+        }
+
+    }
+
+}
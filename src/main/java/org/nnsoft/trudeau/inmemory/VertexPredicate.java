@@ -0,0 +1,36 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+/**
+ * Condition tested against visited vertices, used to search the adjacency of a graph without allocating views or
+ * iterators: the visit stops at the first vertex satisfying it.
+ *
+ * @param <V> the Graph vertices type
+ */
+public interface VertexPredicate<V>
+{
+
+    /**
+     * Tests the input vertex.
+     *
+     * @param vertex the visited vertex
+     * @return true, if the input vertex satisfies this condition and the visit has to stop
+     */
+    boolean apply( V vertex );
+
+}
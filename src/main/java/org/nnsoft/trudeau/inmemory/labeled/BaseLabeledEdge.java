@@ -19,7 +19,6 @@ package org.nnsoft.trudeau.inmemory.labeled;
 import static java.lang.String.format;
 import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
 import static org.nnsoft.trudeau.utils.Objects.eq;
-import static org.nnsoft.trudeau.utils.Objects.hash;
 
 import java.io.Serializable;
 
@@ -30,9 +29,13 @@ public class BaseLabeledEdge
     private static final long serialVersionUID = -4985890761880816592L;
     private final String label;
 
+    // cached, since elements are the keys probed on each graph lookup; not serialized, recomputed on first use
+    private transient int hashCode;
+
     public BaseLabeledEdge( String label )
     {
         this.label = checkNotNull( label, "Argument 'label' must not be null" );
+        this.hashCode = 31 + label.hashCode();
     }
 
     /**
@@ -49,7 +52,7 @@ public class BaseLabeledEdge
     @Override
     public int hashCode()
     {
-        return hash( 1, 31, label );
+        return labelHashCode();
     }
 
     /**
@@ -70,7 +73,20 @@ public class BaseLabeledEdge
 
         BaseLabeledEdge other = (BaseLabeledEdge) obj;
 
-        return eq( label, other.label );
+        // interned elements are caught by the identity check, distinct labels mostly by the hash check
+        return labelHashCode() == other.labelHashCode() && eq( label, other.label );
+    }
+
+    private int labelHashCode()
+    {
+        // same value of hash( 1, 31, label ), without allocating the varargs array on each lookup
+        int result = hashCode;
+        if ( result == 0 )
+        {
+            result = 31 + label.hashCode();
+            hashCode = result;
+        }
+        return result;
     }
 
     /**
@@ -19,7 +19,6 @@ package org.nnsoft.trudeau.inmemory.labeled;
 import static java.lang.String.format;
 import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
 import static org.nnsoft.trudeau.utils.Objects.eq;
-import static org.nnsoft.trudeau.utils.Objects.hash;
 
 import java.io.Serializable;
 
@@ -30,9 +29,13 @@ public class BaseLabeledVertex
     private static final long serialVersionUID = -5167021719818162490L;
     private final String label;
 
+    // cached, since elements are the keys probed on each graph lookup; not serialized, recomputed on first use
+    private transient int hashCode;
+
     public BaseLabeledVertex( String label )
     {
         this.label = checkNotNull( label, "Argument 'label' must not be null" );
+        this.hashCode = 31 + label.hashCode();
     }
 
     /**
@@ -49,7 +52,7 @@ public class BaseLabeledVertex
     @Override
     public int hashCode()
     {
-        return hash( 1, 31, label );
+        return labelHashCode();
     }
 
     /**
@@ -69,7 +72,20 @@ public class BaseLabeledVertex
         }
 
         BaseLabeledVertex other = (BaseLabeledVertex) obj;
-        return eq( label, other.getLabel() );
+        // interned elements are caught by the identity check, distinct labels mostly by the hash check
+        return labelHashCode() == other.labelHashCode() && eq( label, other.getLabel() );
+    }
+
+    private int labelHashCode()
+    {
+        // same value of hash( 1, 31, label ), without allocating the varargs array on each lookup
+        int result = hashCode;
+        if ( result == 0 )
+        {
+            result = 31 + label.hashCode();
+            hashCode = result;
+        }
+        return result;
     }
 
     /**
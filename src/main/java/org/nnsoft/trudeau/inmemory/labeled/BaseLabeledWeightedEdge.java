@@ -19,7 +19,6 @@ package org.nnsoft.trudeau.inmemory.labeled;
 import static java.lang.String.format;
 import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
 import static org.nnsoft.trudeau.utils.Objects.eq;
-import static org.nnsoft.trudeau.utils.Objects.hash;
 
 /**
  *
@@ -52,7 +51,8 @@ public class BaseLabeledWeightedEdge<W>
     @Override
     public int hashCode()
     {
-        return hash( super.hashCode(), 31, weight );
+        // same value of hash( super.hashCode(), 31, weight ), without allocating the varargs array
+        return 31 * super.hashCode() + ( weight == null ? 0 : weight.hashCode() );
     }
 
     /**
@@ -0,0 +1,51 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Serialized form of the {@link CodedLabeledVertex} and {@link CodedLabeledEdge}: the label, along with the identifier
+ * of the dictionary it has to be encoded in when deserialized.
+ */
+final class CodedLabel
+    implements Serializable
+{
+
+    private static final long serialVersionUID = 2719366310915278553L;
+
+    private final UUID dictionary;
+
+    private final String label;
+
+    private final boolean edge;
+
+    CodedLabel( LabelDictionary dictionary, String label, boolean edge )
+    {
+        this.dictionary = dictionary.getIdentifier();
+        this.label = label;
+        this.edge = edge;
+    }
+
+    private Object readResolve()
+    {
+        final LabelDictionary resolved = LabelDictionary.resolve( dictionary );
+        return edge ? resolved.edge( label ) : resolved.vertex( label );
+    }
+
+}
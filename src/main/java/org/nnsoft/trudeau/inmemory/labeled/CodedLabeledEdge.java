@@ -0,0 +1,123 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.io.Serializable;
+
+/**
+ * A labeled edge whose label is stored in a {@link LabelDictionary}: the edge carries only the label code, it is
+ * compared and hashed by code and decodes its label on demand.
+ *
+ * Instances are created via {@link LabelDictionary#edge(String)}; edges of different dictionaries are never equal.
+ */
+public final class CodedLabeledEdge
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -7412203590613318843L;
+
+    // elements are serialized as their label, see writeReplace()
+    private final transient LabelDictionary dictionary;
+
+    private final transient int code;
+
+    CodedLabeledEdge( LabelDictionary dictionary, int code )
+    {
+        this.dictionary = dictionary;
+        this.code = code;
+    }
+
+    /**
+     * Returns the dictionary storing the label of this edge.
+     *
+     * @return the dictionary storing the label of this edge
+     */
+    public LabelDictionary getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Returns the code of the label of this edge.
+     *
+     * @return the code of the label of this edge
+     */
+    public int getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Decodes the label of this edge, allocating a new String on each call.
+     *
+     * @return the label of this edge
+     */
+    public String getLabel()
+    {
+        return dictionary.decode( code );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return code;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( obj == null || getClass() != obj.getClass() )
+        {
+            return false;
+        }
+
+        CodedLabeledEdge other = (CodedLabeledEdge) obj;
+
+        return code == other.code && dictionary == other.dictionary;
+    }
+
+    /**
+     * Serializes the label of this edge rather than the whole dictionary storing it.
+     */
+    private Object writeReplace()
+    {
+        return new CodedLabel( dictionary, getLabel(), true );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return format( "%s()", getLabel() );
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+
+/**
+ * A labeled edge with a primitive {@code double} weight, read by weighted algorithms without unboxing; the hash code is
+ * computed once, when the edge is created.
+ */
+public class DoubleLabeledWeightedEdge
+    extends BaseLabeledEdge
+{
+
+    private static final long serialVersionUID = -1851426617307146251L;
+
+    private final double weight;
+
+    private final int hashCode;
+
+    public DoubleLabeledWeightedEdge( String label, double weight )
+    {
+        super( label );
+        this.weight = weight;
+        // same value of BaseLabeledWeightedEdge<Double>, so that both kinds of edges spread alike
+        final long bits = Double.doubleToLongBits( weight );
+        this.hashCode = 31 * super.hashCode() + (int) ( bits ^ ( bits >>> 32 ) );
+    }
+
+    /**
+     * Returns the edge weight.
+     *
+     * @return the edge weight
+     */
+    public double getWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( !super.equals( obj ) )
+        {
+            return false;
+        }
+
+        DoubleLabeledWeightedEdge other = (DoubleLabeledWeightedEdge) obj;
+        return hashCode == other.hashCode && Double.doubleToLongBits( weight ) == Double.doubleToLongBits( other.weight );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return format( "%s( %s )", getLabel(), weight );
+    }
+
+}
@@ -0,0 +1,450 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkArgument;
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Append-only dictionary of labels, stored once and UTF-8 encoded in a single byte array, that assigns a dense
+ * {@code int} code to each label.
+ *
+ * The {@link CodedLabeledVertex} and {@link CodedLabeledEdge} created by a dictionary carry only their code, are
+ * compared and hashed by code, and decode their label on demand: graphs of coded elements never materialize label
+ * Strings while being queried.
+ *
+ * Coded elements are serialized as their label, and deserialized into the live dictionary they were created by or,
+ * if there is none in this JVM, into one shared by all the elements of that dictionary; so elements serialized on
+ * their own do not carry the whole dictionary and are restored equal to the originals.
+ *
+ * This class is thread safe: lookups and decoding share the lock of the appending path, so that elements can be
+ * deserialized concurrently, as when read from a memory-mapped graph.
+ */
+public final class LabelDictionary
+    implements Serializable
+{
+
+    private static final long serialVersionUID = -2871394513384916402L;
+
+    private static final int FREE = -1;
+
+    // live dictionaries by identifier, entries are dropped once their dictionary, holding the key, is collected
+    private static final Map<UUID, WeakReference<LabelDictionary>> DICTIONARIES =
+        new WeakHashMap<UUID, WeakReference<LabelDictionary>>();
+
+    private final UUID identifier;
+
+    // the UTF-8 bytes of the label coded i are in the [offsets[i], offsets[i + 1]) range
+    private byte[] bytes;
+
+    private int[] offsets;
+
+    // label hash codes are specified by String#hashCode(), they can be serialized
+    private int[] hashes;
+
+    private int size;
+
+    private transient int[] slots;
+
+    private transient int mask;
+
+    // encoding buffer of the looked up labels, reused under the dictionary lock to avoid allocating on each lookup
+    private transient byte[] scratch;
+
+    /**
+     * Creates a new empty dictionary.
+     */
+    public LabelDictionary()
+    {
+        this( 16 );
+    }
+
+    /**
+     * Creates a new dictionary presized to hold {@code expectedSize} labels without rehashing.
+     *
+     * @param expectedSize the expected number of labels
+     */
+    public LabelDictionary( int expectedSize )
+    {
+        this( expectedSize, UUID.randomUUID() );
+    }
+
+    private LabelDictionary( int expectedSize, UUID identifier )
+    {
+        checkArgument( expectedSize >= 0, "Negative expected size %s not admitted", expectedSize );
+        final int capacity = Math.max( expectedSize, 4 );
+        bytes = new byte[capacity << 3];
+        offsets = new int[capacity + 1];
+        hashes = new int[capacity];
+        allocateSlots( capacity << 1 );
+        this.identifier = identifier;
+        register( this );
+    }
+
+    /**
+     * Returns the vertex having the input label, adding the label to this dictionary if not already present.
+     *
+     * @param label the vertex label
+     * @return the vertex having the input label
+     */
+    public CodedLabeledVertex vertex( String label )
+    {
+        return new CodedLabeledVertex( this, encode( label ) );
+    }
+
+    /**
+     * Returns the edge having the input label, adding the label to this dictionary if not already present.
+     *
+     * @param label the edge label
+     * @return the edge having the input label
+     */
+    public CodedLabeledEdge edge( String label )
+    {
+        return new CodedLabeledEdge( this, encode( label ) );
+    }
+
+    /**
+     * Returns the vertex having the input label, null if the label is not in this dictionary, thus not in any graph
+     * of its vertices.
+     *
+     * @param label the vertex label
+     * @return the vertex having the input label, null if the label is not in this dictionary
+     */
+    public CodedLabeledVertex findVertex( String label )
+    {
+        final int code = codeOf( label );
+        return code != FREE ? new CodedLabeledVertex( this, code ) : null;
+    }
+
+    /**
+     * Returns the edge having the input label, null if the label is not in this dictionary, thus not in any graph of
+     * its edges.
+     *
+     * @param label the edge label
+     * @return the edge having the input label, null if the label is not in this dictionary
+     */
+    public CodedLabeledEdge findEdge( String label )
+    {
+        final int code = codeOf( label );
+        return code != FREE ? new CodedLabeledEdge( this, code ) : null;
+    }
+
+    /**
+     * Adds the input label, if not already present, and returns its code.
+     *
+     * @param label the label to add
+     * @return the code of the input label
+     */
+    public synchronized int encode( String label )
+    {
+        checkNotNull( label, "Argument 'label' must not be null" );
+        final int hash = label.hashCode();
+        final int length = toScratch( label );
+        int slot = spread( hash ) & mask;
+        for ( int code = slots[slot]; code != FREE; code = slots[slot] )
+        {
+            if ( hashes[code] == hash && scratchEquals( code, length ) )
+            {
+                return code;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+
+        if ( size == hashes.length )
+        {
+            offsets = Arrays.copyOf( offsets, ( size << 1 ) + 1 );
+            hashes = Arrays.copyOf( hashes, size << 1 );
+        }
+        final int offset = offsets[size];
+        if ( offset + length > bytes.length )
+        {
+            bytes = Arrays.copyOf( bytes, Math.max( bytes.length << 1, offset + length ) );
+        }
+        System.arraycopy( scratch, 0, bytes, offset, length );
+
+        final int code = size++;
+        offsets[size] = offset + length;
+        hashes[code] = hash;
+        slots[slot] = code;
+
+        if ( size << 1 > slots.length )
+        {
+            allocateSlots( slots.length << 1 );
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of the input label, {@code -1} if the label is not in this dictionary.
+     *
+     * @param label the label to look up
+     * @return the code of the input label, {@code -1} if not found
+     */
+    public synchronized int codeOf( String label )
+    {
+        if ( label == null )
+        {
+            return FREE;
+        }
+
+        final int hash = label.hashCode();
+        final int length = toScratch( label );
+        int slot = spread( hash ) & mask;
+        for ( int code = slots[slot]; code != FREE; code = slots[slot] )
+        {
+            if ( hashes[code] == hash && scratchEquals( code, length ) )
+            {
+                return code;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * Decodes the label having the input code.
+     *
+     * @param code the label code
+     * @return the label having the input code
+     */
+    public synchronized String decode( int code )
+    {
+        checkArgument( code >= 0 && code < size, "Label code %s not in this dictionary", code );
+
+        final int end = offsets[code + 1];
+        // UTF-8 never takes less bytes than UTF-16 chars
+        final char[] chars = new char[end - offsets[code]];
+        int length = 0;
+        for ( int position = offsets[code]; position < end; )
+        {
+            final int b = bytes[position++];
+            if ( b >= 0 )
+            {
+                chars[length++] = (char) b;
+            }
+            else if ( ( b & 0xE0 ) == 0xC0 )
+            {
+                chars[length++] = (char) ( ( ( b & 0x1F ) << 6 ) | ( bytes[position++] & 0x3F ) );
+            }
+            else if ( ( b & 0xF0 ) == 0xE0 )
+            {
+                chars[length++] = (char) ( ( ( b & 0x0F ) << 12 ) | ( ( bytes[position++] & 0x3F ) << 6 )
+                    | ( bytes[position++] & 0x3F ) );
+            }
+            else
+            {
+                final int codePoint = ( ( b & 0x07 ) << 18 ) | ( ( bytes[position++] & 0x3F ) << 12 )
+                    | ( ( bytes[position++] & 0x3F ) << 6 ) | ( bytes[position++] & 0x3F );
+                length += Character.toChars( codePoint, chars, length );
+            }
+        }
+        return new String( chars, 0, length );
+    }
+
+    /**
+     * Returns the number of labels in this dictionary.
+     *
+     * @return the number of labels in this dictionary
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes taken by the encoded labels.
+     *
+     * @return the number of bytes taken by the encoded labels
+     */
+    public synchronized int encodedSize()
+    {
+        return offsets[size];
+    }
+
+    /**
+     * Encodes the input label as UTF-8 in the scratch buffer; unpaired surrogates are encoded as any other char, so
+     * that every String is restored as is.
+     *
+     * @return the number of encoded bytes
+     */
+    private int toScratch( String label )
+    {
+        final int maxLength = label.length() * 3;
+        if ( scratch == null || scratch.length < maxLength )
+        {
+            scratch = new byte[Math.max( maxLength, 64 )];
+        }
+
+        final byte[] buffer = scratch;
+        int length = 0;
+        for ( int i = 0; i < label.length(); i++ )
+        {
+            final char c = label.charAt( i );
+            if ( c < 0x80 )
+            {
+                buffer[length++] = (byte) c;
+            }
+            else if ( c < 0x800 )
+            {
+                buffer[length++] = (byte) ( 0xC0 | ( c >> 6 ) );
+                buffer[length++] = (byte) ( 0x80 | ( c & 0x3F ) );
+            }
+            else if ( Character.isHighSurrogate( c ) && i + 1 < label.length()
+                && Character.isLowSurrogate( label.charAt( i + 1 ) ) )
+            {
+                final int codePoint = Character.toCodePoint( c, label.charAt( ++i ) );
+                buffer[length++] = (byte) ( 0xF0 | ( codePoint >> 18 ) );
+                buffer[length++] = (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+                buffer[length++] = (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+                buffer[length++] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+            }
+            else
+            {
+                buffer[length++] = (byte) ( 0xE0 | ( c >> 12 ) );
+                buffer[length++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                buffer[length++] = (byte) ( 0x80 | ( c & 0x3F ) );
+            }
+        }
+        return length;
+    }
+
+    private boolean scratchEquals( int code, int length )
+    {
+        final int offset = offsets[code];
+        if ( offsets[code + 1] - offset != length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( bytes[offset + i] != scratch[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void allocateSlots( int minimumCapacity )
+    {
+        int capacity = Integer.highestOneBit( Math.max( minimumCapacity, 4 ) - 1 ) << 1;
+        slots = new int[capacity];
+        Arrays.fill( slots, FREE );
+        mask = capacity - 1;
+
+        for ( int code = 0; code < size; code++ )
+        {
+            int slot = spread( hashes[code] ) & mask;
+            while ( slots[slot] != FREE )
+            {
+                slot = ( slot + 1 ) & mask;
+            }
+            slots[slot] = code;
+        }
+    }
+
+    private synchronized void writeObject( ObjectOutputStream out )
+        throws IOException
+    {
+        out.defaultWriteObject();
+    }
+
+    private void readObject( ObjectInputStream in )
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        allocateSlots( hashes.length << 1 );
+    }
+
+    /**
+     * Replaces this dictionary with the live one having the same identifier, if any, that elements are restored to.
+     */
+    private Object readResolve()
+    {
+        return register( this );
+    }
+
+    /**
+     * Returns the identifier the elements of this dictionary are serialized with.
+     */
+    UUID getIdentifier()
+    {
+        return identifier;
+    }
+
+    /**
+     * Returns the live dictionary having the input identifier, creating it if there is none.
+     *
+     * @param identifier the dictionary identifier
+     * @return the live dictionary having the input identifier
+     */
+    static LabelDictionary resolve( UUID identifier )
+    {
+        synchronized ( DICTIONARIES )
+        {
+            final LabelDictionary dictionary = lookup( identifier );
+            return dictionary != null ? dictionary : new LabelDictionary( 16, identifier );
+        }
+    }
+
+    /**
+     * Registers the input dictionary, unless another one having the same identifier is already live.
+     *
+     * @param dictionary the dictionary to register
+     * @return the live dictionary having the input identifier
+     */
+    private static LabelDictionary register( LabelDictionary dictionary )
+    {
+        synchronized ( DICTIONARIES )
+        {
+            final LabelDictionary live = lookup( dictionary.identifier );
+            if ( live != null )
+            {
+                return live;
+            }
+            // put would keep the key of the stale entry of a collected dictionary: the entry has to be keyed by the
+            // identifier held by the registered dictionary, to live as long as it does
+            DICTIONARIES.remove( dictionary.identifier );
+            DICTIONARIES.put( dictionary.identifier, new WeakReference<LabelDictionary>( dictionary ) );
+            return dictionary;
+        }
+    }
+
+    private static LabelDictionary lookup( UUID identifier )
+    {
+        final WeakReference<LabelDictionary> reference = DICTIONARIES.get( identifier );
+        return reference != null ? reference.get() : null;
+    }
+
+    private static int spread( int hash )
+    {
+        // same mixing of the graph dictionaries, String hashes of similar labels differ in the low bits only
+        final int h = hash * 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+
+}
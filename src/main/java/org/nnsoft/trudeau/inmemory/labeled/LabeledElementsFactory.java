@@ -0,0 +1,158 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.nnsoft.trudeau.utils.Assertions.checkNotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Flyweight factory of labeled vertices and edges: the same label is always mapped to the same canonical instance,
+ * so equal elements are compared by reference and their labels are stored once.
+ *
+ * A <i>strong</i> factory retains every created element for its whole life, a <i>weak</i> one lets the garbage
+ * collector reclaim the elements no longer referenced elsewhere.
+ *
+ * This class is thread safe.
+ */
+public final class LabeledElementsFactory
+{
+
+    /**
+     * Creates a factory retaining every created element.
+     *
+     * @return a new factory backed by strong references
+     */
+    public static LabeledElementsFactory strong()
+    {
+        return new LabeledElementsFactory( new StrongInterner<BaseLabeledVertex>(),
+                                           new StrongInterner<BaseLabeledEdge>() );
+    }
+
+    /**
+     * Creates a factory whose elements can be reclaimed once no longer referenced elsewhere, i.e. by any graph.
+     *
+     * @return a new factory backed by weak references
+     */
+    public static LabeledElementsFactory weak()
+    {
+        return new LabeledElementsFactory( new WeakInterner<BaseLabeledVertex>(),
+                                           new WeakInterner<BaseLabeledEdge>() );
+    }
+
+    private final Interner<BaseLabeledVertex> vertices;
+
+    private final Interner<BaseLabeledEdge> edges;
+
+    private LabeledElementsFactory( Interner<BaseLabeledVertex> vertices, Interner<BaseLabeledEdge> edges )
+    {
+        this.vertices = vertices;
+        this.edges = edges;
+    }
+
+    /**
+     * Returns the canonical vertex having the input label, creating it if needed.
+     *
+     * @param label the vertex label
+     * @return the canonical vertex having the input label
+     */
+    public synchronized BaseLabeledVertex vertex( String label )
+    {
+        checkNotNull( label, "Argument 'label' must not be null" );
+        BaseLabeledVertex vertex = vertices.get( label );
+        if ( vertex == null )
+        {
+            vertex = new BaseLabeledVertex( label );
+            vertices.put( label, vertex );
+        }
+        return vertex;
+    }
+
+    /**
+     * Returns the canonical edge having the input label, creating it if needed.
+     *
+     * @param label the edge label
+     * @return the canonical edge having the input label
+     */
+    public synchronized BaseLabeledEdge edge( String label )
+    {
+        checkNotNull( label, "Argument 'label' must not be null" );
+        BaseLabeledEdge edge = edges.get( label );
+        if ( edge == null )
+        {
+            edge = new BaseLabeledEdge( label );
+            edges.put( label, edge );
+        }
+        return edge;
+    }
+
+    /**
+     * Maps labels to canonical elements.
+     */
+    private interface Interner<T>
+    {
+
+        T get( String label );
+
+        void put( String label, T element );
+
+    }
+
+    private static final class StrongInterner<T>
+        implements Interner<T>
+    {
+
+        private final Map<String, T> elements = new HashMap<String, T>();
+
+        public T get( String label )
+        {
+            return elements.get( label );
+        }
+
+        public void put( String label, T element )
+        {
+            elements.put( label, element );
+        }
+
+    }
+
+    private static final class WeakInterner<T>
+        implements Interner<T>
+    {
+
+        // keys are the labels held by the elements themselves, so entries live as long as their element does
+        private final Map<String, WeakReference<T>> elements = new WeakHashMap<String, WeakReference<T>>();
+
+        public T get( String label )
+        {
+            WeakReference<T> reference = elements.get( label );
+            return reference != null ? reference.get() : null;
+        }
+
+        public void put( String label, T element )
+        {
+            // put would keep the key of the stale entry of a collected element, outliving or dying before the new one
+            elements.remove( label );
+            elements.put( label, new WeakReference<T>( element ) );
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.nnsoft.trudeau.inmemory.labeled;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+
+/**
+ * A labeled edge with a primitive {@code long} weight, read by weighted algorithms without unboxing; the hash code is
+ * computed once, when the edge is created.
+ */
+public class LongLabeledWeightedEdge
+    extends BaseLabeledEdge
+{
+
+    private static final long serialVersionUID = 4469015371036839770L;
+
+    private final long weight;
+
+    private final int hashCode;
+
+    public LongLabeledWeightedEdge( String label, long weight )
+    {
+        super( label );
+        this.weight = weight;
+        // same value of BaseLabeledWeightedEdge<Long>, so that both kinds of edges spread alike
+        this.hashCode = 31 * super.hashCode() + (int) ( weight ^ ( weight >>> 32 ) );
+    }
+
+    /**
+     * Returns the edge weight.
+     *
+     * @return the edge weight
+     */
+    public long getWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( !super.equals( obj ) )
+        {
+            return false;
+        }
+
+        LongLabeledWeightedEdge other = (LongLabeledWeightedEdge) obj;
+        return hashCode == other.hashCode && weight == other.weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return format( "%s( %s )", getLabel(), weight );
+    }
+
+}
@@ -16,7 +16,6 @@ package org.nnsoft.trudeau.inmemory;
  *   limitations under the License.
  */
 
-import static java.lang.String.format;
 import static java.lang.String.valueOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -24,6 +23,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.nnsoft.trudeau.api.Graphs.synchronize;
+import static org.nnsoft.trudeau.inmemory.GraphFixtures.buildCompleteGraph;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -470,38 +470,4 @@ public class BaseMutableGraphTestCase
         }
     }
 
-    /**
-     * Creates a complete graph with nVertices
-     *
-     * @param nVertices number of vertices
-     * @param g graph
-     */
-    private static void buildCompleteGraph( int nVertices, BaseMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
-    {
-        // building Graph
-        for ( int i = 0; i < nVertices; i++ )
-        {
-            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
-            g.addVertex( v );
-        }
-
-        for ( BaseLabeledVertex v1 : g.getVertices() )
-        {
-            for ( BaseLabeledVertex v2 : g.getVertices() )
-            {
-                if ( !v1.equals( v2 ) )
-                {
-                    try
-                    {
-                        g.addEdge( v1, new BaseLabeledEdge( format( "%s -> %s", v1, v2 ) ), v2 );
-                    }
-                    catch ( GraphException e )
-                    {
-                        // ignore
-                    }
-                }
-            }
-        }
-    }
-
 }
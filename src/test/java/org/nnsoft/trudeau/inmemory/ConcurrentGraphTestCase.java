@@ -0,0 +1,181 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.MutableGraph;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Races writers against the concurrent graphs and checks that all indexes agree once they are done.
+ */
+public class ConcurrentGraphTestCase
+{
+
+    private static final int N_VERTICES = 200;
+
+    private static final int N_THREADS = 8;
+
+    private static final int N_MUTATIONS = 250000;
+
+    @Test
+    public final void racingMutationsOnDirectedGraph()
+        throws Throwable
+    {
+        ConcurrentDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new ConcurrentDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>( N_THREADS );
+        race( g );
+
+        int outDegrees = 0;
+        int inDegrees = 0;
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            outDegrees += g.getOutDegree( v );
+            inDegrees += g.getInDegree( v );
+            for ( BaseLabeledVertex u : g.getInbound( v ) )
+            {
+                assertNotNull( g.getEdge( u, v ) );
+            }
+        }
+        assertEquals( g.getSize(), outDegrees );
+        assertEquals( g.getSize(), inDegrees );
+        checkEdges( g );
+    }
+
+    @Test
+    public final void racingMutationsOnUndirectedGraph()
+        throws Throwable
+    {
+        ConcurrentUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new ConcurrentUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>( N_THREADS );
+        race( g );
+
+        Set<BaseLabeledEdge> incident = new HashSet<BaseLabeledEdge>();
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            for ( BaseLabeledVertex u : g.getConnectedVertices( v ) )
+            {
+                assertSame( g.getEdge( u, v ), g.getEdge( v, u ) );
+                incident.add( g.getEdge( v, u ) );
+            }
+        }
+        assertEquals( g.getSize(), incident.size() );
+        checkEdges( g );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void edgeToMissingVertexIsRejected()
+    {
+        ConcurrentUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new ConcurrentUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        g.addVertex( a );
+
+        g.addEdge( a, new BaseLabeledEdge( "a -> b" ), new BaseLabeledVertex( "b" ) );
+    }
+
+    /**
+     * Every edge is reachable through the adjacency of its endpoints.
+     */
+    private static void checkEdges( MutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        int size = 0;
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            VertexPair<BaseLabeledVertex> vertices = g.getVertices( e );
+            assertTrue( g.containsVertex( vertices.getHead() ) );
+            assertTrue( g.containsVertex( vertices.getTail() ) );
+            assertSame( e, g.getEdge( vertices.getHead(), vertices.getTail() ) );
+            size++;
+        }
+        assertEquals( g.getSize(), size );
+    }
+
+    /**
+     * Lets {@link #N_THREADS} writers add and remove random edges, and seldom vertices, at the same time.
+     */
+    private static void race( final MutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+        throws Throwable
+    {
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+
+        TestRunner[] writers = new TestRunner[N_THREADS];
+        for ( int i = 0; i < N_THREADS; i++ )
+        {
+            final int writer = i;
+            writers[i] = new TestRunner()
+            {
+
+                @Override
+                public void runTest()
+                {
+                    Random random = new Random( writer );
+                    for ( int j = 0; j < N_MUTATIONS; j++ )
+                    {
+                        BaseLabeledVertex head = new BaseLabeledVertex( valueOf( random.nextInt( N_VERTICES ) ) );
+                        BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( random.nextInt( N_VERTICES ) ) );
+                        try
+                        {
+                            int operation = random.nextInt( 1000 );
+                            if ( operation == 0 )
+                            {
+                                g.removeVertex( head );
+                                g.addVertex( head );
+                            }
+                            else if ( operation < 500 )
+                            {
+                                g.addEdge( head, new BaseLabeledEdge( format( "%s -> %s", head, tail ) ), tail );
+                            }
+                            else
+                            {
+                                BaseLabeledEdge e = g.getEdge( head, tail );
+                                if ( e != null )
+                                {
+                                    g.removeEdge( e );
+                                }
+                            }
+                        }
+                        catch ( GraphException e )
+                        {
+                            // lost a race against another writer
+                        }
+                    }
+                }
+
+            };
+        }
+        new MultiThreadedTestRunner( writers ).runRunnables();
+    }
+
+}
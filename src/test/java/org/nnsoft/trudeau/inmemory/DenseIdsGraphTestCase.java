@@ -0,0 +1,280 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.nnsoft.trudeau.inmemory.GraphFixtures.buildCompleteGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks the dense identifiers assigned to vertices and edges, and the views derived from the edges table.
+ */
+public class DenseIdsGraphTestCase
+{
+
+    @Test
+    public final void viewsAreDerivedFromEdgesTable()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 10, g );
+
+        assertEquals( 90, g.getSize() );
+        int outDegrees = 0;
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            outDegrees += g.getOutDegree( v );
+        }
+        assertEquals( g.getSize(), outDegrees );
+
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            VertexPair<BaseLabeledVertex> vertices = g.getVertices( e );
+            assertSame( e, g.getEdge( vertices.getHead(), vertices.getTail() ) );
+            assertTrue( contains( g.getOutbound( vertices.getHead() ), vertices.getTail() ) );
+            assertTrue( contains( g.getInbound( vertices.getTail() ), vertices.getHead() ) );
+        }
+    }
+
+    @Test
+    public final void idsAccessors()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 4, g );
+
+        BaseLabeledVertex zero = new BaseLabeledVertex( valueOf( 0 ) );
+        int id = g.vertexId( zero );
+        assertEquals( zero, g.vertex( id ) );
+
+        int[] neighbors = g.neighborsOf( id );
+        assertEquals( 3, neighbors.length );
+        int i = 0;
+        for ( BaseLabeledVertex v : g.getConnectedVertices( zero ) )
+        {
+            assertEquals( v, g.vertex( neighbors[i++] ) );
+            assertSame( g.getEdge( zero, v ), g.edge( g.edgeId( g.getEdge( v, zero ) ) ) );
+        }
+    }
+
+    @Test
+    public final void removeVertexRemovesIncidentEdges()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 5, g );
+
+        BaseLabeledVertex removed = new BaseLabeledVertex( valueOf( 2 ) );
+        int recycledId = g.vertexId( removed );
+        g.removeVertex( removed );
+
+        assertEquals( 4, g.getOrder() );
+        assertEquals( 12, g.getSize() );
+        assertFalse( g.containsVertex( removed ) );
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            assertEquals( 3, g.getInDegree( v ) );
+            assertEquals( 3, g.getOutDegree( v ) );
+        }
+
+        BaseLabeledVertex added = new BaseLabeledVertex( "added" );
+        g.addVertex( added );
+        assertEquals( recycledId, g.vertexId( added ) );
+        assertEquals( 0, g.getInDegree( added ) );
+        assertNull( g.getEdge( added, new BaseLabeledVertex( valueOf( 0 ) ) ) );
+    }
+
+    @Test
+    public final void serializeDenseGraph()
+        throws Exception
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 6, g );
+        g.removeVertex( new BaseLabeledVertex( valueOf( 3 ) ) );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( bytes );
+        oos.writeObject( g );
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        @SuppressWarnings( "unchecked" )
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> cloned =
+            (UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>) ois.readObject();
+        ois.close();
+
+        assertEquals( g, cloned );
+        assertEquals( 10, cloned.getSize() );
+        BaseLabeledVertex zero = new BaseLabeledVertex( valueOf( 0 ) );
+        assertEquals( g.vertexId( zero ), cloned.vertexId( zero ) );
+    }
+
+    @Test
+    public final void visitorsFollowIterablesOrder()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 10, g );
+        BaseLabeledVertex removed = new BaseLabeledVertex( "3" );
+        g.removeVertex( removed );
+        BaseLabeledVertex isolated = new BaseLabeledVertex( "isolated" );
+        g.addVertex( isolated );
+
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            final List<BaseLabeledVertex> visited = new ArrayList<BaseLabeledVertex>();
+            VertexVisitor<BaseLabeledVertex> collector = new VertexVisitor<BaseLabeledVertex>()
+            {
+
+                public void visit( BaseLabeledVertex vertex )
+                {
+                    visited.add( vertex );
+                }
+
+            };
+
+            g.forEachOutbound( v, collector );
+            assertEquals( toList( g.getOutbound( v ) ), visited );
+
+            visited.clear();
+            g.forEachInbound( v, collector );
+            assertEquals( toList( g.getInbound( v ) ), visited );
+        }
+
+        final List<BaseLabeledVertex> tested = new ArrayList<BaseLabeledVertex>();
+        VertexPredicate<BaseLabeledVertex> isFive = new VertexPredicate<BaseLabeledVertex>()
+        {
+
+            public boolean apply( BaseLabeledVertex vertex )
+            {
+                tested.add( vertex );
+                return "5".equals( vertex.getLabel() );
+            }
+
+        };
+        assertTrue( g.anyOutbound( new BaseLabeledVertex( "0" ), isFive ) );
+        assertEquals( new BaseLabeledVertex( "5" ), tested.get( tested.size() - 1 ) );
+        assertTrue( tested.size() < g.getOutDegree( new BaseLabeledVertex( "0" ) ) );
+        assertFalse( g.anyInbound( new BaseLabeledVertex( "5" ), isFive ) );
+        assertFalse( g.anyNeighbor( isolated, isFive ) );
+    }
+
+    @Test
+    public final void edgeVisitorsReportEndpoints()
+    {
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 6, g );
+        g.removeEdge( g.getEdge( new BaseLabeledVertex( "1" ), new BaseLabeledVertex( "2" ) ) );
+        g.removeVertex( new BaseLabeledVertex( "4" ) );
+
+        final List<BaseLabeledEdge> visited = new ArrayList<BaseLabeledEdge>();
+        g.forEachEdge( new EdgeVisitor<BaseLabeledVertex, BaseLabeledEdge>()
+        {
+
+            public void visit( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+            {
+                assertEquals( new VertexPair<BaseLabeledVertex>( head, tail ), g.getVertices( e ) );
+                visited.add( e );
+            }
+
+        } );
+        assertEquals( toList( g.getEdges() ), visited );
+
+        for ( final BaseLabeledVertex v : g.getVertices() )
+        {
+            final List<BaseLabeledVertex> outgoing = new ArrayList<BaseLabeledVertex>();
+            g.forEachOutgoingEdge( v, new EdgeVisitor<BaseLabeledVertex, BaseLabeledEdge>()
+            {
+
+                public void visit( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+                {
+                    assertSame( v, head );
+                    assertSame( e, g.getEdge( head, tail ) );
+                    outgoing.add( tail );
+                }
+
+            } );
+            assertEquals( toList( g.getOutbound( v ) ), outgoing );
+
+            final List<BaseLabeledVertex> incoming = new ArrayList<BaseLabeledVertex>();
+            g.forEachIncomingEdge( v, new EdgeVisitor<BaseLabeledVertex, BaseLabeledEdge>()
+            {
+
+                public void visit( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+                {
+                    assertSame( v, tail );
+                    assertSame( e, g.getEdge( head, tail ) );
+                    incoming.add( head );
+                }
+
+            } );
+            assertEquals( toList( g.getInbound( v ) ), incoming );
+        }
+    }
+
+    @Test( expected = GraphException.class )
+    public final void idsRequireExistingVertices()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildCompleteGraph( 2, g );
+
+        g.vertexId( new BaseLabeledVertex( "not exists" ) );
+    }
+
+    private static <V> boolean contains( Iterable<V> iterable, V v )
+    {
+        for ( V current : iterable )
+        {
+            if ( current.equals( v ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <V> List<V> toList( Iterable<V> iterable )
+    {
+        List<V> list = new ArrayList<V>();
+        for ( V v : iterable )
+        {
+            list.add( v );
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,193 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.api.WeightedPath;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseWeightedEdge;
+import org.nnsoft.trudeau.math.monoid.primitive.DoubleWeightBaseOperations;
+
+/**
+ * Checks {@link DensePredecessorsList} builds the same paths of {@link PredecessorsList}.
+ */
+public final class DensePredecessorsListTestCase
+{
+
+    private DirectedMutableGraph<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> g;
+
+    @Before
+    public void setUp()
+    {
+        // a 0 -> 1 -> ... -> 9 chain, with shortcuts skipping a vertex
+        g = new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            g.addVertex( vertex( i ) );
+        }
+        for ( int i = 1; i < 10; i++ )
+        {
+            g.addEdge( vertex( i - 1 ), new BaseLabeledWeightedEdge<Double>( ( i - 1 ) + " -> " + i, 1D ), vertex( i ) );
+            if ( i > 1 )
+            {
+                g.addEdge( vertex( i - 2 ), new BaseLabeledWeightedEdge<Double>( ( i - 2 ) + " => " + i, 3D ),
+                           vertex( i ) );
+            }
+        }
+    }
+
+    @Test
+    public void pathsMatchMapBasedList()
+    {
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> expected = newMapBased();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> actual = newDense();
+        assertTrue( actual.isEmpty() );
+        for ( int i = 1; i < 10; i++ )
+        {
+            // shortcuts on even vertices
+            int predecessor = i % 2 == 0 ? i - 2 : i - 1;
+            expected.addPredecessor( vertex( i ), vertex( predecessor ) );
+            actual.addPredecessor( vertex( i ), vertex( predecessor ) );
+        }
+        assertFalse( actual.isEmpty() );
+
+        assertEquals( expected.buildPath( vertex( 0 ), vertex( 9 ) ), actual.buildPath( vertex( 0 ), vertex( 9 ) ) );
+        assertEquals( expected.buildPath( vertex( 0 ), vertex( 9 ) ).getWeight(),
+                      actual.buildPath( vertex( 0 ), vertex( 9 ) ).getWeight() );
+        assertEquals( expected.buildPath( vertex( 4 ), vertex( 8 ) ), actual.buildPath( vertex( 4 ), vertex( 8 ) ) );
+    }
+
+    @Test
+    public void bidirectionalPathsMatchMapBasedList()
+    {
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> forward = newMapBased();
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> backward = newMapBased();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseForward = newDense();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseBackward = newDense();
+        for ( int i = 1; i <= 5; i++ )
+        {
+            forward.addPredecessor( vertex( i ), vertex( i - 1 ) );
+            denseForward.addPredecessor( vertex( i ), vertex( i - 1 ) );
+        }
+        for ( int i = 5; i < 9; i++ )
+        {
+            // successors along the shortcuts in the backward search space
+            backward.addPredecessor( vertex( i ), vertex( i + 1 ) );
+            denseBackward.addPredecessor( vertex( i ), vertex( i + 1 ) );
+        }
+
+        assertEquals( forward.buildPath( vertex( 0 ), vertex( 5 ), vertex( 9 ), backward ),
+                      denseForward.buildPath( vertex( 0 ), vertex( 5 ), vertex( 9 ), denseBackward ) );
+    }
+
+    @Test
+    public void recordedEdgesBuildTheSamePaths()
+    {
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> lookedUp = newMapBased();
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> recorded = newMapBased();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseRecorded = newDense();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseBackward = newDense();
+        for ( int i = 1; i <= 5; i++ )
+        {
+            BaseLabeledWeightedEdge<Double> edge = g.getEdge( vertex( i - 1 ), vertex( i ) );
+            lookedUp.addPredecessor( vertex( i ), vertex( i - 1 ) );
+            recorded.addPredecessor( vertex( i ), edge, vertex( i - 1 ) );
+            denseRecorded.addPredecessor( vertex( i ), edge, vertex( i - 1 ) );
+        }
+        for ( int i = 5; i < 9; i++ )
+        {
+            denseBackward.addPredecessor( vertex( i ), g.getEdge( vertex( i ), vertex( i + 1 ) ), vertex( i + 1 ) );
+        }
+
+        WeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> expected =
+            lookedUp.buildPath( vertex( 0 ), vertex( 5 ) );
+        assertEquals( expected, recorded.buildPath( vertex( 0 ), vertex( 5 ) ) );
+        assertEquals( expected, denseRecorded.buildPath( vertex( 0 ), vertex( 5 ) ) );
+        assertEquals( expected.getWeight(), denseRecorded.buildPath( vertex( 0 ), vertex( 5 ) ).getWeight() );
+
+        WeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> bidirectional =
+            denseRecorded.buildPath( vertex( 0 ), vertex( 5 ), vertex( 9 ), denseBackward );
+        assertEquals( 9, bidirectional.getSize() );
+        assertEquals( Double.valueOf( 9D ), bidirectional.getWeight() );
+    }
+
+    @Test( expected = PathNotFoundException.class )
+    public void clearedListHasNoPath()
+    {
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> list = newDense();
+        list.addPredecessor( vertex( 1 ), vertex( 0 ) );
+        list.clear();
+        assertTrue( list.isEmpty() );
+
+        list.buildPath( vertex( 0 ), vertex( 1 ) );
+    }
+
+    @Test
+    public void releasedListsAreReused()
+    {
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> first = acquire();
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> second = acquire();
+        assertNotSame( first, second );
+        first.addPredecessor( vertex( 1 ), vertex( 0 ) );
+        first.release();
+
+        DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> reused = acquire();
+        assertSame( first, reused );
+        assertTrue( reused.isEmpty() );
+
+        // vertices added between queries are admitted
+        g.addVertex( vertex( 10 ) );
+        g.addEdge( vertex( 9 ), new BaseLabeledWeightedEdge<Double>( "9 -> 10", 1D ), vertex( 10 ) );
+        reused.addPredecessor( vertex( 10 ), vertex( 9 ) );
+        assertEquals( Double.valueOf( 1D ), reused.buildPath( vertex( 9 ), vertex( 10 ) ).getWeight() );
+        reused.release();
+        second.release();
+    }
+
+    private DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> acquire()
+    {
+        return DensePredecessorsList.acquire( g, new DoubleWeightBaseOperations(),
+                                              new BaseWeightedEdge<Double>() );
+    }
+
+    private DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> newDense()
+    {
+        return new DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>(
+            g, new DoubleWeightBaseOperations(), new BaseWeightedEdge<Double>() );
+    }
+
+    private PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> newMapBased()
+    {
+        return new PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>(
+            g, new DoubleWeightBaseOperations(), new BaseWeightedEdge<Double>() );
+    }
+
+    private static BaseLabeledVertex vertex( int i )
+    {
+        return new BaseLabeledVertex( valueOf( i ) );
+    }
+
+}
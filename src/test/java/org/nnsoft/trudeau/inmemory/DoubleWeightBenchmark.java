@@ -0,0 +1,106 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+
+import org.nnsoft.trudeau.inmemory.labeled.BaseDoubleWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseWeightedEdge;
+import org.nnsoft.trudeau.math.monoid.primitive.DoubleWeightBaseOperations;
+
+/**
+ * Compares the time spent building weighted paths whose weight is appended via
+ * {@link org.nnsoft.trudeau.math.monoid.Monoid} operations, {@link InMemoryWeightedPath}, against paths keeping a
+ * primitive running total, {@link DoubleWeightedPath}.
+ *
+ * Run as a plain Java application, optionally passing the number of hops and of built paths.
+ */
+public final class DoubleWeightBenchmark
+{
+
+    private static final int ROUNDS = 5;
+
+    public static void main( String[] args )
+    {
+        final int nHops = args.length > 0 ? Integer.parseInt( args[0] ) : 1000;
+        final int nPaths = args.length > 1 ? Integer.parseInt( args[1] ) : 10000;
+
+        final BaseLabeledVertex[] vertices = new BaseLabeledVertex[nHops + 1];
+        final BaseLabeledWeightedEdge<Double>[] edges = newEdges( nHops );
+        for ( int i = 0; i <= nHops; i++ )
+        {
+            vertices[i] = new BaseLabeledVertex( valueOf( i ) );
+            if ( i < nHops )
+            {
+                edges[i] = new BaseLabeledWeightedEdge<Double>( i + " -> " + ( i + 1 ), i % 10 + 0.5D );
+            }
+        }
+
+        final DoubleWeightBaseOperations operations = new DoubleWeightBaseOperations();
+        final BaseWeightedEdge<Double> weightedEdges = new BaseWeightedEdge<Double>();
+        final BaseDoubleWeightedEdge doubleWeightedEdges = new BaseDoubleWeightedEdge();
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            long start = System.nanoTime();
+            double checksum = 0;
+            for ( int p = 0; p < nPaths; p++ )
+            {
+                InMemoryWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> path =
+                    new InMemoryWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>(
+                        vertices[0], vertices[nHops], operations, weightedEdges );
+                for ( int i = nHops; i > 0; i-- )
+                {
+                    path.addConnectionInHead( vertices[i - 1], edges[i - 1], vertices[i] );
+                }
+                checksum += path.getWeight();
+            }
+            report( "InMemoryWeightedPath", start, nPaths, nHops, checksum );
+
+            start = System.nanoTime();
+            checksum = 0;
+            for ( int p = 0; p < nPaths; p++ )
+            {
+                DoubleWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> path =
+                    new DoubleWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>>(
+                        vertices[0], vertices[nHops], doubleWeightedEdges );
+                for ( int i = nHops; i > 0; i-- )
+                {
+                    path.addConnectionInHead( vertices[i - 1], edges[i - 1], vertices[i] );
+                }
+                checksum += path.getDoubleWeight();
+            }
+            report( "DoubleWeightedPath", start, nPaths, nHops, checksum );
+        }
+    }
+
+    @SuppressWarnings( { "unchecked", "rawtypes" } ) // generic arrays cannot be created
+    private static BaseLabeledWeightedEdge<Double>[] newEdges( int nHops )
+    {
+        return new BaseLabeledWeightedEdge[nHops];
+    }
+
+    private static void report( String path, long start, int nPaths, int nHops, double checksum )
+    {
+        final long elapsed = System.nanoTime() - start;
+        System.out.println( format( "%s: %s ms, %.1f ns/hop (checksum %s)", path, elapsed / 1000000L,
+                                    (double) elapsed / ( (long) nPaths * nHops ), checksum ) );
+    }
+
+}
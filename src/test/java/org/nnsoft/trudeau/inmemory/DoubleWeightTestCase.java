@@ -0,0 +1,133 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseDoubleWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.DoubleLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.DoubleWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.LongLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.LongWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.PrimitiveDoubleWeightedEdge;
+import org.nnsoft.trudeau.math.monoid.primitive.DoubleWeightBaseOperations;
+
+/**
+ * Checks the {@code double} specialized weighted path and spanning tree weigh as the generic ones, and the primitive
+ * weight edges behave as the boxed ones.
+ */
+public final class DoubleWeightTestCase
+{
+
+    @Test
+    public void pathWeighAsGenericPath()
+    {
+        InMemoryWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> expected =
+            new InMemoryWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>(
+                vertex( 0 ), vertex( 10 ), new DoubleWeightBaseOperations(), new BaseWeightedEdge<Double>() );
+        DoubleWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> actual =
+            new DoubleWeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>>( vertex( 0 ), vertex( 10 ),
+                                                                                        new BaseDoubleWeightedEdge() );
+        for ( int i = 10; i > 5; i-- )
+        {
+            expected.addConnectionInHead( vertex( i - 1 ), edge( i - 1, i ), vertex( i ) );
+            actual.addConnectionInHead( vertex( i - 1 ), edge( i - 1, i ), vertex( i ) );
+        }
+        for ( int i = 0; i < 5; i++ )
+        {
+            expected.addConnectionInHead( vertex( 4 - i ), edge( 4 - i, 5 - i ), vertex( 5 - i ) );
+            actual.addConnectionInHead( vertex( 4 - i ), edge( 4 - i, 5 - i ), vertex( 5 - i ) );
+        }
+
+        assertEquals( expected.getWeight(), actual.getWeight() );
+        assertEquals( 45D, actual.getDoubleWeight(), 0D );
+        assertEquals( expected.getVertices(), actual.getVertices() );
+        assertEquals( expected.getEdges(), actual.getEdges() );
+    }
+
+    @Test
+    public void treeWeighAsGenericTree()
+    {
+        MutableSpanningTree<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> expected =
+            new MutableSpanningTree<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>(
+                new DoubleWeightBaseOperations(), new BaseWeightedEdge<Double>() );
+        DoubleMutableSpanningTree<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> actual =
+            new DoubleMutableSpanningTree<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>>(
+                new BaseDoubleWeightedEdge() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            expected.addVertex( vertex( i ) );
+            actual.addVertex( vertex( i ) );
+        }
+        for ( int i = 1; i < 10; i++ )
+        {
+            expected.addEdge( vertex( i / 2 ), edge( i / 2, i ), vertex( i ) );
+            actual.addEdge( vertex( i / 2 ), edge( i / 2, i ), vertex( i ) );
+        }
+        expected.removeEdge( edge( 4, 9 ) );
+        actual.removeEdge( edge( 4, 9 ) );
+
+        assertEquals( expected.getWeight(), actual.getWeight() );
+        assertEquals( expected.getSize(), actual.getSize() );
+        assertEquals( 0, actual.getDegree( vertex( 9 ) ) );
+        // the reverse arc is removed as well
+        assertFalse( expected.getConnectedVertices( vertex( 9 ) ).iterator().hasNext() );
+        assertFalse( actual.getConnectedVertices( vertex( 9 ) ).iterator().hasNext() );
+        assertEquals( expected.getDegree( vertex( 4 ) ), actual.getDegree( vertex( 4 ) ) );
+    }
+
+    @Test
+    public void primitiveEdgesMatchBoxedEdges()
+    {
+        DoubleLabeledWeightedEdge doubleEdge = new DoubleLabeledWeightedEdge( "a -> b", 1.5D );
+        LongLabeledWeightedEdge longEdge = new LongLabeledWeightedEdge( "a -> b", 1L << 40 );
+
+        assertEquals( new BaseLabeledWeightedEdge<Double>( "a -> b", 1.5D ).hashCode(), doubleEdge.hashCode() );
+        assertEquals( new BaseLabeledWeightedEdge<Long>( "a -> b", 1L << 40 ).hashCode(), longEdge.hashCode() );
+        assertEquals( new DoubleLabeledWeightedEdge( "a -> b", 1.5D ), doubleEdge );
+        assertFalse( doubleEdge.equals( new DoubleLabeledWeightedEdge( "a -> b", 2.5D ) ) );
+        assertFalse( doubleEdge.equals( new DoubleLabeledWeightedEdge( "a -> c", 1.5D ) ) );
+        assertFalse( longEdge.equals( new LongLabeledWeightedEdge( "a -> b", 1L ) ) );
+
+        assertEquals( Double.valueOf( 1.5D ), new DoubleWeightedEdge().map( doubleEdge ) );
+        assertEquals( 1.5D, new PrimitiveDoubleWeightedEdge().map( doubleEdge ), 0D );
+        assertEquals( Long.valueOf( 1L << 40 ), new LongWeightedEdge().map( longEdge ) );
+
+        DoubleWeightedPath<BaseLabeledVertex, DoubleLabeledWeightedEdge> path =
+            new DoubleWeightedPath<BaseLabeledVertex, DoubleLabeledWeightedEdge>( vertex( 0 ), vertex( 1 ),
+                                                                                 new PrimitiveDoubleWeightedEdge() );
+        path.addConnectionInHead( vertex( 0 ), doubleEdge, vertex( 1 ) );
+        assertEquals( 1.5D, path.getDoubleWeight(), 0D );
+    }
+
+    private static BaseLabeledVertex vertex( int i )
+    {
+        return new BaseLabeledVertex( valueOf( i ) );
+    }
+
+    private static BaseLabeledWeightedEdge<Double> edge( int head, int tail )
+    {
+        return new BaseLabeledWeightedEdge<Double>( head + " -> " + tail, (double) head );
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks exported graphs are imported back as they were.
+ */
+public class EdgeListExporterTestCase
+{
+
+    private static final int N_VERTICES = 5000;
+
+    private File file;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        file = File.createTempFile( "edges", ".txt" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public final void exportedEdgeListIsImportedBack()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+            for ( int step = 1; step <= 2; step++ )
+            {
+                BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i + step ) % N_VERTICES ) );
+                g.addEdge( head, new BaseLabeledEdge( "edge from " + i + " by " + step ), tail );
+            }
+        }
+        // removed edges leave holes in the edges table
+        g.removeVertex( new BaseLabeledVertex( "0" ) );
+
+        EdgeListExporter.labeled().exportEdgeList( g, file );
+
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> imported =
+            EdgeListImporter.labeled().importDirected( file );
+        assertEquals( g.getSize(), imported.getSize() );
+        assertEquals( g, imported );
+        BaseLabeledVertex head = new BaseLabeledVertex( "7" );
+        BaseLabeledVertex tail = new BaseLabeledVertex( "9" );
+        assertEquals( g.getEdge( head, tail ), imported.getEdge( head, tail ) );
+    }
+
+    @Test
+    public final void adjacencyListOfUndirectedGraph()
+        throws IOException
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        // a vertex label outside the basic multilingual plane, encoded as a surrogate pair
+        BaseLabeledVertex a = new BaseLabeledVertex( "\u00e0\ud83d\ude00" );
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        BaseLabeledVertex c = new BaseLabeledVertex( "c" );
+        g.addVertex( a );
+        g.addVertex( b );
+        g.addVertex( c );
+        g.addEdge( a, new BaseLabeledEdge( "a -- b" ), b );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EdgeListExporter.labeled().exportAdjacencyList( g, Channels.newChannel( bytes ) );
+
+        assertEquals( "\u00e0\ud83d\ude00 b\nb \u00e0\ud83d\ude00\nc\n", bytes.toString( "UTF-8" ) );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void vertexLabelsWithBlanksAreRejected()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex v = new BaseLabeledVertex( "two words" );
+        g.addVertex( v );
+        g.addEdge( v, new BaseLabeledEdge( "loop" ), v );
+
+        EdgeListExporter.labeled().exportEdgeList( g, file );
+    }
+
+    @Test
+    public final void labelsLostOnImportAreRejected()
+        throws IOException
+    {
+        verifyRejected( "#p", "p -> q", "q" );
+        verifyRejected( "p", "", "q" );
+        verifyRejected( "p", " p -> q", "q" );
+        verifyRejected( "p", "p -> q\t", "q" );
+        verifyRejected( "", "p -> q", "q" );
+    }
+
+    @Test
+    public final void acceptedLabelsAreImportedBack()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex head = new BaseLabeledVertex( "p#" );
+        BaseLabeledVertex tail = new BaseLabeledVertex( "q#" );
+        BaseLabeledVertex isolated = new BaseLabeledVertex( "r" );
+        g.addVertex( head );
+        g.addVertex( tail );
+        g.addVertex( isolated );
+        g.addEdge( head, new BaseLabeledEdge( "#  p\t-> q" ), tail );
+
+        EdgeListExporter.labeled().exportEdgeList( g, file );
+
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> imported =
+            EdgeListImporter.labeled().importDirected( file );
+        assertEquals( new BaseLabeledEdge( "#  p\t-> q" ), imported.getEdge( head, tail ) );
+        // edge lists carry only the vertices having edges
+        assertEquals( 2, imported.getOrder() );
+        assertFalse( imported.containsVertex( isolated ) );
+    }
+
+    private void verifyRejected( String headLabel, String edgeLabel, String tailLabel )
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex head = new BaseLabeledVertex( headLabel );
+        BaseLabeledVertex tail = new BaseLabeledVertex( tailLabel );
+        g.addVertex( head );
+        g.addVertex( tail );
+        g.addEdge( head, new BaseLabeledEdge( edgeLabel ), tail );
+
+        try
+        {
+            EdgeListExporter.labeled().exportEdgeList( g, file );
+            fail( "Edge '" + edgeLabel + "' from '" + headLabel + "' to '" + tailLabel + "' exported" );
+        }
+        catch ( GraphException e )
+        {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.Mapper;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks edge lists are imported as if their edges were added one by one, regardless of how they are chunked.
+ */
+public class EdgeListImporterTestCase
+{
+
+    private static final int N_VERTICES = 1000;
+
+    private File file;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        file = File.createTempFile( "edges", ".txt" );
+        executor = Executors.newFixedThreadPool( 4 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+        file.delete();
+    }
+
+    @Test
+    public final void importedGraphMatchesIncrementalGraph()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> expected =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        writer.write( "# vertices connected to the next ones\n\n" );
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            for ( int step = 1; step <= 3; step++ )
+            {
+                BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+                BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i * step + 1 ) % N_VERTICES ) );
+                if ( !expected.containsVertex( head ) )
+                {
+                    expected.addVertex( head );
+                }
+                if ( !expected.containsVertex( tail ) )
+                {
+                    expected.addVertex( tail );
+                }
+                if ( expected.getEdge( head, tail ) == null )
+                {
+                    String headLabel = head.getLabel();
+                    String tailLabel = tail.getLabel();
+                    expected.addEdge( head, new BaseLabeledEdge( headLabel + " -> " + tailLabel ), tail );
+                    writer.write( step == 2 ? headLabel + "\t" + tailLabel + "\r\n"
+                                    : "  " + headLabel + " " + tailLabel + "\n" );
+                }
+            }
+        }
+        writer.close();
+
+        // chunks much smaller than the file, so that lines straddle the nominal chunk ends
+        EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge> importer = newImporter( 1000 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> imported = importer.importDirected( file, executor );
+        assertEquals( expected, imported );
+        assertEquals( expected.getSize(), imported.getSize() );
+        assertEquals( expected.getVertices().iterator().next(), imported.getVertices().iterator().next() );
+
+        assertEquals( imported, EdgeListImporter.labeled().importDirected( file ) );
+        assertEquals( imported, EdgeListImporter.labeled( expected.getOrder() ).importDirected( file ) );
+    }
+
+    @Test
+    public final void labelsAreTheRestOfTheLine()
+        throws IOException
+    {
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        writer.write( "r\u00e9sum\u00e9 cv written as\n" );
+        writer.write( "cv cv  rewritten as" );
+        writer.close();
+
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> imported =
+            newImporter( 4 ).importUndirected( file, executor );
+        assertEquals( 2, imported.getOrder() );
+        assertNotNull( imported.getVertices( new BaseLabeledEdge( "written as" ) ) );
+        assertEquals( new BaseLabeledEdge( "written as" ),
+                      imported.getEdge( new BaseLabeledVertex( "cv" ), new BaseLabeledVertex( "r\u00e9sum\u00e9" ) ) );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void malformedLineIsRejected()
+        throws IOException
+    {
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+        writer.write( "a b\nc\n" );
+        writer.close();
+
+        newImporter( 1 << 20 ).importDirected( file, executor );
+    }
+
+    private static EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge> newImporter( int chunkBytes )
+    {
+        return new EdgeListImporter<BaseLabeledVertex, BaseLabeledEdge>( new Mapper<String, BaseLabeledVertex>()
+        {
+
+            public BaseLabeledVertex map( String label )
+            {
+                return new BaseLabeledVertex( label );
+            }
+
+        }, new Mapper<String, BaseLabeledEdge>()
+        {
+
+            public BaseLabeledEdge map( String label )
+            {
+                return new BaseLabeledEdge( label );
+            }
+
+        }, 0, chunkBytes );
+    }
+
+}
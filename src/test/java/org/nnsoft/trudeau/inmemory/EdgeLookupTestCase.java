@@ -0,0 +1,139 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks that edge lookups do not allocate, both on low degree vertices and on hubs.
+ */
+public class EdgeLookupTestCase
+{
+
+    private static final int LOOKUPS = 100000;
+
+    @Test
+    public final void hubEdgesAreFound()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex hub = buildStar( 200, g );
+
+        for ( int i = 0; i < 200; i += 3 )
+        {
+            g.removeEdge( new BaseLabeledEdge( format( "hub -> %s", i ) ) );
+        }
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( i ) );
+            if ( i % 3 == 0 )
+            {
+                assertNull( g.getEdge( hub, leaf ) );
+            }
+            else
+            {
+                assertEquals( new BaseLabeledEdge( format( "hub -> %s", i ) ), g.getEdge( hub, leaf ) );
+            }
+            assertNull( g.getEdge( leaf, hub ) );
+        }
+
+        g.removeVertex( new BaseLabeledVertex( valueOf( 1 ) ) );
+        BaseLabeledVertex added = new BaseLabeledVertex( "added" );
+        g.addVertex( added );
+        assertNull( g.getEdge( hub, added ) );
+        g.addEdge( hub, new BaseLabeledEdge( "hub -> added" ), added );
+        assertEquals( new BaseLabeledEdge( "hub -> added" ), g.getEdge( hub, added ) );
+    }
+
+    @Test
+    public final void getEdgeDoesNotAllocate()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if ( !( threads instanceof com.sun.management.ThreadMXBean ) )
+        {
+            // allocation counters are not available on this JVM
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if ( !allocations.isThreadAllocatedMemorySupported() )
+        {
+            return;
+        }
+        allocations.setThreadAllocatedMemoryEnabled( true );
+
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex hub = buildStar( 200, g );
+        BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( 42 ) );
+        BaseLabeledVertex other = new BaseLabeledVertex( valueOf( 43 ) );
+
+        // warm up, so that measured lookups run compiled
+        lookup( g, hub, leaf, other );
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes( threadId );
+        assertNotNull( lookup( g, hub, leaf, other ) );
+        long allocated = allocations.getThreadAllocatedBytes( threadId ) - before;
+
+        assertTrue( format( "%s bytes allocated by %s lookups", allocated, LOOKUPS ), allocated < LOOKUPS );
+    }
+
+    private static BaseLabeledEdge lookup( UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g,
+                                           BaseLabeledVertex hub, BaseLabeledVertex leaf, BaseLabeledVertex other )
+    {
+        BaseLabeledEdge found = null;
+        for ( int i = 0; i < LOOKUPS; i++ )
+        {
+            found = g.getEdge( hub, leaf );
+            if ( g.getEdge( leaf, other ) != null || g.getEdge( leaf, hub ) != found )
+            {
+                return null;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Creates a star where the hub is connected to each of the {@code nLeaves} leaves.
+     */
+    private static BaseLabeledVertex buildStar( int nLeaves, BaseMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        BaseLabeledVertex hub = new BaseLabeledVertex( "hub" );
+        g.addVertex( hub );
+        for ( int i = 0; i < nLeaves; i++ )
+        {
+            BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( i ) );
+            g.addVertex( leaf );
+            g.addEdge( hub, new BaseLabeledEdge( format( "hub -> %s", i ) ), leaf );
+        }
+        return hub;
+    }
+
+}
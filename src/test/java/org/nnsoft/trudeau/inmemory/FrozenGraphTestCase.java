@@ -0,0 +1,138 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.nnsoft.trudeau.inmemory.GraphFixtures.buildRing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks that frozen graphs answer the same queries of the mutable graphs they were built from.
+ */
+public class FrozenGraphTestCase
+{
+
+    @Test
+    public final void frozenDirectedGraphMirrorsSource()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 20, g );
+
+        FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> frozen = g.freeze();
+
+        assertEquals( g.getOrder(), frozen.getOrder() );
+        assertEquals( g.getSize(), frozen.getSize() );
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            assertEquals( g.getInDegree( v ), frozen.getInDegree( v ) );
+            assertEquals( g.getOutDegree( v ), frozen.getOutDegree( v ) );
+            assertEquals( toSet( g.getInbound( v ) ), toSet( frozen.getInbound( v ) ) );
+            assertEquals( toSet( g.getOutbound( v ) ), toSet( frozen.getOutbound( v ) ) );
+            for ( BaseLabeledVertex u : g.getVertices() )
+            {
+                assertEquals( g.getEdge( v, u ), frozen.getEdge( v, u ) );
+            }
+        }
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            assertTrue( frozen.containsEdge( e ) );
+            assertEquals( g.getVertices( e ), frozen.getVertices( e ) );
+        }
+    }
+
+    @Test
+    public final void frozenUndirectedGraphMirrorsSource()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 20, g );
+
+        FrozenUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge> frozen = g.freeze();
+
+        assertEquals( g.getOrder(), frozen.getOrder() );
+        assertEquals( g.getSize(), frozen.getSize() );
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            assertEquals( g.getDegree( v ), frozen.getDegree( v ) );
+            assertEquals( toSet( g.getConnectedVertices( v ) ), toSet( frozen.getConnectedVertices( v ) ) );
+            for ( BaseLabeledVertex u : g.getVertices() )
+            {
+                assertEquals( g.getEdge( v, u ), frozen.getEdge( v, u ) );
+            }
+        }
+    }
+
+    @Test
+    public final void frozenGraphIsASnapshot()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 5, g );
+
+        FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> frozen = g.freeze();
+        BaseLabeledVertex extra = new BaseLabeledVertex( "extra" );
+        g.addVertex( extra );
+
+        assertFalse( frozen.containsVertex( extra ) );
+        assertEquals( 5, frozen.getOrder() );
+        assertNull( frozen.getVertices( new BaseLabeledEdge( "not exists" ) ) );
+        assertEquals( frozen, new FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( frozen ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public final void frozenGraphIsReadOnly()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 5, g );
+
+        g.freeze().getConnectedVertices( new BaseLabeledVertex( valueOf( 0 ) ) ).iterator().remove();
+    }
+
+    @Test( expected = GraphException.class )
+    public final void frozenGraphRejectsUnknownVertices()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 5, g );
+
+        g.freeze().getConnectedVertices( new BaseLabeledVertex( "not exists" ) );
+    }
+
+    private static <V> Set<V> toSet( Iterable<V> iterable )
+    {
+        Set<V> set = new HashSet<V>();
+        for ( V v : iterable )
+        {
+            set.add( v );
+        }
+        return set;
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks change listeners are notified of every change, either one by one or in batches.
+ */
+public class GraphChangeListenerTestCase
+{
+
+    @Test
+    public final void changesAreNotifiedInOrder()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final List<String> notified = new ArrayList<String>();
+        GraphChangeListener<Object, Object> listener = new GraphChangeListener<Object, Object>()
+        {
+
+            public void vertexAdded( Object v )
+            {
+                notified.add( "+" + v );
+            }
+
+            public void vertexRemoved( Object v )
+            {
+                notified.add( "-" + v );
+            }
+
+            public void edgeAdded( Object head, Object e, Object tail )
+            {
+                notified.add( "+" + e );
+            }
+
+            public void edgeRemoved( Object head, Object e, Object tail )
+            {
+                notified.add( "-" + e );
+            }
+
+        };
+        g.addGraphChangeListener( listener );
+
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        BaseLabeledEdge ab = new BaseLabeledEdge( "a -- b" );
+        g.addVertex( a );
+        g.addVertex( b );
+        g.addEdge( a, ab, b );
+        g.removeVertex( b );
+        g.removeGraphChangeListener( listener );
+        g.removeVertex( a );
+
+        assertEquals( asList( "+" + a, "+" + b, "+" + ab, "-" + ab, "-" + b ), notified );
+    }
+
+    @Test
+    public final void listenersUnregisterWhileNotified()
+    {
+        final UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final List<String> notified = new ArrayList<String>();
+        for ( final String name : asList( "first", "second" ) )
+        {
+            g.addGraphChangeListener( new GraphChangeAdapter()
+            {
+
+                @Override
+                public void vertexAdded( Object v )
+                {
+                    notified.add( name + " " + v );
+                    g.removeGraphChangeListener( this );
+                }
+
+            } );
+        }
+
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        g.addVertex( a );
+        g.addVertex( new BaseLabeledVertex( "b" ) );
+
+        // both listeners are notified once, of the change applied while they were registered
+        assertEquals( asList( "first " + a, "second " + a ), notified );
+    }
+
+    @Test
+    public final void batchesMaintainDownstreamGraph()
+    {
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> mirror =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        GraphChangeBatchListener<BaseLabeledVertex, BaseLabeledEdge> batchListener =
+            new GraphChangeBatchListener<BaseLabeledVertex, BaseLabeledEdge>()
+            {
+
+                public void changed( GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge> batch )
+                {
+                    batchSizes.add( batch.size() );
+                    for ( int i = 0; i < batch.size(); i++ )
+                    {
+                        switch ( batch.getChange( i ) )
+                        {
+                            case VERTEX_ADDED:
+                                mirror.addVertex( batch.getHead( i ) );
+                                break;
+
+                            case VERTEX_REMOVED:
+                                mirror.removeVertex( batch.getHead( i ) );
+                                break;
+
+                            case EDGE_ADDED:
+                                mirror.addEdge( batch.getHead( i ), batch.getEdge( i ), batch.getTail( i ) );
+                                break;
+
+                            default:
+                                mirror.removeEdge( batch.getEdge( i ) );
+                                break;
+                        }
+                    }
+                }
+
+            };
+        GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge> buffer =
+            new GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge>( 3, batchListener );
+        g.addGraphChangeListener( buffer );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+        for ( int i = 0; i < 5; i++ )
+        {
+            BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+            BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i + 1 ) % 5 ) );
+            g.addEdge( head, new BaseLabeledEdge( head + " -> " + tail ), tail );
+        }
+        g.removeVertex( new BaseLabeledVertex( "0" ) );
+        buffer.flush();
+
+        assertEquals( g, mirror );
+        // 10 additions, 2 edge removals and a vertex removal, in batches of the capacity rounded to a power of two
+        assertEquals( asList( 4, 4, 4, 1 ), batchSizes );
+    }
+
+    @Test
+    public final void batchesAreReplayed()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> mirror =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final GraphChangeListener<BaseLabeledVertex, BaseLabeledEdge> applier =
+            new GraphChangeListener<BaseLabeledVertex, BaseLabeledEdge>()
+            {
+
+                public void vertexAdded( BaseLabeledVertex v )
+                {
+                    mirror.addVertex( v );
+                }
+
+                public void vertexRemoved( BaseLabeledVertex v )
+                {
+                    mirror.removeVertex( v );
+                }
+
+                public void edgeAdded( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+                {
+                    mirror.addEdge( head, e, tail );
+                }
+
+                public void edgeRemoved( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+                {
+                    mirror.removeEdge( e );
+                }
+
+            };
+        GraphChangeBatchListener<BaseLabeledVertex, BaseLabeledEdge> batchListener =
+            new GraphChangeBatchListener<BaseLabeledVertex, BaseLabeledEdge>()
+            {
+
+                public void changed( GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge> batch )
+                {
+                    batch.replay( applier );
+                }
+
+            };
+        GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge> buffer =
+            new GraphChangeBuffer<BaseLabeledVertex, BaseLabeledEdge>( 1024, batchListener );
+        g.addGraphChangeListener( buffer );
+
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        g.addVertex( a );
+        g.addVertex( b );
+        g.addEdge( a, new BaseLabeledEdge( "a -> b" ), b );
+        g.addEdge( b, new BaseLabeledEdge( "b -> a" ), a );
+        g.removeEdge( new BaseLabeledEdge( "a -> b" ) );
+        assertEquals( 0, mirror.getOrder() );
+
+        buffer.flush();
+        assertEquals( g, mirror );
+        assertEquals( 1, mirror.getSize() );
+    }
+
+    private static class GraphChangeAdapter
+        implements GraphChangeListener<Object, Object>
+    {
+
+        public void vertexAdded( Object v )
+        {
+            // do nothing
+        }
+
+        public void vertexRemoved( Object v )
+        {
+            // do nothing
+        }
+
+        public void edgeAdded( Object head, Object e, Object tail )
+        {
+            // do nothing
+        }
+
+        public void edgeRemoved( Object head, Object e, Object tail )
+        {
+            // do nothing
+        }
+
+    }
+
+}
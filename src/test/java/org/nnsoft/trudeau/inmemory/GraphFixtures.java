@@ -0,0 +1,97 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.MutableGraph;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Graph builders shared by the test cases.
+ */
+final class GraphFixtures
+{
+
+    /**
+     * Hidden constructor, this class cannot be instantiated.
+     */
+    private GraphFixtures()
+    {
+        // do nothing
+    }
+
+    /**
+     * Creates a complete graph with nVertices
+     *
+     * @param nVertices number of vertices
+     * @param g graph
+     */
+    static void buildCompleteGraph( int nVertices, MutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+
+        for ( BaseLabeledVertex v1 : g.getVertices() )
+        {
+            for ( BaseLabeledVertex v2 : g.getVertices() )
+            {
+                if ( !v1.equals( v2 ) && g.getEdge( v1, v2 ) == null )
+                {
+                    try
+                    {
+                        g.addEdge( v1, new BaseLabeledEdge( format( "%s -> %s", v1, v2 ) ), v2 );
+                    }
+                    catch ( GraphException e )
+                    {
+                        // ignore, another thread connected the same pair
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a ring of {@code nVertices} vertices, where each vertex is connected to the next two ones.
+     *
+     * @param nVertices number of vertices
+     * @param g graph
+     */
+    static void buildRing( int nVertices, MutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+            for ( int step = 1; step <= 2; step++ )
+            {
+                BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i + step ) % nVertices ) );
+                g.addEdge( head, new BaseLabeledEdge( format( "%s -> %s", head, tail ) ), tail );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks journaled graphs are restored as they were when their changes were last committed.
+ */
+public class GraphJournalTestCase
+{
+
+    private File directory;
+
+    // journals left open to simulate crashes are closed once the test is over
+    private final List<GraphJournal<?, ?, ?>> journals = new ArrayList<GraphJournal<?, ?, ?>>();
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        directory = File.createTempFile( "journal", "" );
+        directory.delete();
+    }
+
+    @After
+    public void tearDown()
+        throws IOException
+    {
+        for ( GraphJournal<?, ?, ?> journal : journals )
+        {
+            journal.close();
+        }
+        for ( File file : directory.listFiles() )
+        {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public final void committedChangesAreRecovered()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 16 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 100 );
+        g.removeVertex( new BaseLabeledVertex( "50" ) );
+        g.removeEdge( new BaseLabeledEdge( "10 -> 11" ) );
+        journal.commit();
+
+        // changes after the last commit do not survive a crash
+        g.addVertex( new BaseLabeledVertex( "lost" ) );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> expected = copyOf( g );
+        expected.removeVertex( new BaseLabeledVertex( "lost" ) );
+
+        assertEquals( expected, open( 16 ).getGraph() );
+    }
+
+    @Test
+    public final void logTailIsReplayedOverSnapshot()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 1024 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 100 );
+        journal.checkpoint();
+        assertEquals( 8, new File( directory, GraphJournal.LOG_FILE ).length() );
+
+        buildChain( g, 100, 200 );
+        g.removeVertex( new BaseLabeledVertex( "0" ) );
+        journal.close();
+
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> recovered =
+            open( 1024 );
+        assertEquals( g, recovered.getGraph() );
+
+        // the recovered graph keeps being journaled
+        recovered.getGraph().removeVertex( new BaseLabeledVertex( "1" ) );
+        recovered.close();
+        assertFalse( open( 1024 ).getGraph().containsVertex( new BaseLabeledVertex( "1" ) ) );
+    }
+
+    @Test
+    public final void tornFrameIsDiscarded()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 1024 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 10 );
+        journal.commit();
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> expected = copyOf( g );
+        buildChain( g, 10, 20 );
+        journal.close();
+
+        // a crash in the middle of the last frame write
+        File log = new File( directory, GraphJournal.LOG_FILE );
+        RandomAccessFile file = new RandomAccessFile( log, "rw" );
+        file.setLength( file.length() - 3 );
+        file.close();
+
+        journal = open( 1024 );
+        assertEquals( expected, journal.getGraph() );
+        journal.getGraph().addVertex( new BaseLabeledVertex( "after" ) );
+        journal.close();
+        assertTrue( open( 1024 ).getGraph().containsVertex( new BaseLabeledVertex( "after" ) ) );
+    }
+
+    @Test
+    public final void framesCoveredBySnapshotAreSkipped()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 4 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 10 );
+        journal.commit();
+        File log = new File( directory, GraphJournal.LOG_FILE );
+        byte[] beforeCheckpoint = readFully( log );
+
+        journal.checkpoint();
+        journal.close();
+
+        // a crash after the snapshot has been written, but before the log has been emptied
+        FileOutputStream out = new FileOutputStream( log );
+        out.write( beforeCheckpoint );
+        out.close();
+
+        assertEquals( g, open( 4 ).getGraph() );
+    }
+
+    @Test
+    public final void previousSnapshotIsRestoredWhileReplaced()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 1024 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 10 );
+        journal.checkpoint();
+        buildChain( g, 10, 20 );
+        journal.close();
+
+        // a crash after the previous snapshot has been moved aside, before the new one has been renamed
+        File snapshot = new File( directory, GraphJournal.SNAPSHOT_FILE );
+        assertTrue( snapshot.renameTo( new File( directory, GraphJournal.PREVIOUS_SNAPSHOT_FILE ) ) );
+        FileOutputStream temporary = new FileOutputStream( new File( directory, GraphJournal.SNAPSHOT_FILE + ".tmp" ) );
+        temporary.write( new byte[] { 1, 2, 3 } );
+        temporary.close();
+
+        assertEquals( g, open( 1024 ).getGraph() );
+    }
+
+    @Test
+    public final void lostSnapshotRenameIsRecoveredFromRotatedLog()
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            open( 4 );
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g = journal.getGraph();
+        buildChain( g, 0, 10 );
+        journal.checkpoint();
+        File snapshot = new File( directory, GraphJournal.SNAPSHOT_FILE );
+        byte[] firstSnapshot = readFully( snapshot );
+
+        buildChain( g, 10, 20 );
+        journal.checkpoint();
+        buildChain( g, 20, 30 );
+        journal.close();
+
+        // a power loss after the second checkpoint, which did not make the snapshot rename durable
+        FileOutputStream out = new FileOutputStream( snapshot );
+        out.write( firstSnapshot );
+        out.close();
+
+        assertEquals( g, open( 4 ).getGraph() );
+    }
+
+    private GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> open( int groupSize )
+        throws IOException
+    {
+        GraphJournal<BaseLabeledVertex, BaseLabeledEdge, DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>> journal =
+            GraphJournal.open( directory, new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>(), groupSize,
+                               Long.MAX_VALUE );
+        journals.add( journal );
+        return journal;
+    }
+
+    /**
+     * Adds the {@code [from, to)} vertices, each one connected to the previous one.
+     */
+    private static void buildChain( DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g, int from, int to )
+    {
+        for ( int i = from; i < to; i++ )
+        {
+            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+            g.addVertex( v );
+            if ( i > 0 )
+            {
+                g.addEdge( new BaseLabeledVertex( valueOf( i - 1 ) ), new BaseLabeledEdge( ( i - 1 ) + " -> " + i ), v );
+            }
+        }
+    }
+
+    private static DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> copyOf( DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> copy =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            copy.addVertex( v );
+        }
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            copy.addEdge( g.getVertices( e ).getHead(), e, g.getVertices( e ).getTail() );
+        }
+        return copy;
+    }
+
+    private static byte[] readFully( File file )
+        throws IOException
+    {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream( file );
+        try
+        {
+            int read = 0;
+            while ( read < bytes.length )
+            {
+                read += in.read( bytes, read, bytes.length - read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+import static java.util.Arrays.asList;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Compares the throughput of loading a graph via {@link GraphLoader} against repeated
+ * {@link BaseMutableGraph#addEdge(Object, Object, Object)} calls.
+ *
+ * Run as a plain Java application, optionally passing the number of vertices and edges; the JVM has to be started
+ * with a heap large enough to hold the graph, i.e. {@code -Xmx2g} for the defaults.
+ */
+public final class GraphLoaderBenchmark
+{
+
+    private static final int ROUNDS = 5;
+
+    public static void main( String[] args )
+    {
+        final int nVertices = args.length > 0 ? Integer.parseInt( args[0] ) : 100000;
+        final int nEdges = args.length > 1 ? Integer.parseInt( args[1] ) : 1000000;
+
+        final BaseLabeledVertex[] vertices = new BaseLabeledVertex[nVertices];
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            vertices[i] = new BaseLabeledVertex( valueOf( i ) );
+        }
+
+        // both paths are fed the same edges, none of them connecting the same vertices twice
+        final BaseLabeledEdge[] edges = new BaseLabeledEdge[nEdges];
+        final int[] heads = new int[nEdges];
+        final int[] tails = new int[nEdges];
+        final Set<Long> connected = new HashSet<Long>();
+        final Random random = new Random( 7 );
+        for ( int i = 0; i < nEdges; i++ )
+        {
+            do
+            {
+                heads[i] = random.nextInt( nVertices );
+                tails[i] = random.nextInt( nVertices );
+            }
+            while ( !connected.add( (long) Math.min( heads[i], tails[i] ) * nVertices
+                                    + Math.max( heads[i], tails[i] ) ) );
+            edges[i] = new BaseLabeledEdge( valueOf( i ) );
+        }
+
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            long start = System.nanoTime();
+            DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> incremental =
+                new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+            for ( BaseLabeledVertex v : vertices )
+            {
+                incremental.addVertex( v );
+            }
+            for ( int i = 0; i < nEdges; i++ )
+            {
+                incremental.addEdge( vertices[heads[i]], edges[i], vertices[tails[i]] );
+            }
+            report( "addEdge, directed", start, nEdges );
+
+            start = System.nanoTime();
+            GraphLoader<BaseLabeledVertex, BaseLabeledEdge> loader =
+                new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( nVertices, nEdges );
+            for ( BaseLabeledVertex v : vertices )
+            {
+                loader.addVertex( v );
+            }
+            for ( int i = 0; i < nEdges; i++ )
+            {
+                loader.addEdge( vertices[heads[i]], edges[i], vertices[tails[i]] );
+            }
+            loader.buildDirected();
+            report( "GraphLoader, directed", start, nEdges );
+
+            start = System.nanoTime();
+            UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> undirected =
+                new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+            for ( BaseLabeledVertex v : vertices )
+            {
+                undirected.addVertex( v );
+            }
+            for ( int i = 0; i < nEdges; i++ )
+            {
+                undirected.addEdge( vertices[heads[i]], edges[i], vertices[tails[i]] );
+            }
+            report( "addEdge, undirected", start, nEdges );
+
+            start = System.nanoTime();
+            loader = new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( nVertices, nEdges );
+            loader.addVertices( asList( vertices ) );
+            for ( int i = 0; i < nEdges; i++ )
+            {
+                loader.addEdge( vertices[heads[i]], edges[i], vertices[tails[i]] );
+            }
+            loader.buildUndirected();
+            report( "GraphLoader, undirected", start, nEdges );
+        }
+    }
+
+    private static void report( String path, long start, int nEdges )
+    {
+        final long elapsed = System.nanoTime() - start;
+        System.out.println( format( "%s: %s ms, %s edges/s", path, elapsed / 1000000L,
+                                    (long) ( nEdges * 1e9 / elapsed ) ) );
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks graphs built by the {@link GraphLoader} match the ones built edge by edge.
+ */
+public class GraphLoaderTestCase
+{
+
+    private static final int N_VERTICES = 500;
+
+    @Test
+    public final void loadedDirectedGraphMatchesIncrementalGraph()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> incremental =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        GraphLoader<BaseLabeledVertex, BaseLabeledEdge> loader =
+            new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( N_VERTICES, 0 );
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+            incremental.addVertex( v );
+            loader.addVertex( v );
+        }
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            // vertex 0 becomes a hub, its arcs are indexed
+            for ( int j : new int[] { 0, i, ( i * 7 ) % N_VERTICES } )
+            {
+                BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+                BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( j ) );
+                if ( incremental.getEdge( head, tail ) == null )
+                {
+                    BaseLabeledEdge e = new BaseLabeledEdge( head + " -> " + tail );
+                    incremental.addEdge( head, e, tail );
+                    loader.addEdge( head, e, tail );
+                }
+            }
+        }
+
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> loaded = loader.buildDirected();
+        assertEquals( incremental, loaded );
+        assertEquals( incremental.getSize(), loaded.getSize() );
+        for ( BaseLabeledVertex v : incremental.getVertices() )
+        {
+            assertEquals( incremental.getInDegree( v ), loaded.getInDegree( v ) );
+            assertEquals( incremental.getOutDegree( v ), loaded.getOutDegree( v ) );
+        }
+        BaseLabeledVertex hub = new BaseLabeledVertex( "0" );
+        BaseLabeledVertex leaf = new BaseLabeledVertex( "42" );
+        assertSame( incremental.getEdge( leaf, hub ), loaded.getEdge( leaf, hub ) );
+
+        // the loaded graph is a regular mutable graph
+        loaded.removeVertex( hub );
+        incremental.removeVertex( hub );
+        assertEquals( incremental, loaded );
+    }
+
+    @Test
+    public final void loadedUndirectedGraphMatchesIncrementalGraph()
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> incremental =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        GraphLoader<BaseLabeledVertex, BaseLabeledEdge> loader =
+            new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( 1, 1 );
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+            incremental.addVertex( v );
+            loader.addVertices( asList( v ) );
+        }
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+            BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i + 1 ) % N_VERTICES ) );
+            BaseLabeledEdge e = new BaseLabeledEdge( head + " -- " + tail );
+            incremental.addEdge( head, e, tail );
+            loader.addEdge( head, e, tail );
+        }
+        BaseLabeledVertex loop = new BaseLabeledVertex( "0" );
+        incremental.addEdge( loop, new BaseLabeledEdge( "0 -- 0" ), loop );
+        loader.addEdge( loop, new BaseLabeledEdge( "0 -- 0" ), loop );
+
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> loaded = loader.buildUndirected();
+        assertEquals( incremental, loaded );
+        assertEquals( 3, loaded.getDegree( loop ) );
+        assertEquals( incremental.getDegree( loop ), loaded.getDegree( loop ) );
+    }
+
+    @Test
+    public final void edgesAreLoadedInBatches()
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> incremental =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        GraphLoader<BaseLabeledVertex, BaseLabeledEdge> loader =
+            new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( N_VERTICES, N_VERTICES );
+        List<BaseLabeledVertex> heads = new ArrayList<BaseLabeledVertex>();
+        List<BaseLabeledEdge> edges = new ArrayList<BaseLabeledEdge>();
+        List<BaseLabeledVertex> tails = new ArrayList<BaseLabeledVertex>();
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+            incremental.addVertex( v );
+            loader.addVertex( v );
+        }
+        for ( int i = 0; i < N_VERTICES; i++ )
+        {
+            BaseLabeledVertex head = new BaseLabeledVertex( valueOf( i ) );
+            BaseLabeledVertex tail = new BaseLabeledVertex( valueOf( ( i + 1 ) % N_VERTICES ) );
+            BaseLabeledEdge e = new BaseLabeledEdge( head + " -> " + tail );
+            incremental.addEdge( head, e, tail );
+            heads.add( head );
+            edges.add( e );
+            tails.add( tail );
+            if ( edges.size() == 64 )
+            {
+                loader.addEdges( heads, edges, tails );
+                heads.clear();
+                edges.clear();
+                tails.clear();
+            }
+        }
+        loader.addEdges( heads, edges, tails );
+
+        assertEquals( incremental, loader.buildDirected() );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void batchToMissingVertexIsRejected()
+    {
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( 1, 2 )
+            .addVertex( a )
+            .addEdges( asList( a, a ), asList( new BaseLabeledEdge( "a -> a" ), new BaseLabeledEdge( "a -> b" ) ),
+                       asList( a, new BaseLabeledVertex( "b" ) ) );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void parallelEdgesAreRejected()
+    {
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( 2, 2 )
+            .addVertex( a )
+            .addVertex( b )
+            .addEdge( a, new BaseLabeledEdge( "a -- b" ), b )
+            .addEdge( b, new BaseLabeledEdge( "b -- a" ), a )
+            .buildUndirected();
+    }
+
+    @Test( expected = GraphException.class )
+    public final void edgeToMissingVertexIsRejected()
+    {
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        new GraphLoader<BaseLabeledVertex, BaseLabeledEdge>( 1, 1 )
+            .addVertex( a )
+            .addEdge( a, new BaseLabeledEdge( "a -> b" ), new BaseLabeledVertex( "b" ) );
+    }
+
+}
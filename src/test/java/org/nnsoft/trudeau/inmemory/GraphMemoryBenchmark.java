@@ -0,0 +1,103 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+
+import java.util.Random;
+
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Measures the heap retained by the graph storage for each edge, excluding the vertices and edges objects themselves.
+ *
+ * Run as a plain Java application, optionally passing the number of vertices and edges; the JVM has to be started
+ * with a heap large enough to hold the graph, i.e. {@code -Xmx2g} for the defaults.
+ */
+public final class GraphMemoryBenchmark
+{
+
+    public static void main( String[] args )
+    {
+        final int nVertices = args.length > 0 ? Integer.parseInt( args[0] ) : 100000;
+        final int nEdges = args.length > 1 ? Integer.parseInt( args[1] ) : 1000000;
+
+        final BaseLabeledVertex[] vertices = new BaseLabeledVertex[nVertices];
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            vertices[i] = new BaseLabeledVertex( valueOf( i ) );
+        }
+        final BaseLabeledEdge[] edges = new BaseLabeledEdge[nEdges];
+        final int[] heads = new int[nEdges];
+        final int[] tails = new int[nEdges];
+        final Random random = new Random( 7 );
+        for ( int i = 0; i < nEdges; i++ )
+        {
+            edges[i] = new BaseLabeledEdge( valueOf( i ) );
+            heads[i] = random.nextInt( nVertices );
+            tails[i] = random.nextInt( nVertices );
+        }
+
+        measure( new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>(), vertices, edges, heads, tails );
+        measure( new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>(), vertices, edges, heads, tails );
+    }
+
+    private static void measure( BaseMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g,
+                                 BaseLabeledVertex[] vertices, BaseLabeledEdge[] edges, int[] heads, int[] tails )
+    {
+        final long before = usedMemory();
+
+        for ( BaseLabeledVertex v : vertices )
+        {
+            g.addVertex( v );
+        }
+        for ( int i = 0; i < edges.length; i++ )
+        {
+            BaseLabeledVertex head = vertices[heads[i]];
+            BaseLabeledVertex tail = vertices[tails[i]];
+            if ( g.getEdge( head, tail ) == null && g.getEdge( tail, head ) == null )
+            {
+                g.addEdge( head, edges[i], tail );
+            }
+        }
+
+        final long retained = usedMemory() - before;
+        System.out.println( format( "%s: %s vertices, %s edges, %s bytes/edge", g.getClass().getSimpleName(),
+                                    g.getOrder(), g.getSize(), retained / g.getSize() ) );
+    }
+
+    private static long usedMemory()
+    {
+        final Runtime runtime = Runtime.getRuntime();
+        for ( int i = 0; i < 5; i++ )
+        {
+            System.gc();
+            try
+            {
+                Thread.sleep( 100 );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks the partitions of vertices and edges and the parallel visits built on top of them.
+ */
+public final class GraphPartitionsTestCase
+{
+
+    private DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp()
+    {
+        // a star with a hub connected to all the other vertices, followed by a sparse chain
+        g = new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            g.addVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+        for ( int i = 1; i < 1000; i++ )
+        {
+            addEdge( 0, i );
+            if ( i > 500 )
+            {
+                addEdge( i - 1, i );
+            }
+        }
+        // removed vertices leave holes in the identifiers space
+        for ( int i = 100; i < 200; i++ )
+        {
+            g.removeVertex( new BaseLabeledVertex( valueOf( i ) ) );
+        }
+
+        executor = Executors.newFixedThreadPool( 4 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void partitionsConcatenateToTheWholeGraph()
+    {
+        for ( int parts : new int[] { 1, 3, 7, 2000 } )
+        {
+            assertEquals( toList( g.getVertices() ), concat( g.partitionVertices( parts ) ) );
+            assertEquals( toList( g.getVertices() ), concat( g.partitionVerticesByDegree( parts ) ) );
+            assertEquals( toList( g.getEdges() ), concat( g.partitionEdges( parts ) ) );
+            assertEquals( parts, g.partitionVertices( parts ).size() );
+        }
+    }
+
+    @Test
+    public void degreePartitionsIsolateHubs()
+    {
+        List<Iterable<BaseLabeledVertex>> partitions = g.partitionVerticesByDegree( 8 );
+
+        // the hub alone weighs about a quarter of the graph, more than the share of a single partition
+        assertEquals( 1, toList( partitions.get( 0 ) ).size() );
+        assertTrue( toList( g.partitionVertices( 8 ).get( 0 ) ).size() > 50 );
+    }
+
+    @Test
+    public void parallelVisitsReachEachElementOnce()
+    {
+        final AtomicInteger vertices = new AtomicInteger();
+        g.forEachVertex( new VertexVisitor<BaseLabeledVertex>()
+        {
+
+            public void visit( BaseLabeledVertex vertex )
+            {
+                vertices.addAndGet( Integer.parseInt( vertex.getLabel() ) + 1 );
+            }
+
+        }, executor );
+
+        int expected = 0;
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            expected += Integer.parseInt( v.getLabel() ) + 1;
+        }
+        assertEquals( expected, vertices.get() );
+
+        final AtomicInteger edges = new AtomicInteger();
+        g.forEachEdge( new EdgeVisitor<BaseLabeledVertex, BaseLabeledEdge>()
+        {
+
+            public void visit( BaseLabeledVertex head, BaseLabeledEdge e, BaseLabeledVertex tail )
+            {
+                assertEquals( format( "%s -> %s", head.getLabel(), tail.getLabel() ), e.getLabel() );
+                edges.incrementAndGet();
+            }
+
+        }, executor );
+        assertEquals( g.getSize(), edges.get() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void parallelVisitFailuresAreRethrown()
+    {
+        g.forEachVertex( new VertexVisitor<BaseLabeledVertex>()
+        {
+
+            public void visit( BaseLabeledVertex vertex )
+            {
+                if ( "999".equals( vertex.getLabel() ) )
+                {
+                    throw new IllegalStateException();
+                }
+            }
+
+        }, executor );
+    }
+
+    private void addEdge( int head, int tail )
+    {
+        g.addEdge( new BaseLabeledVertex( valueOf( head ) ), new BaseLabeledEdge( format( "%s -> %s", head, tail ) ),
+                   new BaseLabeledVertex( valueOf( tail ) ) );
+    }
+
+    private static <T> List<T> concat( List<Iterable<T>> partitions )
+    {
+        List<T> list = new ArrayList<T>();
+        for ( Iterable<T> partition : partitions )
+        {
+            list.addAll( toList( partition ) );
+        }
+        return list;
+    }
+
+    private static <T> List<T> toList( Iterable<T> iterable )
+    {
+        List<T> list = new ArrayList<T>();
+        for ( T element : iterable )
+        {
+            list.add( element );
+        }
+        return list;
+    }
+
+}
@@ -113,6 +113,39 @@ public class GraphSerializationTestCase
         checkSerialization( spanningTree );
     }
 
+    @Test
+    public void serializeDirectedGraphWithRemovedVertex()
+        throws Exception
+    {
+        MutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+                        new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildGraphConnections( g );
+        g.removeVertex( new BaseLabeledVertex( "a" ) );
+
+        checkSerialization( g );
+    }
+
+    @Test
+    public void deserializedGraphIsMutable()
+        throws Exception
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+                        new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildGraphConnections( g );
+
+        @SuppressWarnings( "unchecked" )
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> cloned =
+            (DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>) checkSerialization( g );
+
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        BaseLabeledVertex d = new BaseLabeledVertex( "d" );
+        assertEquals( 1, cloned.getInDegree( b ) );
+        cloned.removeEdge( new BaseLabeledEdge( "d -> b" ) );
+        cloned.addEdge( b, new BaseLabeledEdge( "b -> d" ), d );
+        assertEquals( 0, cloned.getInDegree( b ) );
+        assertEquals( 2, cloned.getInDegree( d ) );
+    }
+
     @Test
     public void serializeSyncronyzedDirectedWeightdGraph()
         throws Exception
@@ -154,8 +187,9 @@ public class GraphSerializationTestCase
      * @throws FileNotFoundException
      * @throws IOException
      * @throws ClassNotFoundException
+     * @return the deserialized graph
      */
-    private static void checkSerialization( Graph<BaseLabeledVertex, ? extends Serializable> g )
+    private static Object checkSerialization( Graph<BaseLabeledVertex, ? extends Serializable> g )
         throws FileNotFoundException, IOException, ClassNotFoundException
     {
         FileOutputStream fout = new FileOutputStream( FILE_NAME );
@@ -169,6 +203,7 @@ public class GraphSerializationTestCase
         ois.close();
 
         assertEquals( g, cloned );
+        return cloned;
     }
 
     private static void buildGraphConnections( MutableGraph<BaseLabeledVertex, BaseLabeledEdge> graph )
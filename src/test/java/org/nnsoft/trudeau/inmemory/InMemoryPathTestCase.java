@@ -0,0 +1,144 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks paths built from either end, and the lookups answered by their lazily built indexes.
+ */
+public final class InMemoryPathTestCase
+{
+
+    private static final int LENGTH = 100;
+
+    @Test
+    public void pathsBuiltFromEitherEndAreEqual()
+    {
+        InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> fromTarget =
+            new InMemoryPath<BaseLabeledVertex, BaseLabeledEdge>( vertex( 0 ), vertex( LENGTH ) );
+        for ( int i = LENGTH; i > 0; i-- )
+        {
+            fromTarget.addConnectionInHead( vertex( i - 1 ), edge( i - 1 ), vertex( i ) );
+        }
+
+        InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> fromSource =
+            new InMemoryPath<BaseLabeledVertex, BaseLabeledEdge>( vertex( 0 ), vertex( LENGTH ) );
+        for ( int i = 0; i < LENGTH; i++ )
+        {
+            fromSource.addConnectionInTail( vertex( i ), edge( i ), vertex( i + 1 ) );
+        }
+
+        // as rebuilt by a bidirectional search, meeting half way
+        InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> fromTouch =
+            new InMemoryPath<BaseLabeledVertex, BaseLabeledEdge>( vertex( 0 ), vertex( LENGTH ) );
+        for ( int i = LENGTH / 2; i > 0; i-- )
+        {
+            fromTouch.addConnectionInHead( vertex( i - 1 ), edge( i - 1 ), vertex( i ) );
+        }
+        for ( int i = LENGTH / 2; i < LENGTH; i++ )
+        {
+            fromTouch.addConnectionInTail( vertex( i ), edge( i ), vertex( i + 1 ) );
+        }
+
+        List<BaseLabeledVertex> vertices = new ArrayList<BaseLabeledVertex>();
+        List<BaseLabeledEdge> edges = new ArrayList<BaseLabeledEdge>();
+        for ( int i = 0; i <= LENGTH; i++ )
+        {
+            vertices.add( vertex( i ) );
+            if ( i < LENGTH )
+            {
+                edges.add( edge( i ) );
+            }
+        }
+
+        for ( InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> path : asList( fromTarget, fromSource, fromTouch ) )
+        {
+            assertEquals( vertices, path.getVertices() );
+            assertEquals( edges, path.getEdges() );
+            assertEquals( LENGTH + 1, path.getOrder() );
+            assertEquals( LENGTH, path.getSize() );
+            assertEquals( fromTarget, path );
+            assertEquals( fromTarget.hashCode(), path.hashCode() );
+        }
+    }
+
+    @Test
+    public void lookupsFollowConnections()
+    {
+        InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> path =
+            new InMemoryPath<BaseLabeledVertex, BaseLabeledEdge>( vertex( 0 ), vertex( 3 ) );
+        path.addConnectionInHead( vertex( 2 ), edge( 2 ), vertex( 3 ) );
+
+        assertTrue( path.containsVertex( vertex( 3 ) ) );
+        assertFalse( path.containsVertex( vertex( 1 ) ) );
+        assertNull( path.getEdge( vertex( 1 ), vertex( 2 ) ) );
+
+        // indexes are rebuilt after the path grows
+        path.addConnectionInHead( vertex( 1 ), edge( 1 ), vertex( 2 ) );
+        path.addConnectionInHead( vertex( 0 ), edge( 0 ), vertex( 1 ) );
+
+        assertTrue( path.containsVertex( vertex( 1 ) ) );
+        assertTrue( path.containsEdge( edge( 0 ) ) );
+        assertFalse( path.containsEdge( edge( 3 ) ) );
+        assertEquals( edge( 1 ), path.getEdge( vertex( 1 ), vertex( 2 ) ) );
+        assertNull( path.getEdge( vertex( 2 ), vertex( 1 ) ) );
+        assertEquals( new VertexPair<BaseLabeledVertex>( vertex( 2 ), vertex( 3 ) ), path.getVertices( edge( 2 ) ) );
+        assertNull( path.getVertices( edge( 3 ) ) );
+        assertEquals( asList( vertex( 2 ) ), path.getConnectedVertices( vertex( 1 ) ) );
+        assertNull( path.getConnectedVertices( vertex( 3 ) ) );
+        assertEquals( 1, path.getDegree( vertex( 0 ) ) );
+        assertEquals( 2, path.getDegree( vertex( 2 ) ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void verticesAreReadOnly()
+    {
+        InMemoryPath<BaseLabeledVertex, BaseLabeledEdge> path =
+            new InMemoryPath<BaseLabeledVertex, BaseLabeledEdge>( vertex( 0 ), vertex( 1 ) );
+        path.addConnectionInHead( vertex( 0 ), edge( 0 ), vertex( 1 ) );
+
+        Iterator<BaseLabeledVertex> vertices = path.getVertices().iterator();
+        vertices.next();
+        vertices.remove();
+    }
+
+    private static BaseLabeledVertex vertex( int i )
+    {
+        return new BaseLabeledVertex( valueOf( i ) );
+    }
+
+    private static BaseLabeledEdge edge( int i )
+    {
+        return new BaseLabeledEdge( i + " -> " + ( i + 1 ) );
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.CodedLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.CodedLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.LabelDictionary;
+
+/**
+ * Checks the label dictionary restores the encoded labels and graphs of coded elements are looked up by label.
+ */
+public final class LabelDictionaryTestCase
+{
+
+    @Test
+    public void labelsAreRestoredAsEncoded()
+    {
+        LabelDictionary dictionary = new LabelDictionary( 1 );
+        String[] labels = { "", "a -> b", "caf\u00e9", "\u20ac", "\ud83d\ude00 smile", "unpaired \ud83d", "a -> c" };
+        int[] codes = new int[labels.length];
+        for ( int i = 0; i < labels.length; i++ )
+        {
+            codes[i] = dictionary.encode( labels[i] );
+        }
+        // labels are stored once
+        for ( int i = 0; i < labels.length; i++ )
+        {
+            assertEquals( codes[i], dictionary.encode( new String( labels[i] ) ) );
+            assertEquals( codes[i], dictionary.codeOf( labels[i] ) );
+            assertEquals( labels[i], dictionary.decode( codes[i] ) );
+        }
+        assertEquals( labels.length, dictionary.size() );
+        assertEquals( -1, dictionary.codeOf( "a -> d" ) );
+        assertNull( dictionary.findVertex( "a -> d" ) );
+    }
+
+    @Test
+    public void codedElementsAreGraphKeys()
+        throws Exception
+    {
+        LabelDictionary dictionary = new LabelDictionary();
+        DirectedMutableGraph<CodedLabeledVertex, CodedLabeledEdge> g =
+            new DirectedMutableGraph<CodedLabeledVertex, CodedLabeledEdge>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            g.addVertex( dictionary.vertex( valueOf( i ) ) );
+        }
+        for ( int i = 1; i < 100; i++ )
+        {
+            g.addEdge( dictionary.vertex( valueOf( i - 1 ) ), dictionary.edge( ( i - 1 ) + " -> " + i ),
+                       dictionary.vertex( valueOf( i ) ) );
+        }
+
+        assertEquals( "41 -> 42", g.getEdge( dictionary.findVertex( "41" ), dictionary.findVertex( "42" ) ).getLabel() );
+        assertFalse( dictionary.vertex( "1" ).equals( new LabelDictionary().vertex( "1" ) ) );
+
+        @SuppressWarnings( "unchecked" )
+        DirectedMutableGraph<CodedLabeledVertex, CodedLabeledEdge> cloned =
+            (DirectedMutableGraph<CodedLabeledVertex, CodedLabeledEdge>) deserialize( serialize( g ) );
+
+        // the restored elements are encoded in the live dictionary
+        assertEquals( g, cloned );
+        assertTrue( cloned.containsEdge( dictionary.findEdge( "98 -> 99" ) ) );
+        assertEquals( "42", cloned.getVertices( dictionary.findEdge( "41 -> 42" ) ).getTail().getLabel() );
+    }
+
+    @Test
+    public void elementsAreSerializedAsLabels()
+        throws Exception
+    {
+        LabelDictionary dictionary = new LabelDictionary();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            dictionary.encode( valueOf( i ) );
+        }
+        CodedLabeledVertex vertex = dictionary.vertex( "a" );
+        CodedLabeledEdge edge = dictionary.edge( "a -> b" );
+
+        byte[] serialized = serialize( vertex );
+        assertTrue( "the dictionary is not serialized along with the element", serialized.length < 512 );
+        assertEquals( vertex, deserialize( serialized ) );
+        assertEquals( edge, deserialize( serialize( edge ) ) );
+    }
+
+    @Test
+    public void elementsAreDeserializedConcurrently()
+        throws Throwable
+    {
+        final LabelDictionary dictionary = new LabelDictionary();
+        final CodedLabeledVertex[] vertices = new CodedLabeledVertex[1000];
+        final byte[][] serialized = new byte[vertices.length][];
+        for ( int i = 0; i < vertices.length; i++ )
+        {
+            vertices[i] = dictionary.vertex( valueOf( i ) );
+            serialized[i] = serialize( vertices[i] );
+        }
+
+        TestRunner[] runners = new TestRunner[8];
+        for ( int r = 0; r < runners.length; r++ )
+        {
+            final int runner = r;
+            runners[r] = new TestRunner()
+            {
+
+                @Override
+                public void runTest()
+                {
+                    try
+                    {
+                        for ( int i = 0; i < vertices.length; i++ )
+                        {
+                            if ( runner % 2 == 0 )
+                            {
+                                assertEquals( vertices[i], deserialize( serialized[i] ) );
+                            }
+                            else
+                            {
+                                // appends new labels while the other runners look up the existing ones
+                                String label = runner + " -> " + i;
+                                assertEquals( label, dictionary.decode( dictionary.encode( label ) ) );
+                            }
+                        }
+                    }
+                    catch ( Exception e )
+                    {
+                        throw new RuntimeException( e );
+                    }
+                }
+
+            };
+        }
+        new MultiThreadedTestRunner( runners ).runRunnables();
+
+        assertEquals( vertices.length * 5, dictionary.size() );
+    }
+
+    private static byte[] serialize( Object element )
+        throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( bytes );
+        oos.writeObject( element );
+        oos.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize( byte[] serialized )
+        throws Exception
+    {
+        ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( serialized ) );
+        Object element = ois.readObject();
+        ois.close();
+        return element;
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.LabeledElementsFactory;
+
+/**
+ * Checks the labeled elements factory maps each label to one canonical instance, equal to the ones built directly.
+ */
+public final class LabeledElementsFactoryTestCase
+{
+
+    @Test
+    public void strongFactoryReturnsCanonicalInstances()
+    {
+        verifyCanonicalInstances( LabeledElementsFactory.strong() );
+    }
+
+    @Test
+    public void weakFactoryReturnsCanonicalInstances()
+    {
+        verifyCanonicalInstances( LabeledElementsFactory.weak() );
+    }
+
+    @Test
+    public void internedElementsAreGraphKeys()
+    {
+        LabeledElementsFactory factory = LabeledElementsFactory.strong();
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        g.addVertex( factory.vertex( "a" ) );
+        g.addVertex( factory.vertex( "b" ) );
+        g.addEdge( factory.vertex( "a" ), factory.edge( "a <-> b" ), factory.vertex( "b" ) );
+
+        assertSame( factory.edge( "a <-> b" ), g.getEdge( new BaseLabeledVertex( "b" ), new BaseLabeledVertex( "a" ) ) );
+        assertSame( factory.vertex( "b" ), g.getVertices( new BaseLabeledEdge( "a <-> b" ) ).getTail() );
+    }
+
+    private static void verifyCanonicalInstances( LabeledElementsFactory factory )
+    {
+        BaseLabeledVertex vertex = factory.vertex( "v" );
+        // a distinct, equal label must resolve to the same instance
+        assertSame( vertex, factory.vertex( new String( "v" ) ) );
+        assertEquals( new BaseLabeledVertex( "v" ), vertex );
+        assertEquals( new BaseLabeledVertex( "v" ).hashCode(), vertex.hashCode() );
+        assertFalse( vertex.equals( factory.vertex( "w" ) ) );
+
+        BaseLabeledEdge edge = factory.edge( "v" );
+        assertSame( edge, factory.edge( new String( "v" ) ) );
+        assertEquals( new BaseLabeledEdge( "v" ), edge );
+        assertNotSame( edge, factory.edge( "w" ) );
+    }
+
+}
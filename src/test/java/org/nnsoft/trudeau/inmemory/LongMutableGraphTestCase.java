@@ -0,0 +1,212 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+
+/**
+ * Checks the primitive {@code long} vertices graphs.
+ */
+public class LongMutableGraphTestCase
+{
+
+    @Test
+    public final void directedGraphMatchesGenericGraph()
+    {
+        LongDirectedMutableGraph<BaseLabeledEdge> g = new LongDirectedMutableGraph<BaseLabeledEdge>();
+        DirectedMutableGraph<Long, BaseLabeledEdge> expected = new DirectedMutableGraph<Long, BaseLabeledEdge>();
+        for ( long i = 0; i < 50; i++ )
+        {
+            g.addVertex( i * 1000003L );
+            expected.addVertex( i * 1000003L );
+        }
+        for ( long i = 0; i < 50; i++ )
+        {
+            for ( long j = 1; j <= 3; j++ )
+            {
+                long head = i * 1000003L;
+                long tail = ( ( i + j * 7 ) % 50 ) * 1000003L;
+                BaseLabeledEdge e = new BaseLabeledEdge( head + " -> " + tail );
+                g.addEdge( head, e, tail );
+                expected.addEdge( head, e, tail );
+            }
+        }
+
+        assertEquals( expected.getOrder(), g.getOrder() );
+        assertEquals( expected.getSize(), g.getSize() );
+        for ( Long v : expected.getVertices() )
+        {
+            assertEquals( expected.getInDegree( v ), g.getInDegree( v ) );
+            assertEquals( expected.getOutDegree( v ), g.getOutDegree( v ) );
+            assertEquals( toList( expected.getOutbound( v ) ), toList( g.getOutbound( v ) ) );
+            assertEquals( toList( expected.getInbound( v ) ), toList( g.getInbound( v ) ) );
+            for ( Long u : expected.getOutbound( v ) )
+            {
+                BaseLabeledEdge e = expected.getEdge( v, u );
+                assertEquals( e, g.getEdge( v.longValue(), u.longValue() ) );
+                assertEquals( new VertexPair<Long>( v, u ), g.getVertices( e ) );
+            }
+        }
+        assertEquals( expected.freeze(), g.freeze() );
+    }
+
+    @Test
+    public final void undirectedGraphConnectsBothWays()
+    {
+        LongUndirectedMutableGraph<BaseLabeledEdge> g = new LongUndirectedMutableGraph<BaseLabeledEdge>();
+        g.addVertex( 1L );
+        g.addVertex( 2L );
+        g.addVertex( 3L );
+        g.addEdge( 1L, new BaseLabeledEdge( "1 - 2" ), 2L );
+        g.addEdge( 2L, new BaseLabeledEdge( "2 - 3" ), 3L );
+        g.addEdge( 3L, new BaseLabeledEdge( "3 - 3" ), 3L );
+
+        assertEquals( 1, g.getDegree( 1L ) );
+        assertEquals( 2, g.getDegree( 2L ) );
+        assertEquals( 2, g.getDegree( 3L ) );
+        assertEquals( new BaseLabeledEdge( "1 - 2" ), g.getEdge( 2L, 1L ) );
+
+        final List<Long> visited = new ArrayList<Long>();
+        g.forEachOutbound( 2L, new LongVisitor()
+        {
+
+            public void visit( long vertex )
+            {
+                visited.add( vertex );
+            }
+
+        } );
+        assertEquals( 2, visited.size() );
+
+        g.removeVertex( 2L );
+        assertEquals( 2, g.getOrder() );
+        assertEquals( 1, g.getSize() );
+        assertEquals( 0, g.getDegree( 1L ) );
+        assertNull( g.getEdge( 1L, 3L ) );
+        assertFalse( g.containsEdge( new BaseLabeledEdge( "1 - 2" ) ) );
+
+        g.addVertex( 4L );
+        assertEquals( 3, g.getOrder() );
+        assertEquals( 0, g.getDegree( 4L ) );
+    }
+
+    @Test
+    public final void hubEdgesAreLookedUp()
+    {
+        LongUndirectedMutableGraph<BaseLabeledEdge> g = new LongUndirectedMutableGraph<BaseLabeledEdge>();
+        g.addVertex( 0L );
+        for ( long leaf = 1; leaf <= 200; leaf++ )
+        {
+            g.addVertex( leaf );
+            g.addEdge( 0L, new BaseLabeledEdge( "0 - " + leaf ), leaf );
+        }
+        for ( long leaf = 1; leaf <= 200; leaf += 2 )
+        {
+            g.removeVertex( leaf );
+        }
+        // slots of the removed leaves are recycled
+        for ( long leaf = 1001; leaf <= 1050; leaf++ )
+        {
+            g.addVertex( leaf );
+            g.addEdge( leaf, new BaseLabeledEdge( leaf + " - 0" ), 0L );
+        }
+
+        assertEquals( 150, g.getDegree( 0L ) );
+        for ( long leaf = 2; leaf <= 200; leaf += 2 )
+        {
+            assertEquals( new BaseLabeledEdge( "0 - " + leaf ), g.getEdge( 0L, leaf ) );
+        }
+        for ( long leaf = 1001; leaf <= 1050; leaf++ )
+        {
+            assertEquals( new BaseLabeledEdge( leaf + " - 0" ), g.getEdge( 0L, leaf ) );
+            assertEquals( new BaseLabeledEdge( leaf + " - 0" ), g.getEdge( leaf, 0L ) );
+        }
+        g.addVertex( 7777L );
+        assertNull( g.getEdge( 0L, 7777L ) );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void duplicateHubEdge()
+    {
+        LongDirectedMutableGraph<BaseLabeledEdge> g = new LongDirectedMutableGraph<BaseLabeledEdge>();
+        g.addVertex( 0L );
+        for ( long leaf = 1; leaf <= 100; leaf++ )
+        {
+            g.addVertex( leaf );
+            g.addEdge( 0L, new BaseLabeledEdge( "0 -> " + leaf ), leaf );
+        }
+        g.addEdge( 0L, new BaseLabeledEdge( "another 0 -> 42" ), 42L );
+    }
+
+    @Test
+    public final void serializeLongGraph()
+        throws Exception
+    {
+        LongDirectedMutableGraph<BaseLabeledEdge> g = new LongDirectedMutableGraph<BaseLabeledEdge>();
+        for ( long i = 0; i < 10; i++ )
+        {
+            g.addVertex( i );
+        }
+        for ( long i = 0; i < 9; i++ )
+        {
+            g.addEdge( i, new BaseLabeledEdge( i + " -> " + ( i + 1 ) ), i + 1 );
+        }
+        g.removeVertex( 5L );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( bytes );
+        oos.writeObject( g );
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        Object cloned = ois.readObject();
+        ois.close();
+
+        assertEquals( g, cloned );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void missingVertex()
+    {
+        new LongUndirectedMutableGraph<BaseLabeledEdge>().getDegree( 42L );
+    }
+
+    private static <T> List<T> toList( Iterable<T> iterable )
+    {
+        List<T> list = new ArrayList<T>();
+        for ( T t : iterable )
+        {
+            list.add( t );
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.nnsoft.trudeau.inmemory.GraphFixtures.buildRing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks that memory-mapped graphs answer the same queries of the graphs they were written from.
+ */
+public class MappedGraphTestCase
+{
+
+    private File file;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        file = File.createTempFile( "graph", ".trudeau" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public final void mappedDirectedGraphMirrorsSource()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 20, g );
+
+        MappedGraphWriter.write( g, file );
+        MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+
+        assertEquals( g.getOrder(), mapped.getOrder() );
+        assertEquals( g.getSize(), mapped.getSize() );
+        assertEquals( g.freeze(), new FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( mapped ) );
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            assertEquals( g.getInDegree( v ), mapped.getInDegree( v ) );
+            assertEquals( g.getOutDegree( v ), mapped.getOutDegree( v ) );
+            for ( BaseLabeledVertex u : g.getVertices() )
+            {
+                assertEquals( g.getEdge( v, u ), mapped.getEdge( v, u ) );
+            }
+        }
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            assertTrue( mapped.containsEdge( e ) );
+            assertEquals( g.getVertices( e ), mapped.getVertices( e ) );
+        }
+        assertFalse( mapped.containsVertex( new BaseLabeledVertex( "not exists" ) ) );
+        assertNull( mapped.getVertices( new BaseLabeledEdge( "not exists" ) ) );
+        mapped.close();
+    }
+
+    @Test
+    public final void sectionsSpanSeveralMappings()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 50, g );
+
+        MappedGraphWriter.write( g, file );
+        // 32 bytes buffers: 8 ints or 4 longs each, serialized elements span several data buffer strides
+        MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file, 5 );
+
+        assertEquals( g.freeze(), new FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( mapped ) );
+        for ( BaseLabeledEdge e : g.getEdges() )
+        {
+            assertEquals( g.getVertices( e ), mapped.getVertices( e ) );
+        }
+        mapped.close();
+    }
+
+    @Test
+    public final void elementsAreDeserializedOnce()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        // more elements than a cache page
+        buildRing( 3000, g );
+
+        MappedGraphWriter.write( g, file );
+        MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+
+        List<BaseLabeledVertex> vertices = new ArrayList<BaseLabeledVertex>();
+        for ( BaseLabeledVertex v : mapped.getVertices() )
+        {
+            vertices.add( v );
+        }
+        int id = 0;
+        for ( BaseLabeledVertex v : mapped.getVertices() )
+        {
+            assertSame( vertices.get( id++ ), v );
+        }
+        BaseLabeledEdge e = mapped.getEdge( new BaseLabeledVertex( "0" ), new BaseLabeledVertex( "1" ) );
+        assertSame( e, mapped.getEdge( new BaseLabeledVertex( "0" ), new BaseLabeledVertex( "1" ) ) );
+        mapped.close();
+    }
+
+    @Test
+    public final void mappedUndirectedGraphMirrorsSource()
+        throws IOException
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 20, g );
+
+        MappedGraphWriter.write( g, file );
+        MappedUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+
+        assertEquals( g.freeze(), new FrozenUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( mapped ) );
+        for ( BaseLabeledVertex v : g.getVertices() )
+        {
+            assertEquals( g.getDegree( v ), mapped.getDegree( v ) );
+        }
+        mapped.close();
+    }
+
+    @Test
+    public final void serializeMappedGraph()
+        throws Exception
+    {
+        UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new UndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 10, g );
+        MappedGraphWriter.write( g, file );
+        MappedUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( bytes );
+        oos.writeObject( mapped );
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        Object cloned = ois.readObject();
+        ois.close();
+
+        assertEquals( mapped, cloned );
+    }
+
+    @Test( expected = IOException.class )
+    public final void directedGraphCannotBeMappedAsUndirected()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 5, g );
+        MappedGraphWriter.write( g, file );
+
+        new MappedUndirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void closedGraphCannotBeUsed()
+        throws IOException
+    {
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( 5, g );
+        MappedGraphWriter.write( g, file );
+        MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge> mapped =
+            new MappedDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( file );
+        mapped.close();
+
+        mapped.getOutDegree( new BaseLabeledVertex( valueOf( 0 ) ) );
+    }
+
+}
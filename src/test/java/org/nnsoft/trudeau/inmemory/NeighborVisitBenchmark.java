@@ -0,0 +1,115 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+
+import java.util.Random;
+
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Compares the throughput of visiting the adjacency of each vertex via
+ * {@link BaseGraph#forEachNeighbor(Object, VertexVisitor)} against iterating {@link BaseGraph#getConnectedVertices(Object)}.
+ *
+ * Run as a plain Java application, optionally passing the number of vertices and edges; the JVM has to be started
+ * with a heap large enough to hold the graph, i.e. {@code -Xmx1g} for the defaults.
+ */
+public final class NeighborVisitBenchmark
+{
+
+    private static final int ROUNDS = 10;
+
+    private static final int PASSES = 10;
+
+    public static void main( String[] args )
+    {
+        final int nVertices = args.length > 0 ? Integer.parseInt( args[0] ) : 100000;
+        final int nEdges = args.length > 1 ? Integer.parseInt( args[1] ) : 1000000;
+
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        final BaseLabeledVertex[] vertices = new BaseLabeledVertex[nVertices];
+        for ( int i = 0; i < nVertices; i++ )
+        {
+            vertices[i] = new BaseLabeledVertex( valueOf( i ) );
+            g.addVertex( vertices[i] );
+        }
+        final Random random = new Random( 7 );
+        for ( int i = 0; i < nEdges; i++ )
+        {
+            BaseLabeledVertex head = vertices[random.nextInt( nVertices )];
+            BaseLabeledVertex tail = vertices[random.nextInt( nVertices )];
+            if ( g.getEdge( head, tail ) == null )
+            {
+                g.addEdge( head, new BaseLabeledEdge( valueOf( i ) ), tail );
+            }
+        }
+
+        final Counter counter = new Counter();
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            long start = System.nanoTime();
+            int checksum = 0;
+            for ( int pass = 0; pass < PASSES; pass++ )
+            {
+                for ( BaseLabeledVertex v : vertices )
+                {
+                    for ( BaseLabeledVertex connected : g.getConnectedVertices( v ) )
+                    {
+                        checksum += connected.hashCode();
+                    }
+                }
+            }
+            report( "getConnectedVertices", start, g.getSize(), checksum );
+
+            start = System.nanoTime();
+            counter.checksum = 0;
+            for ( int pass = 0; pass < PASSES; pass++ )
+            {
+                for ( BaseLabeledVertex v : vertices )
+                {
+                    g.forEachNeighbor( v, counter );
+                }
+            }
+            report( "forEachNeighbor", start, g.getSize(), counter.checksum );
+        }
+    }
+
+    private static void report( String path, long start, int nEdges, int checksum )
+    {
+        final long elapsed = System.nanoTime() - start;
+        System.out.println( format( "%s: %s ms, %s arcs/s (checksum %s)", path, elapsed / 1000000L,
+                                    (long) ( (long) nEdges * PASSES * 1e9 / elapsed ), checksum ) );
+    }
+
+    private static final class Counter
+        implements VertexVisitor<BaseLabeledVertex>
+    {
+
+        int checksum;
+
+        public void visit( BaseLabeledVertex vertex )
+        {
+            checksum += vertex.hashCode();
+        }
+
+    }
+
+}
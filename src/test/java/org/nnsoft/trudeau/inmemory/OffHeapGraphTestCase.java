@@ -0,0 +1,185 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks the off-heap graphs behave like the on-heap ones.
+ */
+public class OffHeapGraphTestCase
+{
+
+    @Test
+    public final void offHeapGraphMatchesHeapGraph()
+    {
+        OffHeapDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> offHeap =
+            new OffHeapDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> heap =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildStar( 3000, true, offHeap );
+        buildStar( 3000, true, heap );
+
+        try
+        {
+            assertEquals( heap.freeze(), offHeap.freeze() );
+            BaseLabeledVertex center = new BaseLabeledVertex( "center" );
+            assertEquals( 3000, offHeap.getOutDegree( center ) );
+            assertEquals( 3000, offHeap.getInDegree( center ) );
+
+            for ( int i = 0; i < 3000; i += 2 )
+            {
+                BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( i ) );
+                offHeap.removeVertex( leaf );
+                heap.removeVertex( leaf );
+            }
+            assertEquals( heap.freeze(), offHeap.freeze() );
+            assertEquals( 1500, offHeap.getOutDegree( center ) );
+            assertEquals( 3000, offHeap.getSize() );
+
+            BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( 1 ) );
+            assertEquals( new BaseLabeledEdge( "1 -> center" ), offHeap.getEdge( leaf, center ) );
+            assertNull( offHeap.getEdge( leaf, leaf ) );
+        }
+        finally
+        {
+            offHeap.close();
+        }
+    }
+
+    @Test
+    public final void serializeOffHeapGraph()
+        throws Exception
+    {
+        OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildStar( 100, false, g );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream( bytes );
+        oos.writeObject( g );
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        @SuppressWarnings( "unchecked" )
+        OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> cloned =
+            (OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>) ois.readObject();
+        ois.close();
+
+        assertEquals( g, cloned );
+        assertEquals( 100, cloned.getDegree( new BaseLabeledVertex( "center" ) ) );
+        g.close();
+        cloned.close();
+    }
+
+    @Test( expected = GraphException.class )
+    public final void closedGraphCannotBeUsed()
+    {
+        OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new OffHeapUndirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildStar( 10, false, g );
+        g.close();
+
+        g.getDegree( new BaseLabeledVertex( "center" ) );
+    }
+
+    @Test
+    public final void slabsAreNotCarvedFromDedicatedBuffers()
+    {
+        OffHeapIntLists lists = new OffHeapIntLists();
+        try
+        {
+            // a slab is being carved when a list presized larger than a slab gets its dedicated buffer
+            lists.create( 1 );
+            int large = ( 1 << 20 ) + 1;
+            lists.create( 0, large );
+            for ( int i = 0; i < large; i++ )
+            {
+                lists.add( 0, i );
+            }
+
+            for ( int list = 1; list <= 100; list++ )
+            {
+                lists.create( list );
+                for ( int i = 0; i < 10; i++ )
+                {
+                    lists.add( list, -list );
+                }
+            }
+
+            assertEquals( large, lists.size( 0 ) );
+            for ( int i = 0; i < large; i++ )
+            {
+                assertEquals( i, lists.get( 0, i ) );
+            }
+            for ( int list = 1; list <= 100; list++ )
+            {
+                assertEquals( 10, lists.size( list ) );
+                assertEquals( -list, lists.get( list, 9 ) );
+            }
+        }
+        finally
+        {
+            lists.close();
+        }
+    }
+
+    @Test( expected = GraphException.class )
+    public final void closedListsCannotBeUsed()
+    {
+        OffHeapIntLists lists = new OffHeapIntLists();
+        lists.create( 0 );
+        lists.add( 0, 1 );
+        lists.close();
+        lists.close();
+
+        lists.get( 0, 0 );
+    }
+
+    /**
+     * Creates a star where the center is connected to each of the {@code nLeaves} leaves, and back if
+     * {@code twoWays}.
+     */
+    private static void buildStar( int nLeaves, boolean twoWays, BaseMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g )
+    {
+        BaseLabeledVertex center = new BaseLabeledVertex( "center" );
+        g.addVertex( center );
+        for ( int i = 0; i < nLeaves; i++ )
+        {
+            BaseLabeledVertex leaf = new BaseLabeledVertex( valueOf( i ) );
+            g.addVertex( leaf );
+            g.addEdge( center, new BaseLabeledEdge( "center -> " + i ), leaf );
+            if ( twoWays )
+            {
+                g.addEdge( leaf, new BaseLabeledEdge( i + " -> center" ), center );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.format;
+import static java.lang.String.valueOf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.nnsoft.trudeau.api.WeightedPath;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledWeightedEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseWeightedEdge;
+import org.nnsoft.trudeau.math.monoid.primitive.DoubleWeightBaseOperations;
+
+/**
+ * Compares the time spent rebuilding long paths from predecessors lists whose edges are looked up in the graph,
+ * via {@link PredecessorsList#addPredecessor(Object, Object)}, against lists recording the edges, via
+ * {@link PredecessorsList#addPredecessor(Object, Object, Object)}, for both map based and dense lists; then the time
+ * spent relaxing every edge of the graph, as a shortest path search would, and rebuilding the path once.
+ *
+ * Run as a plain Java application, optionally passing the number of hops and of rebuilt paths.
+ */
+public final class PathReconstructionBenchmark
+{
+
+    private static final int ROUNDS = 5;
+
+    public static void main( String[] args )
+    {
+        final int nHops = args.length > 0 ? Integer.parseInt( args[0] ) : 5000;
+        final int nPaths = args.length > 1 ? Integer.parseInt( args[1] ) : 1000;
+
+        // a chain where each vertex is also connected to a few others, so that edges are not found at first probe
+        final DirectedMutableGraph<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> g =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>>();
+        final BaseLabeledVertex[] vertices = new BaseLabeledVertex[nHops + 1];
+        for ( int i = 0; i <= nHops; i++ )
+        {
+            vertices[i] = new BaseLabeledVertex( valueOf( i ) );
+            g.addVertex( vertices[i] );
+        }
+        for ( int i = 0; i < nHops; i++ )
+        {
+            for ( int j = Math.min( i + 8, nHops ); j > i; j-- )
+            {
+                g.addEdge( vertices[i], new BaseLabeledWeightedEdge<Double>( i + " -> " + j, 1D ), vertices[j] );
+            }
+        }
+
+        final DoubleWeightBaseOperations operations = new DoubleWeightBaseOperations();
+        final BaseWeightedEdge<Double> weightedEdges = new BaseWeightedEdge<Double>();
+        final PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> lookedUp =
+            new PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>( g, operations,
+                                                                                             weightedEdges );
+        final PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> recorded =
+            new PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>( g, operations,
+                                                                                             weightedEdges );
+        final DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseLookedUp =
+            new DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>( g, operations,
+                                                                                                  weightedEdges );
+        final DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> denseRecorded =
+            new DensePredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>( g, operations,
+                                                                                                  weightedEdges );
+        for ( int i = 1; i <= nHops; i++ )
+        {
+            BaseLabeledWeightedEdge<Double> edge = g.getEdge( vertices[i - 1], vertices[i] );
+            lookedUp.addPredecessor( vertices[i], vertices[i - 1] );
+            recorded.addPredecessor( vertices[i], edge, vertices[i - 1] );
+            denseLookedUp.addPredecessor( vertices[i], vertices[i - 1] );
+            denseRecorded.addPredecessor( vertices[i], edge, vertices[i - 1] );
+        }
+
+        final BaseLabeledVertex source = vertices[0];
+        final BaseLabeledVertex target = vertices[nHops];
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            long start = System.nanoTime();
+            double checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += lookedUp.buildPath( source, target ).getWeight();
+            }
+            report( "PredecessorsList, looked up edges", start, nPaths, nHops, checksum );
+
+            start = System.nanoTime();
+            checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += recorded.buildPath( source, target ).getWeight();
+            }
+            report( "PredecessorsList, recorded edges", start, nPaths, nHops, checksum );
+
+            start = System.nanoTime();
+            checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += denseLookedUp.buildPath( source, target ).getWeight();
+            }
+            report( "DensePredecessorsList, looked up edges", start, nPaths, nHops, checksum );
+
+            start = System.nanoTime();
+            checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += denseRecorded.buildPath( source, target ).getWeight();
+            }
+            report( "DensePredecessorsList, recorded edges", start, nPaths, nHops, checksum );
+        }
+
+        // each vertex is relaxed by all its inbound edges, the last relaxation, along the chain, is kept
+        final List<BaseLabeledWeightedEdge<Double>> relaxedEdges = new ArrayList<BaseLabeledWeightedEdge<Double>>();
+        for ( int tail = 1; tail <= nHops; tail++ )
+        {
+            for ( int head = Math.max( tail - 8, 0 ); head < tail; head++ )
+            {
+                relaxedEdges.add( g.getEdge( vertices[head], vertices[tail] ) );
+            }
+        }
+        final long nRelaxations = (long) nPaths * relaxedEdges.size();
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            long start = System.nanoTime();
+            double checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += relax( newList( g, operations, weightedEdges ), vertices, null ).getWeight();
+            }
+            report( "PredecessorsList, relaxations without edges", start, nRelaxations, "relaxation", checksum );
+
+            start = System.nanoTime();
+            checksum = 0;
+            for ( int i = 0; i < nPaths; i++ )
+            {
+                checksum += relax( newList( g, operations, weightedEdges ), vertices, relaxedEdges ).getWeight();
+            }
+            report( "PredecessorsList, relaxations recording edges", start, nRelaxations, "relaxation", checksum );
+        }
+    }
+
+    private static PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> newList(
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>> g, DoubleWeightBaseOperations operations,
+        BaseWeightedEdge<Double> weightedEdges )
+    {
+        return new PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double>( g, operations,
+                                                                                                weightedEdges );
+    }
+
+    /**
+     * Relaxes the inbound edges of each vertex of the chain, recording them unless {@code relaxedEdges} is null, then
+     * rebuilds the path along the chain.
+     */
+    private static WeightedPath<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> relax(
+        PredecessorsList<BaseLabeledVertex, BaseLabeledWeightedEdge<Double>, Double> list,
+        BaseLabeledVertex[] vertices, List<BaseLabeledWeightedEdge<Double>> relaxedEdges )
+    {
+        int relaxation = 0;
+        for ( int tail = 1; tail < vertices.length; tail++ )
+        {
+            for ( int head = Math.max( tail - 8, 0 ); head < tail; head++ )
+            {
+                if ( relaxedEdges != null )
+                {
+                    list.addPredecessor( vertices[tail], relaxedEdges.get( relaxation++ ), vertices[head] );
+                }
+                else
+                {
+                    list.addPredecessor( vertices[tail], vertices[head] );
+                }
+            }
+        }
+        return list.buildPath( vertices[0], vertices[vertices.length - 1] );
+    }
+
+    private static void report( String path, long start, int nPaths, int nHops, double checksum )
+    {
+        report( path, start, (long) nPaths * nHops, "hop", checksum );
+    }
+
+    private static void report( String path, long start, long nOperations, String operation, double checksum )
+    {
+        final long elapsed = System.nanoTime() - start;
+        System.out.println( format( "%s: %s ms, %s ns/%s (checksum %s)", path, elapsed / 1000000L,
+                                    elapsed / nOperations, operation, checksum ) );
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.nnsoft.trudeau.inmemory;
+
+/*
+ *   Copyright 2013 The Trudeau Project
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+import static java.lang.String.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.nnsoft.trudeau.inmemory.GraphFixtures.buildRing;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.nnsoft.trudeau.api.GraphException;
+import org.nnsoft.trudeau.api.VertexPair;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledEdge;
+import org.nnsoft.trudeau.inmemory.labeled.BaseLabeledVertex;
+
+/**
+ * Checks the versioned graph publishes consistent, immutable snapshots.
+ */
+public class VersionedGraphTestCase
+{
+
+    private static final int N_VERTICES = 2000;
+
+    @Test
+    public final void pinnedSnapshotIsNotAffectedByLaterMutations()
+    {
+        VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        BaseLabeledVertex a = new BaseLabeledVertex( "a" );
+        BaseLabeledVertex b = new BaseLabeledVertex( "b" );
+        BaseLabeledEdge ab = new BaseLabeledEdge( "a -> b" );
+        g.addVertex( a );
+        g.addVertex( b );
+        g.addEdge( a, ab, b );
+
+        DirectedGraphSnapshot<BaseLabeledVertex, BaseLabeledEdge> pinned = g.snapshot();
+        assertEquals( 3L, pinned.getVersion() );
+
+        g.removeVertex( b );
+        assertEquals( 4L, g.getVersion() );
+        assertFalse( g.containsEdge( ab ) );
+        assertEquals( 0, g.getOutDegree( a ) );
+
+        assertEquals( 2, pinned.getOrder() );
+        assertEquals( 1, pinned.getSize() );
+        assertSame( ab, pinned.getEdge( a, b ) );
+        assertEquals( 1, pinned.getInDegree( b ) );
+        assertEquals( new VertexPair<BaseLabeledVertex>( a, b ), pinned.getVertices( ab ) );
+    }
+
+    @Test
+    public final void versionedGraphMatchesMutableGraph()
+    {
+        VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> versioned =
+            new VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> heap =
+            new DirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( N_VERTICES, versioned );
+        buildRing( N_VERTICES, heap );
+
+        for ( int i = 0; i < N_VERTICES; i += 3 )
+        {
+            BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+            versioned.removeVertex( v );
+            heap.removeVertex( v );
+        }
+
+        assertEquals( heap.getSize(), versioned.getSize() );
+        assertEquals( heap.freeze(),
+                      new FrozenDirectedGraph<BaseLabeledVertex, BaseLabeledEdge>( versioned.snapshot() ) );
+        assertNull( versioned.getEdge( new BaseLabeledVertex( "1" ), new BaseLabeledVertex( "4" ) ) );
+    }
+
+    @Test( expected = GraphException.class )
+    public final void lookupOfMissingVertexFails()
+    {
+        VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+
+        g.getOutDegree( new BaseLabeledVertex( "a" ) );
+    }
+
+    @Test
+    public final void readersNeverSeePartialMutations()
+        throws Throwable
+    {
+        final VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge> g =
+            new VersionedDirectedMutableGraph<BaseLabeledVertex, BaseLabeledEdge>();
+        buildRing( N_VERTICES, g );
+        final AtomicBoolean writing = new AtomicBoolean( true );
+
+        TestRunner[] runners = new TestRunner[4];
+        runners[0] = new TestRunner()
+        {
+
+            @Override
+            public void runTest()
+            {
+                try
+                {
+                    for ( int i = 0; i < N_VERTICES; i++ )
+                    {
+                        BaseLabeledVertex v = new BaseLabeledVertex( valueOf( i ) );
+                        g.removeVertex( v );
+                        g.addVertex( v );
+                    }
+                }
+                finally
+                {
+                    writing.set( false );
+                }
+            }
+
+        };
+        for ( int i = 1; i < runners.length; i++ )
+        {
+            runners[i] = new TestRunner()
+            {
+
+                @Override
+                public void runTest()
+                {
+                    long version = -1;
+                    while ( writing.get() )
+                    {
+                        DirectedGraphSnapshot<BaseLabeledVertex, BaseLabeledEdge> snapshot = g.snapshot();
+                        assertTrue( snapshot.getVersion() >= version );
+                        version = snapshot.getVersion();
+
+                        int inDegrees = 0;
+                        int outDegrees = 0;
+                        for ( BaseLabeledVertex v : snapshot.getVertices() )
+                        {
+                            inDegrees += snapshot.getInDegree( v );
+                            outDegrees += snapshot.getOutDegree( v );
+                        }
+                        assertEquals( snapshot.getSize(), inDegrees );
+                        assertEquals( snapshot.getSize(), outDegrees );
+                    }
+                }
+
+            };
+        }
+        new MultiThreadedTestRunner( runners ).runRunnables();
+
+        assertEquals( N_VERTICES, g.getOrder() );
+        assertEquals( 0, g.getSize() );
+    }
+
+}